@@ -3,7 +3,9 @@ package dk.cs.aau.huppaal;
 import dk.cs.aau.huppaal.abstractions.Component;
 import dk.cs.aau.huppaal.abstractions.Project;
 import dk.cs.aau.huppaal.abstractions.Query;
+import dk.cs.aau.huppaal.abstractions.SubComponent;
 import dk.cs.aau.huppaal.backend.UPPAALDriverManager;
+import dk.cs.aau.huppaal.code_analysis.AnalysisEngine;
 import dk.cs.aau.huppaal.code_analysis.CodeAnalysis;
 import dk.cs.aau.huppaal.controllers.CanvasController;
 import dk.cs.aau.huppaal.controllers.HUPPAALController;
@@ -12,14 +14,17 @@ import dk.cs.aau.huppaal.presentations.HUPPAALPresentation;
 import dk.cs.aau.huppaal.presentations.UndoRedoHistoryPresentation;
 import dk.cs.aau.huppaal.utility.keyboard.Keybind;
 import dk.cs.aau.huppaal.utility.keyboard.KeyboardTracker;
-import com.google.common.io.Files;
+import dk.cs.aau.huppaal.utility.serialize.ProjectArchive;
+import dk.cs.aau.huppaal.utility.serialize.ProjectJournal;
 import com.google.gson.*;
+import com.google.gson.stream.JsonReader;
 import javafx.application.Application;
 import javafx.application.Platform;
 import javafx.beans.property.BooleanProperty;
 import javafx.beans.property.SimpleStringProperty;
-import javafx.collections.ListChangeListener;
 import javafx.scene.Scene;
+import javafx.scene.control.Alert;
+import javafx.scene.control.ButtonType;
 import javafx.scene.image.Image;
 import javafx.scene.input.KeyCode;
 import javafx.scene.input.KeyCodeCombination;
@@ -33,28 +38,42 @@ import jiconfont.javafx.IconFontFX;
 import org.apache.commons.io.FileUtils;
 
 import java.io.File;
-import java.io.FileWriter;
 import java.io.IOException;
 import java.io.Writer;
 import java.net.URISyntaxException;
 import java.nio.charset.Charset;
+import java.nio.file.AtomicMoveNotSupportedException;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
 import java.security.CodeSource;
 import java.util.*;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 import java.util.prefs.Preferences;
 import java.util.stream.Collectors;
 
 public class HUPPAAL extends Application {
 
+    public static final String QUERIES_FILE_NAME = "Queries.json";
+    private static final Gson PRETTY_GSON = new GsonBuilder().setPrettyPrinting().create();
+
     public static Preferences preferences;
     public static String serverDirectory;
     public static String debugDirectory;
+    public static String journalDirectory;
     public static String temporaryProjectDirectory;
     public static boolean serializationDone = false;
     private static Project project;
     private static HUPPAALPresentation presentation;
     public static SimpleStringProperty projectDirectory = new SimpleStringProperty();
+
+    // The directory the project was last loaded from or saved to, and the file each component was written to in it
+    private static String savedDirectory = null;
+    private static final Map<Component, String> savedComponentFiles = new HashMap<>();
     private Stage debugStage;
 
     {
@@ -72,7 +91,10 @@ public class HUPPAAL extends Application {
             temporaryProjectDirectory = rootDirectory + "projects" + File.separator + "temp";
             serverDirectory = rootDirectory + "servers";
             debugDirectory = rootDirectory + "uppaal-debug";
-            forceCreateFolder(projectDirectory.getValue());
+            journalDirectory = rootDirectory + "journals";
+            if (!ProjectArchive.isArchive(projectDirectory.getValue())) {
+                forceCreateFolder(projectDirectory.getValue());
+            }
             forceCreateFolder(serverDirectory);
             forceCreateFolder(debugDirectory);
         } catch (final IOException e) {
@@ -90,51 +112,166 @@ public class HUPPAAL extends Application {
     }
 
     public static void save() {
-        // Clear the project folder .json files
+        if (ProjectArchive.isArchive(projectDirectory.getValue())) {
+            saveArchive();
+            return;
+        }
+
+        final Path directory = Paths.get(projectDirectory.getValue());
+        boolean failed = false;
+
         try {
-            List<Path> paths = java.nio.file.Files.walk(Paths.get(projectDirectory.getValue()+"/"))
-                    .filter(p -> java.nio.file.Files.isRegularFile(p) && p.getFileName().toString().endsWith(".json"))
-                    .collect(Collectors.toList());
+            java.nio.file.Files.createDirectories(directory);
+
+            // If we are saving to another directory than the one we loaded from (or last saved to), start from a clean folder
+            if (!directory.toString().equals(savedDirectory)) {
+                final List<Path> paths = java.nio.file.Files.walk(directory)
+                        .filter(p -> java.nio.file.Files.isRegularFile(p) && p.getFileName().toString().endsWith(".json"))
+                        .collect(Collectors.toList());
 
-            for (Path pth:paths) {
-                java.nio.file.Files.delete(pth);
+                for (final Path pth : paths) {
+                    java.nio.file.Files.delete(pth);
+                }
+
+                savedComponentFiles.clear();
+                getProject().getComponents().forEach(component -> component.setDirty(true));
+                getProject().setQueriesDirty(true);
+                savedDirectory = directory.toString();
             }
         } catch (final IOException e) {
             showToast("Save failed: " + e.getMessage());
             e.printStackTrace();
+            return;
         }
 
-        HUPPAAL.getProject().getComponents().forEach(component -> {
-            try {
-                final Writer writer = new FileWriter(String.format(projectDirectory.getValue() + File.separator + "%s.json", component.getName()));
-                final Gson gson = new GsonBuilder().setPrettyPrinting().create();
+        // Sub components are serialized by the name of their component, so a rename also changes the components using it
+        final Set<Component> renamedComponents = new HashSet<>();
+        getProject().getComponents().forEach(component -> {
+            if (!componentFileName(component).equals(savedComponentFiles.get(component))) {
+                renamedComponents.add(component);
+            }
+        });
+        getProject().getComponents().forEach(component -> {
+            for (final SubComponent subComponent : component.getSubComponents()) {
+                if (renamedComponents.contains(subComponent.getComponent())) {
+                    component.setDirty(true);
+                    break;
+                }
+            }
+        });
+
+        // Only write the components that have changed since they were last written
+        final Set<String> staleFiles = new HashSet<>();
+        for (final Component component : getProject().getComponents()) {
+            final String fileName = componentFileName(component);
+            if (!component.isDirty() && fileName.equals(savedComponentFiles.get(component)) && java.nio.file.Files.exists(directory.resolve(fileName))) {
+                continue;
+            }
 
-                gson.toJson(component.serialize(), writer);
+            try {
+                writeAtomically(directory.resolve(fileName), component.serialize());
+                component.setDirty(false);
 
-                writer.close();
+                final String previousFileName = savedComponentFiles.put(component, fileName);
+                if (previousFileName != null && !previousFileName.equals(fileName)) {
+                    staleFiles.add(previousFileName);
+                }
             } catch (final IOException e) {
+                failed = true;
                 showToast("Could not save project: " + e.getMessage());
                 e.printStackTrace();
             }
-        });
+        }
 
-        final JsonArray queries = new JsonArray();
-        HUPPAAL.getProject().getQueries().forEach(query -> {
-            queries.add(query.serialize());
+        // Remove the files of deleted components, and the files of renamed components unless another component now uses it
+        final Set<Component> components = new HashSet<>(getProject().getComponents());
+        savedComponentFiles.entrySet().removeIf(savedFile -> {
+            if (components.contains(savedFile.getKey())) return false;
+            staleFiles.add(savedFile.getValue());
+            return true;
         });
+        staleFiles.removeAll(savedComponentFiles.values());
 
-        final Writer writer;
-        try {
-            writer = new FileWriter(projectDirectory.getValue() + File.separator + "Queries.json");
-            final Gson gson = new GsonBuilder().setPrettyPrinting().create();
+        for (final String staleFile : staleFiles) {
+            try {
+                java.nio.file.Files.deleteIfExists(directory.resolve(staleFile));
+            } catch (final IOException e) {
+                failed = true;
+                showToast("Could not save project: " + e.getMessage());
+                e.printStackTrace();
+            }
+        }
+
+        final Path queriesFile = directory.resolve(QUERIES_FILE_NAME);
+        if (getProject().isQueriesDirty() || !java.nio.file.Files.exists(queriesFile)) {
+            final JsonArray queries = new JsonArray();
+            getProject().getQueries().forEach(query -> queries.add(query.serialize()));
 
-            gson.toJson(queries, writer);
-            writer.close();
+            try {
+                writeAtomically(queriesFile, queries);
+                getProject().setQueriesDirty(false);
+            } catch (final IOException e) {
+                failed = true;
+                showToast("Could not save project: " + e.getMessage());
+                e.printStackTrace();
+            }
+        }
 
+        if (!failed) {
+            ProjectJournal.startTracking(projectDirectory.getValue(), false);
             showToast("Project saved!");
+        }
+    }
+
+    private static void saveArchive() {
+        final Map<String, JsonElement> projectFiles = new LinkedHashMap<>();
+        getProject().getComponents().forEach(component -> projectFiles.put(componentFileName(component), component.serialize()));
+
+        final JsonArray queries = new JsonArray();
+        getProject().getQueries().forEach(query -> queries.add(query.serialize()));
+        projectFiles.put(QUERIES_FILE_NAME, queries);
+
+        try {
+            ProjectArchive.write(Paths.get(projectDirectory.getValue()), projectFiles);
         } catch (final IOException e) {
             showToast("Could not save project: " + e.getMessage());
             e.printStackTrace();
+            return;
+        }
+
+        // The archive is always written as a whole, so there is nothing to compare against when saving to a directory
+        savedDirectory = null;
+        savedComponentFiles.clear();
+        getProject().getComponents().forEach(component -> component.setDirty(false));
+        getProject().setQueriesDirty(false);
+        ProjectJournal.startTracking(projectDirectory.getValue(), false);
+
+        showToast("Project saved!");
+    }
+
+    public static String componentFileName(final Component component) {
+        return component.getName() + ".json";
+    }
+
+    /**
+     * Writes the json to a temporary file next to the target and moves it in place,
+     * such that a crash while saving never leaves a half written file behind.
+     */
+    private static void writeAtomically(final Path target, final JsonElement json) throws IOException {
+        final Path temporaryFile = java.nio.file.Files.createTempFile(target.getParent(), target.getFileName().toString(), ".tmp");
+
+        try {
+            try (final Writer writer = java.nio.file.Files.newBufferedWriter(temporaryFile, Charset.defaultCharset())) {
+                PRETTY_GSON.toJson(json, writer);
+            }
+
+            try {
+                java.nio.file.Files.move(temporaryFile, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+            } catch (final AtomicMoveNotSupportedException e) {
+                java.nio.file.Files.move(temporaryFile, target, StandardCopyOption.REPLACE_EXISTING);
+            }
+        } finally {
+            java.nio.file.Files.deleteIfExists(temporaryFile);
         }
     }
 
@@ -163,6 +300,7 @@ public class HUPPAAL extends Application {
     public void start(final Stage stage) throws Exception {
         // Load or create new project
         project = new Project();
+        AnalysisEngine.initialize();
 
         // Set the title and icon for the application
         stage.setTitle("H-UPPAAL");
@@ -208,6 +346,13 @@ public class HUPPAAL extends Application {
                 new Image(getClass().getResource("ic_launcher/mipmap-xxxhdpi/ic_launcher.png").toExternalForm())
         );
 
+        // If H-UPPAAL was not closed properly, reopen a project that has unsaved changes such that they can be recovered
+        ProjectJournal.initialize(Paths.get(journalDirectory));
+        final String unsavedProject = ProjectJournal.findUnsavedProject();
+        if (unsavedProject != null) {
+            projectDirectory.set(unsavedProject);
+        }
+
         initializeProjectFolder();
 
         // We're now ready! Let the curtains fall!
@@ -257,6 +402,7 @@ public class HUPPAAL extends Application {
 
         stage.setOnCloseRequest(event -> {
             UPPAALDriverManager.getInstance().stopEngines();
+            ProjectJournal.close();
 
             Platform.exit();
             System.exit(0);
@@ -267,30 +413,45 @@ public class HUPPAAL extends Application {
         try {
             // Make sure that the project directory exists
             final File directory = new File(projectDirectory.get());
-            FileUtils.forceMkdir(directory);
-
-            CodeAnalysis.getErrors().addListener(new ListChangeListener<CodeAnalysis.Message>() {
-                @Override
-                public void onChanged(Change<? extends CodeAnalysis.Message> c) {
-                    CodeAnalysis.getErrors().forEach(message -> {
-                        System.out.println(message.getMessage());
-                    });
-                }
-            });
+            final boolean isArchive = ProjectArchive.isArchive(directory.getPath());
+            if (!isArchive) {
+                FileUtils.forceMkdir(directory);
+            }
 
-            CodeAnalysis.getBackendErrors().removeIf(message -> true);
-            CodeAnalysis.getErrors().removeIf(message -> true);
-            CodeAnalysis.getWarnings().removeIf(message -> true);
+            // The warnings and errors of the components are removed together with the components
+            CodeAnalysis.clearBackendErrors();
             CodeAnalysis.disable();
             HUPPAAL.getProject().getQueries().removeIf(query -> true);
             HUPPAAL.getProject().getComponents().removeIf(component -> true);
             HUPPAAL.getProject().setMainComponent(null);
 
             // Deserialize the project
-            deserializeProject(directory);
+            savedComponentFiles.clear();
+            final Map<String, JsonElement> projectFiles = isArchive ? readProjectFiles(ProjectArchive.open(directory.toPath())) : readProjectFiles(directory);
+
+            // Offer to apply the changes that were not saved before H-UPPAAL was closed
+            final boolean recovering = ProjectJournal.open(projectDirectory.get()) && askToRecoverUnsavedChanges();
+            if (recovering) {
+                ProjectJournal.applyUnsavedChanges(projectFiles);
+            }
+
+            deserializeProject(projectFiles);
             CodeAnalysis.enable();
+            AnalysisEngine.analyseProject();
+
+            if (recovering) {
+                // Nothing on disk can be trusted to match the project, the next save writes everything
+                savedDirectory = null;
+                showToast("Recovered changes that were not saved");
+            } else {
+                // Everything we just loaded is identical to what is on disk
+                savedDirectory = isArchive ? null : Paths.get(projectDirectory.get()).toString();
+                HUPPAAL.getProject().getComponents().forEach(component -> component.setDirty(false));
+                HUPPAAL.getProject().setQueriesDirty(false);
+            }
+            ProjectJournal.startTracking(projectDirectory.get(), recovering);
 
-            // Generate all component presentations by making them the active component in the view one by one
+            // Only the shown component gets a presentation, the others are presented when they are first shown
             Component initialShownComponent = null;
             for (final Component component : HUPPAAL.getProject().getComponents()) {
                 // The first component should be shown if there is no main
@@ -302,8 +463,6 @@ public class HUPPAAL extends Application {
                 if (component.isIsMain()) {
                     initialShownComponent = component;
                 }
-
-                CanvasController.setActiveComponent(component);
             }
 
             // If we found a component (preferably main) set that as active
@@ -317,40 +476,70 @@ public class HUPPAAL extends Application {
         }
     }
 
+    private static boolean askToRecoverUnsavedChanges() {
+        final Alert alert = new Alert(Alert.AlertType.CONFIRMATION,
+                "H-UPPAAL was not closed properly. Do you want to recover the changes to " + projectDirectory.get() + " that were not saved?",
+                ButtonType.YES, ButtonType.NO);
+        alert.setTitle("H-UPPAAL");
+        alert.setHeaderText("Recover unsaved changes");
+
+        return alert.showAndWait().filter(ButtonType.YES::equals).isPresent();
+    }
+
     public static void uppaalDriverUpdated(){
         //The UPPAALDriver has been updated, notify the presentation
         presentation.uppaalDriverUpdated();
     }
 
-    private static void deserializeProject(final File projectFolder) throws IOException {
+    private static Map<String, JsonElement> readProjectFiles(final File projectFolder) throws IOException {
 
         // If there are no files do not try to deserialize
-        final File[] projectFiles = projectFolder.listFiles();
-        if (projectFiles == null || projectFiles.length == 0) return;
+        final File[] projectFiles = projectFolder.listFiles((dir, name) -> name.endsWith(".json"));
+        if (projectFiles == null || projectFiles.length == 0) return new LinkedHashMap<>();
+
+        // Read and parse all of the files concurrently, the model is built afterwards
+        final Map<String, Callable<JsonElement>> projectFileParsers = new LinkedHashMap<>();
+        for (final File file : projectFiles) {
+            projectFileParsers.put(file.getName(), () -> parseProjectFile(file));
+        }
+
+        return parseProjectFiles(projectFileParsers);
+    }
+
+    private static Map<String, JsonElement> readProjectFiles(final ProjectArchive archive) throws IOException {
+        // Decode the entries of the archive concurrently, they have the same names as the files in a project directory
+        final Map<String, Callable<JsonElement>> projectFileParsers = new LinkedHashMap<>();
+        for (final String name : archive.getEntryNames()) {
+            projectFileParsers.put(name, () -> archive.read(name));
+        }
 
+        return parseProjectFiles(projectFileParsers);
+    }
+
+    /**
+     * Builds the project from the parsed project files, keyed by their file name
+     */
+    private static void deserializeProject(final Map<String, JsonElement> parsedFiles) {
         // Create maps for deserialization
         final Map<String, JsonObject> componentJsonMap = new HashMap<>();
         final Map<JsonObject, Integer> componentMaxDepthMap = new HashMap<>();
+        final Map<JsonObject, String> componentFileNameMap = new HashMap<>();
+        final List<Query> queries = new ArrayList<>();
         JsonObject mainJsonComponent = null;
 
-        for (final File file : projectFiles) {
-            if (!file.getName().endsWith(".json"))
-                continue;
-
-            final String fileContent = Files.toString(file, Charset.defaultCharset());
+        for (final Map.Entry<String, JsonElement> parsedFile : parsedFiles.entrySet()) {
+            final String fileName = parsedFile.getKey();
 
             // If the file represents the queries
-            if (file.getName().equals("Queries.json")) {
-                new JsonParser().parse(fileContent).getAsJsonArray().forEach(jsonElement -> {
-                    final Query newQuery = new Query((JsonObject) jsonElement);
-                    getProject().getQueries().add(newQuery);
+            if (fileName.equals(QUERIES_FILE_NAME)) {
+                parsedFile.getValue().getAsJsonArray().forEach(jsonElement -> {
+                    queries.add(new Query((JsonObject) jsonElement));
                 });
                 // Do not parse Queries.json as a component
                 continue;
             }
 
-            // Parse the file to an json object
-            final JsonObject jsonObject = new JsonParser().parse(fileContent).getAsJsonObject();
+            final JsonObject jsonObject = parsedFile.getValue().getAsJsonObject();
 
             // Fetch the name of the component
             final String componentName = jsonObject.get("name").getAsString();
@@ -361,6 +550,9 @@ public class HUPPAAL extends Application {
             // Initialize the max depth map
             componentMaxDepthMap.put(jsonObject, 0);
 
+            // Remember the file such that saving can tell which files belong to which components
+            componentFileNameMap.put(jsonObject, fileName);
+
             // Find the main name of the main component
             if (jsonObject.get("main").getAsBoolean()) {
                 mainJsonComponent = jsonObject;
@@ -368,6 +560,8 @@ public class HUPPAAL extends Application {
 
         }
 
+        getProject().getQueries().addAll(queries);
+
         if (mainJsonComponent != null) {
             updateDepthMap(mainJsonComponent, 0, componentJsonMap, componentMaxDepthMap);
         }
@@ -386,14 +580,62 @@ public class HUPPAAL extends Application {
         // Reverse the list such that the greatest depth is first in the list
         Collections.reverse(orderedJsonComponents);
 
-        // Add the components to the list
+        // It is important that the components are in the project prior to deserialization (sub components are
+        // resolved by name), so they are created with their final name and added to the project in one go
+        final List<Component> newComponents = new ArrayList<>();
         orderedJsonComponents.forEach(jsonObject -> {
+            newComponents.add(new Component(jsonObject.get("name").getAsString(), false));
+        });
+        getProject().getComponents().addAll(newComponents);
+
+        for (int i = 0; i < newComponents.size(); i++) {
+            final Component newComponent = newComponents.get(i);
+            final JsonObject jsonObject = orderedJsonComponents.get(i);
 
-            // It is important that the components are added the list prior to deserialiation
-            final Component newComponent = new Component();
-            getProject().getComponents().add(newComponent);
             newComponent.deserialize(jsonObject);
+            savedComponentFiles.put(newComponent, componentFileNameMap.get(jsonObject));
+        }
+    }
+
+    /**
+     * Runs the given parsers on a pool of worker threads.
+     * The returned map has the same order as the given parsers.
+     */
+    private static Map<String, JsonElement> parseProjectFiles(final Map<String, Callable<JsonElement>> parsers) throws IOException {
+        final int threads = Math.max(1, Math.min(parsers.size(), Runtime.getRuntime().availableProcessors()));
+        final ExecutorService executor = Executors.newFixedThreadPool(threads, runnable -> {
+            final Thread thread = new Thread(runnable, "Project loader");
+            thread.setDaemon(true);
+            return thread;
         });
+
+        try {
+            final Map<String, Future<JsonElement>> futures = new LinkedHashMap<>();
+            parsers.forEach((name, parser) -> futures.put(name, executor.submit(parser)));
+
+            final Map<String, JsonElement> parsedFiles = new LinkedHashMap<>();
+            for (final Map.Entry<String, Future<JsonElement>> future : futures.entrySet()) {
+                try {
+                    parsedFiles.put(future.getKey(), future.getValue().get());
+                } catch (final InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new IOException("Interrupted while loading " + future.getKey(), e);
+                } catch (final ExecutionException e) {
+                    throw new IOException("Could not load " + future.getKey(), e.getCause());
+                }
+            }
+
+            return parsedFiles;
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private static JsonElement parseProjectFile(final File file) throws IOException {
+        // Stream the file into the parser instead of reading it into a string first
+        try (final JsonReader reader = new JsonReader(java.nio.file.Files.newBufferedReader(file.toPath(), Charset.defaultCharset()))) {
+            return JsonParser.parseReader(reader);
+        }
     }
 
     private static void updateDepthMap(final JsonObject jsonObject, final int depth, final Map<String, JsonObject> nameToJson, final Map<JsonObject, Integer> jsonToDpeth) {
@@ -1,7 +1,8 @@
 package dk.cs.aau.huppaal.abstractions;
 
 import dk.cs.aau.huppaal.HUPPAAL;
-import dk.cs.aau.huppaal.controllers.ComponentController;
+import dk.cs.aau.huppaal.code_analysis.declarations.Declarations;
+import dk.cs.aau.huppaal.code_analysis.declarations.DeclarationsModel;
 import dk.cs.aau.huppaal.controllers.HUPPAALController;
 import dk.cs.aau.huppaal.presentations.DropDownMenu;
 import dk.cs.aau.huppaal.utility.UndoRedoStack;
@@ -10,7 +11,11 @@ import dk.cs.aau.huppaal.utility.colors.EnabledColor;
 import dk.cs.aau.huppaal.utility.serialize.Serializable;
 import com.google.gson.JsonArray;
 import com.google.gson.JsonObject;
+import javafx.beans.InvalidationListener;
+import javafx.beans.Observable;
 import javafx.beans.property.*;
+import javafx.beans.value.ChangeListener;
+import javafx.beans.value.ObservableValue;
 import javafx.collections.FXCollections;
 import javafx.collections.ListChangeListener;
 import javafx.collections.ObservableList;
@@ -52,6 +57,7 @@ public class Component implements Serializable, DropDownMenu.HasColor {
     private final ObservableList<SubComponent> subComponents = FXCollections.observableArrayList();
     private final BooleanProperty isMain = new SimpleBooleanProperty(false);
     private final StringProperty description = new SimpleStringProperty("");
+    private final DeclarationsModel parsedDeclarations = new DeclarationsModel(declarations);
 
     // Background check
     private final BooleanProperty includeInPeriodicCheck = new SimpleBooleanProperty(true);
@@ -67,12 +73,38 @@ public class Component implements Serializable, DropDownMenu.HasColor {
 
     private final BooleanProperty firsTimeShown = new SimpleBooleanProperty(false);
 
+    // Where the elements of the component are (created the first time it is needed)
+    private SpatialIndex spatialIndex = null;
+
+    // Persistence (true when the serialized form differs from what was last written to disk)
+    private final BooleanProperty dirty = new SimpleBooleanProperty(true);
+    private final ReadOnlyLongWrapper revision = new ReadOnlyLongWrapper(0);
+
+    // The parts (this component for its own properties, or one of its elements) changed since they were last collected
+    private final Set<Object> changedParts = new HashSet<>();
+    private final Map<Object, InvalidationListener> partDirtyListeners = new HashMap<>();
+    private final Map<Edge, ListChangeListener<Nail>> nailsDirtyListeners = new HashMap<>();
+
     public Component() {
         this(false);
     }
 
     public Component(final boolean doRandomColor) {
-        this("Component" + hiddenID.getAndIncrement(), doRandomColor);
+        this(generateName(), doRandomColor);
+    }
+
+    /**
+     * Generates a name that no component in the project has (loaded components do not advance the hidden id)
+     */
+    private static String generateName() {
+        final Project project = HUPPAAL.getProject();
+
+        while (true) {
+            final String name = "Component" + hiddenID.getAndIncrement();
+            if (project == null || project.getComponents().stream().noneMatch(component -> name.equals(component.getName()))) {
+                return name;
+            }
+        }
     }
 
     public Component(final String name, final boolean doRandomColor) {
@@ -109,6 +141,7 @@ public class Component implements Serializable, DropDownMenu.HasColor {
         this.finalLocation.set(finalLocation);
 
         bindReachabilityAnalysis();
+        bindDirtyTracking();
     }
 
     public Component(final JsonObject object) {
@@ -116,6 +149,7 @@ public class Component implements Serializable, DropDownMenu.HasColor {
         setFirsTimeShown(true);
         deserialize(object);
         bindReachabilityAnalysis();
+        bindDirtyTracking();
     }
 
     public String getName() {
@@ -143,6 +177,13 @@ public class Component implements Serializable, DropDownMenu.HasColor {
         return declarations;
     }
 
+    /**
+     * The symbols and tokens of the current declarations
+     */
+    public Declarations getParsedDeclarations() {
+        return parsedDeclarations.get();
+    }
+
     public ObservableList<Location> getLocations() {
         return locations;
     }
@@ -387,6 +428,16 @@ public class Component implements Serializable, DropDownMenu.HasColor {
         return subComponents.remove(component);
     }
 
+    /**
+     * The index of where the locations, nails, jorks and sub components of the component are
+     */
+    public SpatialIndex getSpatialIndex() {
+        if (spatialIndex == null) {
+            spatialIndex = new SpatialIndex(this);
+        }
+        return spatialIndex;
+    }
+
     public Edge getUnfinishedEdge() {
         for (final Edge edge : edges) {
             if (edge.getTargetLocation() == null && edge.getTargetSubComponent() == null && edge.getTargetJork() == null)
@@ -444,31 +495,102 @@ public class Component implements Serializable, DropDownMenu.HasColor {
         this.includeInPeriodicCheck.set(includeInPeriodicCheck);
     }
 
+    public boolean isDirty() {
+        return dirty.get();
+    }
+
+    public BooleanProperty dirtyProperty() {
+        return dirty;
+    }
+
+    public void setDirty(final boolean dirty) {
+        this.dirty.set(dirty);
+    }
+
+    /**
+     * A counter that increases whenever the serialized form of the component changes
+     */
+    public long getRevision() {
+        return revision.get();
+    }
+
+    public ReadOnlyLongProperty revisionProperty() {
+        return revision.getReadOnlyProperty();
+    }
+
+    /**
+     * Returns the parts of the serialized form that changed since this was last called, and forgets them.
+     * A part is either this component (its properties, including the initial and final location) or one of its
+     * locations, edges, jorks or sub components. Elements that were added or removed are not reported
+     */
+    public Set<Object> collectChangedParts() {
+        final Set<Object> parts = new HashSet<>(changedParts);
+        changedParts.clear();
+        return parts;
+    }
+
+    private void markChanged() {
+        revision.set(revision.get() + 1);
+        setDirty(true);
+    }
+
+    private void markChanged(final Object part) {
+        changedParts.add(part);
+        markChanged();
+    }
+
     @Override
     public JsonObject serialize() {
+        return serialize(true);
+    }
+
+    /**
+     * The serialized form without the lists of elements (see getSerializedLists)
+     */
+    public JsonObject serializeProperties() {
+        return serialize(false);
+    }
+
+    /**
+     * The lists of elements in the serialized form by their key, such that they can be serialized one element at a time
+     */
+    public Map<String, List<? extends Serializable>> getSerializedLists() {
+        final Map<String, List<? extends Serializable>> result = new LinkedHashMap<>();
+        result.put(LOCATIONS, getLocations());
+        result.put(JORKS, getJorks());
+        result.put(SUBCOMPONENTS, getSubComponents());
+        result.put(EDGES, getEdges());
+        return result;
+    }
+
+    private JsonObject serialize(final boolean withElements) {
         final JsonObject result = new JsonObject();
 
         result.addProperty(NAME, getName());
         result.addProperty(DECLARATIONS, getDeclarations());
 
-        final JsonArray locations = new JsonArray();
-        getLocations().forEach(location -> locations.add(location.serialize()));
-        result.add(LOCATIONS, locations);
+        if (withElements) {
+            final JsonArray locations = new JsonArray();
+            getLocations().forEach(location -> locations.add(location.serialize()));
+            result.add(LOCATIONS, locations);
+        }
 
         result.add(INITIAL_LOCATION, getInitialLocation().serialize());
         result.add(FINAL_LOCATION, getFinalLocation().serialize());
 
-        final JsonArray jorks = new JsonArray();
-        getJorks().forEach(jork -> jorks.add(jork.serialize()));
-        result.add(JORKS, jorks);
+        if (withElements) {
+            final JsonArray jorks = new JsonArray();
+            getJorks().forEach(jork -> jorks.add(jork.serialize()));
+            result.add(JORKS, jorks);
 
-        final JsonArray subComponents = new JsonArray();
-        getSubComponents().forEach(subComponent -> subComponents.add(subComponent.serialize()));
-        result.add(SUBCOMPONENTS, subComponents);
+            final JsonArray subComponents = new JsonArray();
+            getSubComponents().forEach(subComponent -> subComponents.add(subComponent.serialize()));
+            result.add(SUBCOMPONENTS, subComponents);
 
-        final JsonArray edges = new JsonArray();
-        getEdges().forEach(edge -> edges.add(edge.serialize()));
-        result.add(EDGES, edges);
+            final JsonArray edges = new JsonArray();
+            getEdges().forEach(edge -> edges.add(edge.serialize()));
+            result.add(EDGES, edges);
+        }
 
         result.addProperty(IS_MAIN, isIsMain());
 
@@ -571,19 +693,167 @@ public class Component implements Serializable, DropDownMenu.HasColor {
     private void bindReachabilityAnalysis() {
         locations.addListener((ListChangeListener<? super Location>) c -> {
             HUPPAALController.runReachabilityAnalysis();
-            ComponentController.setLastChanged();
         });
         edges.addListener((ListChangeListener<? super Edge>) c -> {
             HUPPAALController.runReachabilityAnalysis();
-            ComponentController.setLastChanged();
         });
         declarationsProperty().addListener((observable, oldValue, newValue) -> {
             HUPPAALController.runReachabilityAnalysis();
-            ComponentController.setLastChanged();
         });
         includeInPeriodicCheckProperty().addListener((observable, oldValue, newValue) -> {
-            HUPPAALController.runReachabilityAnalysis();
-            ComponentController.setLastChanged();
+            HUPPAALController.runReachabilityAnalysisNow();
+        });
+    }
+
+    /**
+     * Marks the component as dirty whenever a property that is part of its serialized form changes.
+     * Styling-only properties (e.g. the radius and scale of locations) are not tracked.
+     */
+    private void bindDirtyTracking() {
+        trackDirty(this, true, name, declarations, isMain, description, x, y, width, height, color, includeInPeriodicCheck);
+
+        // The initial and final location are part of the properties of the component
+        trackDirty(getInitialLocation(), this, true);
+        trackDirty(getFinalLocation(), this, true);
+        final ChangeListener<Location> defaultLocationChanged = (observable, oldLocation, newLocation) -> {
+            markChanged(this);
+            if (oldLocation != null) trackDirty(oldLocation, this, false);
+            if (newLocation != null) trackDirty(newLocation, this, true);
+        };
+        initialLocation.addListener(defaultLocationChanged);
+        finalLocation.addListener(defaultLocationChanged);
+
+        locations.forEach(location -> trackDirty(location, location, true));
+        locations.addListener((ListChangeListener<Location>) c -> {
+            markChanged();
+            while (c.next()) {
+                c.getRemoved().forEach(location -> trackDirty(location, location, false));
+                c.getAddedSubList().forEach(location -> trackDirty(location, location, true));
+            }
+        });
+
+        edges.forEach(edge -> trackDirty(edge, true));
+        edges.addListener((ListChangeListener<Edge>) c -> {
+            markChanged();
+            while (c.next()) {
+                c.getRemoved().forEach(edge -> trackDirty(edge, false));
+                c.getAddedSubList().forEach(edge -> trackDirty(edge, true));
+            }
+        });
+
+        jorks.forEach(jork -> trackDirty(jork, true));
+        jorks.addListener((ListChangeListener<Jork>) c -> {
+            markChanged();
+            while (c.next()) {
+                c.getRemoved().forEach(jork -> trackDirty(jork, false));
+                c.getAddedSubList().forEach(jork -> trackDirty(jork, true));
+            }
+        });
+
+        subComponents.forEach(subComponent -> trackDirty(subComponent, true));
+        subComponents.addListener((ListChangeListener<SubComponent>) c -> {
+            markChanged();
+            while (c.next()) {
+                c.getRemoved().forEach(subComponent -> trackDirty(subComponent, false));
+                c.getAddedSubList().forEach(subComponent -> trackDirty(subComponent, true));
+            }
         });
     }
+
+    /**
+     * Starts or stops marking the part as changed when one of the observables changes
+     */
+    private void trackDirty(final Object part, final boolean track, final Observable... observables) {
+        final InvalidationListener markDirty;
+        if (track) {
+            markDirty = partDirtyListeners.computeIfAbsent(part, changedPart -> observable -> {
+                // Read the value such that the property is valid again, otherwise its next change is not reported
+                if (observable instanceof ObservableValue) {
+                    ((ObservableValue<?>) observable).getValue();
+                }
+                markChanged(changedPart);
+            });
+        } else {
+            markDirty = partDirtyListeners.get(part);
+            if (markDirty == null) return;
+        }
+
+        for (final Observable observable : observables) {
+            if (track) {
+                observable.addListener(markDirty);
+
+                // An invalid property does not report changes until it has been read
+                if (observable instanceof ObservableValue) {
+                    ((ObservableValue<?>) observable).getValue();
+                }
+            } else {
+                observable.removeListener(markDirty);
+            }
+        }
+    }
+
+    private void trackDirty(final Location location, final Object part, final boolean track) {
+        trackDirty(part, track, location.idProperty(), location.nicknameProperty(), location.invariantProperty(),
+                location.typeProperty(), location.urgencyProperty(), location.xProperty(), location.yProperty(),
+                location.colorProperty(), location.nicknameXProperty(), location.nicknameYProperty(),
+                location.invariantXProperty(), location.invariantYProperty());
+
+        // The initial and final location share the listener of the component
+        if (!track && part == location) {
+            partDirtyListeners.remove(location);
+        }
+    }
+
+    private void trackDirty(final Edge edge, final boolean track) {
+        trackDirty(edge, track, edge.sourceLocationProperty(), edge.targetLocationProperty(),
+                edge.sourceSubComponentProperty(), edge.targetSubComponentProperty(),
+                edge.sourceJorkProperty(), edge.targetJorkProperty(),
+                edge.selectProperty(), edge.guardProperty(), edge.updateProperty(), edge.syncProperty());
+
+        // The nails are part of the edge
+        if (track) {
+            final ListChangeListener<Nail> nailsDirtyListener = c -> {
+                markChanged(edge);
+                while (c.next()) {
+                    c.getRemoved().forEach(nail -> trackDirty(nail, edge, false));
+                    c.getAddedSubList().forEach(nail -> trackDirty(nail, edge, true));
+                }
+            };
+            nailsDirtyListeners.put(edge, nailsDirtyListener);
+            edge.getNails().addListener(nailsDirtyListener);
+        } else {
+            final ListChangeListener<Nail> nailsDirtyListener = nailsDirtyListeners.remove(edge);
+            if (nailsDirtyListener != null) {
+                edge.getNails().removeListener(nailsDirtyListener);
+            }
+        }
+        edge.getNails().forEach(nail -> trackDirty(nail, edge, track));
+
+        if (!track) {
+            partDirtyListeners.remove(edge);
+        }
+    }
+
+    private void trackDirty(final Nail nail, final Edge edge, final boolean track) {
+        trackDirty(edge, track, nail.xProperty(), nail.yProperty(), nail.propertyTypeProperty(),
+                nail.propertyXProperty(), nail.propertyYProperty());
+    }
+
+    private void trackDirty(final Jork jork, final boolean track) {
+        trackDirty(jork, track, jork.idProperty(), jork.typeProperty(), jork.xProperty(), jork.yProperty());
+
+        if (!track) {
+            partDirtyListeners.remove(jork);
+        }
+    }
+
+    private void trackDirty(final SubComponent subComponent, final boolean track) {
+        trackDirty(subComponent, track, subComponent.componentProperty(), subComponent.identifierProperty(),
+                subComponent.xProperty(), subComponent.yProperty(),
+                subComponent.widthProperty(), subComponent.heightProperty());
+
+        if (!track) {
+            partDirtyListeners.remove(subComponent);
+        }
+    }
 }
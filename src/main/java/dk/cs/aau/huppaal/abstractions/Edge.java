@@ -1,7 +1,6 @@
 package dk.cs.aau.huppaal.abstractions;
 
 import dk.cs.aau.huppaal.code_analysis.Nearable;
-import dk.cs.aau.huppaal.controllers.ComponentController;
 import dk.cs.aau.huppaal.controllers.HUPPAALController;
 import dk.cs.aau.huppaal.presentations.JorkPresentation;
 import dk.cs.aau.huppaal.utility.colors.Color;
@@ -608,19 +607,15 @@ public class Edge implements Serializable, Nearable {
 
         selectProperty().addListener((observable, oldValue, newValue) -> {
             HUPPAALController.runReachabilityAnalysis();
-            ComponentController.setLastChanged();
         });
         guardProperty().addListener((observable, oldValue, newValue) -> {
             HUPPAALController.runReachabilityAnalysis();
-            ComponentController.setLastChanged();
         });
         syncProperty().addListener((observable, oldValue, newValue) -> {
             HUPPAALController.runReachabilityAnalysis();
-            ComponentController.setLastChanged();
         });
         updateProperty().addListener((observable, oldValue, newValue) -> {
             HUPPAALController.runReachabilityAnalysis();
-            ComponentController.setLastChanged();
         });
     }
 
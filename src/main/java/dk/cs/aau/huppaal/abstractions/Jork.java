@@ -11,6 +11,10 @@ import java.util.concurrent.atomic.AtomicInteger;
 
 public class Jork implements Serializable, Nearable, LocationAware {
 
+    // The size of a jork in the component (six grid cells wide and one high)
+    public static final double WIDTH = 60;
+    public static final double HEIGHT = 10;
+
     private static final String X = "x";
     private static final String Y = "y";
     private static final String ID = "id";
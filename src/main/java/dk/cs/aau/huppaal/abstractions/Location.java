@@ -1,7 +1,6 @@
 package dk.cs.aau.huppaal.abstractions;
 
 import dk.cs.aau.huppaal.code_analysis.Nearable;
-import dk.cs.aau.huppaal.controllers.ComponentController;
 import dk.cs.aau.huppaal.controllers.HUPPAALController;
 import dk.cs.aau.huppaal.presentations.DropDownMenu;
 import dk.cs.aau.huppaal.utility.colors.Color;
@@ -17,6 +16,7 @@ import java.util.concurrent.atomic.AtomicInteger;
 
 public class Location implements Circular, Serializable, Nearable, DropDownMenu.HasColor {
 
+    public static final double RADIUS = 15; // The radius of a location in the component
     private static final AtomicInteger hiddenID = new AtomicInteger(0); // Used to generate unique IDs
     private static final String NICKNAME = "nickname";
     private static final String ID = "id";
@@ -131,7 +131,6 @@ public class Location implements Circular, Serializable, Nearable, DropDownMenu.
 
     public void setUrgency(final Urgency urgency) {
         HUPPAALController.runReachabilityAnalysis();
-        ComponentController.setLastChanged();
         this.urgency.set(urgency);
     }
 
@@ -255,7 +254,6 @@ public class Location implements Circular, Serializable, Nearable, DropDownMenu.
 
     public void setInvariantY(final double invariantY) {
         HUPPAALController.runReachabilityAnalysis();
-        ComponentController.setLastChanged();
         this.invariantY.set(invariantY);
     }
 
@@ -349,11 +347,9 @@ public class Location implements Circular, Serializable, Nearable, DropDownMenu.
 
         invariantProperty().addListener((observable, oldValue, newValue) -> {
             HUPPAALController.runReachabilityAnalysis();
-            ComponentController.setLastChanged();
         });
         urgencyProperty().addListener((observable, oldValue, newValue) -> {
             HUPPAALController.runReachabilityAnalysis();
-            ComponentController.setLastChanged();
         });
     }
 
@@ -1,8 +1,15 @@
 package dk.cs.aau.huppaal.abstractions;
 
+import javafx.beans.InvalidationListener;
+import javafx.beans.property.BooleanProperty;
 import javafx.beans.property.ObjectProperty;
+import javafx.beans.property.ReadOnlyLongProperty;
+import javafx.beans.property.ReadOnlyLongWrapper;
+import javafx.beans.property.SimpleBooleanProperty;
 import javafx.beans.property.SimpleObjectProperty;
+import javafx.beans.value.ObservableValue;
 import javafx.collections.FXCollections;
+import javafx.collections.ListChangeListener;
 import javafx.collections.ObservableList;
 
 
@@ -12,8 +19,12 @@ public class Project {
     private final ObservableList<Component> components = FXCollections.observableArrayList();
     private final ObjectProperty<Component> mainComponent = new SimpleObjectProperty<>();
 
-    public Project() {
+    // Persistence (true when the queries differ from what was last written to disk)
+    private final BooleanProperty queriesDirty = new SimpleBooleanProperty(true);
+    private final ReadOnlyLongWrapper queriesRevision = new ReadOnlyLongWrapper(0);
 
+    public Project() {
+        bindQueriesDirtyTracking();
     }
 
     public ObservableList<Query> getQueries() {
@@ -36,4 +47,61 @@ public class Project {
         this.mainComponent.set(mainComponent);
     }
 
+    public boolean isQueriesDirty() {
+        return queriesDirty.get();
+    }
+
+    public BooleanProperty queriesDirtyProperty() {
+        return queriesDirty;
+    }
+
+    public void setQueriesDirty(final boolean queriesDirty) {
+        this.queriesDirty.set(queriesDirty);
+    }
+
+    /**
+     * A counter that increases whenever the serialized form of the queries changes
+     */
+    public long getQueriesRevision() {
+        return queriesRevision.get();
+    }
+
+    public ReadOnlyLongProperty queriesRevisionProperty() {
+        return queriesRevision.getReadOnlyProperty();
+    }
+
+    private void markQueriesChanged() {
+        queriesRevision.set(queriesRevision.get() + 1);
+        setQueriesDirty(true);
+    }
+
+    private void bindQueriesDirtyTracking() {
+        final InvalidationListener markDirty = observable -> {
+            // Read the value such that the property is valid again, otherwise its next change is not reported
+            ((ObservableValue<?>) observable).getValue();
+            markQueriesChanged();
+        };
+
+        queries.addListener((ListChangeListener<Query>) c -> {
+            markQueriesChanged();
+            while (c.next()) {
+                c.getRemoved().forEach(query -> {
+                    query.queryProperty().removeListener(markDirty);
+                    query.commentProperty().removeListener(markDirty);
+                    query.isPeriodicProperty().removeListener(markDirty);
+                });
+                c.getAddedSubList().forEach(query -> {
+                    query.queryProperty().addListener(markDirty);
+                    query.commentProperty().addListener(markDirty);
+                    query.isPeriodicProperty().addListener(markDirty);
+
+                    // An invalid property does not report changes until it has been read
+                    query.getQuery();
+                    query.getComment();
+                    query.isPeriodic();
+                });
+            }
+        });
+    }
+
 }
@@ -0,0 +1,234 @@
+package dk.cs.aau.huppaal.abstractions;
+
+import dk.cs.aau.huppaal.utility.helpers.LocationAware;
+import javafx.beans.InvalidationListener;
+import javafx.beans.Observable;
+import javafx.beans.value.ChangeListener;
+import javafx.collections.ListChangeListener;
+import javafx.collections.ObservableList;
+
+import java.util.*;
+
+/**
+ * The locations, nails, jorks and sub components of a component, indexed by where they are in the component.
+ * The component is divided into square cells, and every element is kept in the cells its bounds overlap, such that
+ * finding the elements near a point only looks at the few cells around it.
+ * The index follows the elements (and their positions) as they change, it must only be used on the JavaFX thread
+ */
+public class SpatialIndex {
+
+    private static final double CELL_SIZE = 100; // Ten grid cells of the canvas
+
+    private final Map<Long, List<LocationAware>> cells = new HashMap<>();
+    private final Map<LocationAware, Entry> entries = new HashMap<>();
+    private final Map<Edge, ListChangeListener<Nail>> nailListeners = new HashMap<>();
+
+    private static class Entry {
+        private final InvalidationListener listener;
+        private double minX, minY, maxX, maxY;
+
+        private Entry(final InvalidationListener listener) {
+            this.listener = listener;
+        }
+    }
+
+    SpatialIndex(final Component component) {
+        track(component.getLocations());
+        track(component.getJorks());
+        track(component.getSubComponents());
+
+        final ChangeListener<Location> defaultLocationChanged = (observable, oldLocation, newLocation) -> {
+            if (oldLocation != null) remove(oldLocation);
+            if (newLocation != null) add(newLocation);
+        };
+        component.initialLocationProperty().addListener(defaultLocationChanged);
+        component.finalLocationProperty().addListener(defaultLocationChanged);
+        add(component.getInitialLocation());
+        add(component.getFinalLocation());
+
+        component.getEdges().addListener((ListChangeListener<Edge>) c -> {
+            while (c.next()) {
+                c.getRemoved().forEach(this::untrackNails);
+                c.getAddedSubList().forEach(this::trackNails);
+            }
+        });
+        component.getEdges().forEach(this::trackNails);
+    }
+
+    /**
+     * The elements whose bounds intersect the rectangle
+     */
+    public List<LocationAware> query(final double minX, final double minY, final double maxX, final double maxY) {
+        final Set<LocationAware> found = new LinkedHashSet<>();
+
+        for (int column = cell(minX); column <= cell(maxX); column++) {
+            for (int row = cell(minY); row <= cell(maxY); row++) {
+                final List<LocationAware> elements = cells.get(key(column, row));
+                if (elements == null) continue;
+
+                for (final LocationAware element : elements) {
+                    final Entry entry = entries.get(element);
+                    if (entry.maxX >= minX && entry.minX <= maxX && entry.maxY >= minY && entry.minY <= maxY) {
+                        found.add(element);
+                    }
+                }
+            }
+        }
+
+        return new ArrayList<>(found);
+    }
+
+    /**
+     * The element of the given type closest to the point (measured to the bounds of the element), or null if there
+     * is none within the max distance
+     */
+    public <T extends LocationAware> T nearest(final Class<T> type, final double x, final double y, final double maxDistance) {
+        T nearest = null;
+        double nearestDistance = maxDistance;
+
+        for (final LocationAware element : query(x - maxDistance, y - maxDistance, x + maxDistance, y + maxDistance)) {
+            if (!type.isInstance(element)) continue;
+
+            final Entry entry = entries.get(element);
+            final double dx = Math.max(Math.max(entry.minX - x, x - entry.maxX), 0);
+            final double dy = Math.max(Math.max(entry.minY - y, y - entry.maxY), 0);
+            final double distance = Math.sqrt(dx * dx + dy * dy);
+
+            if (distance <= nearestDistance) {
+                nearest = type.cast(element);
+                nearestDistance = distance;
+            }
+        }
+
+        return nearest;
+    }
+
+    private <T extends LocationAware> void track(final ObservableList<T> elements) {
+        elements.addListener((ListChangeListener<T>) c -> {
+            while (c.next()) {
+                c.getRemoved().forEach(this::remove);
+                c.getAddedSubList().forEach(this::add);
+            }
+        });
+        elements.forEach(this::add);
+    }
+
+    private void trackNails(final Edge edge) {
+        final ListChangeListener<Nail> listener = c -> {
+            while (c.next()) {
+                c.getRemoved().forEach(this::remove);
+                c.getAddedSubList().forEach(this::add);
+            }
+        };
+        nailListeners.put(edge, listener);
+        edge.getNails().addListener(listener);
+        edge.getNails().forEach(this::add);
+    }
+
+    private void untrackNails(final Edge edge) {
+        final ListChangeListener<Nail> listener = nailListeners.remove(edge);
+        if (listener != null) {
+            edge.getNails().removeListener(listener);
+        }
+        edge.getNails().forEach(this::remove);
+    }
+
+    private void add(final LocationAware element) {
+        if (entries.containsKey(element)) return;
+
+        final Entry entry = new Entry(observable -> move(element));
+        entries.put(element, entry);
+        for (final Observable dependency : getDependencies(element)) {
+            dependency.addListener(entry.listener);
+        }
+
+        updateBounds(element, entry);
+        addToCells(element, entry);
+    }
+
+    private void remove(final LocationAware element) {
+        final Entry entry = entries.remove(element);
+        if (entry == null) return;
+
+        for (final Observable dependency : getDependencies(element)) {
+            dependency.removeListener(entry.listener);
+        }
+        removeFromCells(element, entry);
+    }
+
+    private void move(final LocationAware element) {
+        final Entry entry = entries.get(element);
+        if (entry == null) return;
+
+        removeFromCells(element, entry);
+        updateBounds(element, entry);
+        addToCells(element, entry);
+    }
+
+    private void removeFromCells(final LocationAware element, final Entry entry) {
+        for (int column = cell(entry.minX); column <= cell(entry.maxX); column++) {
+            for (int row = cell(entry.minY); row <= cell(entry.maxY); row++) {
+                final long key = key(column, row);
+                final List<LocationAware> elements = cells.get(key);
+                if (elements == null) continue;
+
+                elements.remove(element);
+                if (elements.isEmpty()) {
+                    cells.remove(key);
+                }
+            }
+        }
+    }
+
+    private void addToCells(final LocationAware element, final Entry entry) {
+        for (int column = cell(entry.minX); column <= cell(entry.maxX); column++) {
+            for (int row = cell(entry.minY); row <= cell(entry.maxY); row++) {
+                cells.computeIfAbsent(key(column, row), k -> new ArrayList<>(4)).add(element);
+            }
+        }
+    }
+
+    private static Observable[] getDependencies(final LocationAware element) {
+        if (element instanceof SubComponent) {
+            final SubComponent subComponent = (SubComponent) element;
+            return new Observable[]{subComponent.xProperty(), subComponent.yProperty(), subComponent.widthProperty(), subComponent.heightProperty()};
+        }
+        return new Observable[]{element.xProperty(), element.yProperty()};
+    }
+
+    /**
+     * Reads the bounds of the element (reading the properties also makes the listeners report their next change)
+     */
+    private static void updateBounds(final LocationAware element, final Entry entry) {
+        final double x = element.getX();
+        final double y = element.getY();
+
+        if (element instanceof Location) {
+            entry.minX = x - Location.RADIUS;
+            entry.minY = y - Location.RADIUS;
+            entry.maxX = x + Location.RADIUS;
+            entry.maxY = y + Location.RADIUS;
+        } else if (element instanceof Jork) {
+            entry.minX = x;
+            entry.minY = y;
+            entry.maxX = x + Jork.WIDTH;
+            entry.maxY = y + Jork.HEIGHT;
+        } else if (element instanceof SubComponent) {
+            entry.minX = x;
+            entry.minY = y;
+            entry.maxX = x + ((SubComponent) element).getWidth();
+            entry.maxY = y + ((SubComponent) element).getHeight();
+        } else {
+            entry.minX = entry.maxX = x;
+            entry.minY = entry.maxY = y;
+        }
+    }
+
+    private static int cell(final double coordinate) {
+        return (int) Math.floor(coordinate / CELL_SIZE);
+    }
+
+    private static long key(final int column, final int row) {
+        return ((long) column << 32) | (row & 0xFFFFFFFFL);
+    }
+}
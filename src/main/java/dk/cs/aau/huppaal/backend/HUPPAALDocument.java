@@ -2,8 +2,11 @@ package dk.cs.aau.huppaal.backend;
 
 import dk.cs.aau.huppaal.abstractions.Component;
 import dk.cs.aau.huppaal.abstractions.*;
+import dk.cs.aau.huppaal.code_analysis.CodeAnalysis;
 import com.google.common.base.Strings;
+import com.uppaal.engine.Problem;
 import com.uppaal.model.core2.Document;
+import com.uppaal.model.core2.Element;
 import com.uppaal.model.core2.Property;
 import com.uppaal.model.core2.PrototypeDocument;
 import com.uppaal.model.core2.Template;
@@ -44,6 +47,13 @@ public class HUPPAALDocument {
 
     private final Component mainComponent;
 
+    // The component each template is generated from, and the number of lines of the global declarations that come from the main component
+    private final Map<Template, Component> templateComponents = new HashMap<>();
+    private int mainDeclarationLineCount = 0;
+
+    // The lines of the declarations that problems have been found in (indexed once per document)
+    private final Map<Element, LineIndex> declarationLines = new HashMap<>();
+
     /**
      * Map used to store startX! and endX! channels
      */
@@ -166,11 +176,13 @@ public class HUPPAALDocument {
         // Create empty template and insert it into the uppaal document
         final Template template = uppaalDocument.createTemplate();
         uppaalDocument.insert(template, null);
+        templateComponents.put(template, component);
 
         if(subComponent != null) {
             template.setProperty(DECLARATION_PROPERTY_TAG, component.getDeclarations());
         } else {
             addToGlobalDeclarations(component.getDeclarations());
+            mainDeclarationLineCount = Strings.isNullOrEmpty(component.getDeclarations()) ? 0 : new LineIndex(component.getDeclarations()).getLineCount();
         }
 
         // Add all locations from the model to our conversion map and to the template
@@ -633,4 +645,50 @@ public class HUPPAALDocument {
         return uToHEdges.get(uEdge);
     }
 
+    /**
+     * The message to show for a problem found in the generated document, pointing back to the H-UPPAAL declarations,
+     * edge or location that the problematic part was generated from
+     */
+    public synchronized CodeAnalysis.Message getMessage(final Problem problem) {
+        Element element;
+        try {
+            element = uppaalDocument.resolveXPath(problem.getPath());
+        } catch (final RuntimeException e) {
+            element = null;
+        }
+
+        // Labels and declarations are properties of the element they belong to
+        final Element owner = element instanceof Property ? element.getParent() : element;
+
+        if (owner != null && problem.getPath().contains("declaration")) {
+            final LineIndex lines = declarationLines.computeIfAbsent(owner, o -> new LineIndex((String) o.getPropertyValue(DECLARATION_PROPERTY_TAG)));
+            final int line = problem.getFirstLine();
+
+            if (line >= 1 && line <= lines.getLineCount()) {
+                final Component component = owner == uppaalDocument
+                        ? (line <= mainDeclarationLineCount ? mainComponent : null)
+                        : templateComponents.get(owner);
+
+                return new CodeAnalysis.Message(
+                        problem.getMessage() + (component != null ? " in the declarations of " + component.getName() : "")
+                                + " on line " + line + " (" + lines.getLine(line).trim() + ")",
+                        CodeAnalysis.MessageType.ERROR
+                );
+            }
+        }
+
+        final Edge edge = owner instanceof com.uppaal.model.core2.Edge ? uToHEdges.get(owner) : null;
+        if (edge != null) {
+            return new CodeAnalysis.Message(problem.getMessage() + " (" + problem.getLocation() + ")", CodeAnalysis.MessageType.ERROR, edge);
+        }
+
+        final Location location = owner instanceof com.uppaal.model.core2.Location ? uToHLocations.get(owner) : null;
+        if (location != null) {
+            return new CodeAnalysis.Message(problem.getMessage() + " (" + problem.getLocation() + ")", CodeAnalysis.MessageType.ERROR, location);
+        }
+
+        // The problem is in a part of the document that is generated by H-UPPAAL
+        return new CodeAnalysis.Message(problem.getMessage() + " (" + problem.getLocation() + ")", CodeAnalysis.MessageType.ERROR);
+    }
+
 }
@@ -0,0 +1,49 @@
+package dk.cs.aau.huppaal.backend;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * The offsets at which the lines of a text start, such that a line can be looked up without splitting the text
+ */
+class LineIndex {
+
+    private final String text;
+    private final int[] lineStarts;
+
+    LineIndex(final String text) {
+        this.text = text == null ? "" : text;
+
+        final List<Integer> starts = new ArrayList<>();
+        starts.add(0);
+        for (int i = 0; i < this.text.length(); i++) {
+            if (this.text.charAt(i) == '\n') {
+                starts.add(i + 1);
+            }
+        }
+
+        lineStarts = new int[starts.size()];
+        for (int i = 0; i < lineStarts.length; i++) {
+            lineStarts[i] = starts.get(i);
+        }
+    }
+
+    int getLineCount() {
+        return lineStarts.length;
+    }
+
+    /**
+     * The offset in the text at which the line (numbered from 1) starts
+     */
+    int getLineStart(final int line) {
+        return lineStarts[line - 1];
+    }
+
+    /**
+     * The text of the line (numbered from 1) without its line break
+     */
+    String getLine(final int line) {
+        final int end = line < lineStarts.length ? lineStarts[line] - 1 : text.length();
+        return text.substring(getLineStart(line), end);
+    }
+}
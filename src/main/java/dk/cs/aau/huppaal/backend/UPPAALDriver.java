@@ -17,14 +17,19 @@ import javafx.application.Platform;
 import java.io.File;
 import java.io.IOException;
 import java.util.ArrayList;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Timer;
 import java.util.TimerTask;
 import java.util.function.Consumer;
 
 public class UPPAALDriver implements IUPPAALDriver {
 
-    private HUPPAALDocument huppaalDocument;
+    private volatile HUPPAALDocument huppaalDocument;
+
+    // The document whose problems are shown (every query of a document finds the same problems)
+    private HUPPAALDocument reportedDocument = null;
 
     private final File serverFile;
 
@@ -117,39 +122,9 @@ public class UPPAALDriver implements IUPPAALDriver {
                     final ArrayList<Problem> problems = new ArrayList<>();
 
                     // Get the system, and fill the problems list if any
-                    final UppaalSystem system = engine.getSystem(huppaalDocument.toUPPAALDocument(), problems);
-
-                    // Run on UI thread
-                    Platform.runLater(() -> {
-                        // Clear the UI for backend-errors
-                        CodeAnalysis.clearBackendErrors();
-
-                        // Check if there is any problems
-                        if (!problems.isEmpty()) {
-                            problems.forEach(problem -> {
-                                System.out.println("problem: " + problem);
-
-                                // Generate the message
-                                CodeAnalysis.Message message = null;
-                                if (problem.getPath().contains("declaration")) {
-                                    final String[] lines = problem.getLocation().split("\\n");
-                                    final String errorLine = lines[problem.getFirstLine() - 1];
-
-                                    message = new CodeAnalysis.Message(
-                                            problem.getMessage() + " on line " + problem.getFirstLine() + " (" + errorLine + ")",
-                                            CodeAnalysis.MessageType.ERROR
-                                    );
-                                } else {
-                                    message = new CodeAnalysis.Message(
-                                            problem.getMessage() + " (" + problem.getLocation() + ")",
-                                            CodeAnalysis.MessageType.ERROR
-                                    );
-                                }
-
-                                CodeAnalysis.addBackendError(message);
-                            });
-                        }
-                    });
+                    final HUPPAALDocument document = huppaalDocument;
+                    final UppaalSystem system = engine.getSystem(document.toUPPAALDocument(), problems);
+                    reportProblems(document, problems);
 
                     // Update some internal state for the engine by getting the initial state
                     engine.getInitialState(system);
@@ -182,6 +157,34 @@ public class UPPAALDriver implements IUPPAALDriver {
         };
     }
 
+    /**
+     * Shows the problems found in the document, unless they are already shown or the document is outdated
+     */
+    private void reportProblems(final HUPPAALDocument document, final List<Problem> problems) {
+        synchronized (this) {
+            if (document != huppaalDocument || document == reportedDocument) return;
+            reportedDocument = document;
+        }
+
+        // The same problem is found once for every sub component instantiating the same component
+        final Map<List<Object>, CodeAnalysis.Message> messages = new LinkedHashMap<>();
+        problems.forEach(problem -> {
+            System.out.println("problem: " + problem);
+
+            final CodeAnalysis.Message message = document.getMessage(problem);
+            final List<Object> key = new ArrayList<>(message.getNearables());
+            key.add(message.getMessage());
+            messages.putIfAbsent(key, message);
+        });
+
+        // Run on UI thread
+        Platform.runLater(() -> {
+            // Replace the backend-errors of the previous document
+            CodeAnalysis.clearBackendErrors();
+            messages.values().forEach(CodeAnalysis::addBackendError);
+        });
+    }
+
     private final ArrayList<Engine> createdEngines = new ArrayList<>();
     private final ArrayList<Engine> availableEngines = new ArrayList<>();
 
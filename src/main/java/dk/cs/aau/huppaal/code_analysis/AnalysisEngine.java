@@ -0,0 +1,470 @@
+package dk.cs.aau.huppaal.code_analysis;
+
+import dk.cs.aau.huppaal.HUPPAAL;
+import dk.cs.aau.huppaal.abstractions.Component;
+import dk.cs.aau.huppaal.abstractions.Edge;
+import dk.cs.aau.huppaal.abstractions.Nail;
+import dk.cs.aau.huppaal.code_analysis.rules.*;
+import javafx.application.Platform;
+import javafx.beans.value.ChangeListener;
+import javafx.collections.ListChangeListener;
+
+import java.util.*;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Checks the registered rules against the components of the project.
+ *
+ * Whenever a component changes, its rules are put on a worklist. Edge rules are only put on the worklist for the
+ * edges that were added or had their source, target or labels changed (and for every edge when the declarations
+ * the labels refer to change). Once a rule has been left alone for its quiet period it is checked on a single
+ * background thread, and the resulting changes to the messages are delivered to the FX thread in one batch.
+ * Nothing runs while the project is not edited. Whole-project checks are left to the {@link ProjectAnalysis}.
+ *
+ * Rules read the model while it may be edited on the FX thread. This is safe since every edit puts the component
+ * back on the worklist, such that a check that saw a half-done edit is always followed by one that sees all of it.
+ * A check that fails because a list was changed while it was read is checked again. Any other exception is a bug
+ * in the rule, and is printed.
+ */
+public class AnalysisEngine {
+
+    public static final long DEFAULT_QUIET_PERIOD = 50; // ms
+
+    private static final List<AnalysisRule> rules = new ArrayList<>();
+    private static final List<EdgeRule> edgeRules = new ArrayList<>();
+
+    private static final ScheduledExecutorService executor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        final Thread thread = new Thread(runnable, "Code analysis");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    // The checks to run for each component, and when to run them (guarded by the worklist)
+    private static final Map<Component, Map<Check, Long>> worklist = new HashMap<>();
+    private static ScheduledFuture<?> scheduledCheck = null;
+    private static long scheduledCheckTime = 0;
+
+    // The components being analysed, and the messages currently shown for each of their checks (FX thread only)
+    private static final Map<Component, ComponentListeners> analysedComponents = new HashMap<>();
+    private static final Map<Component, Map<Check, Map<List<Object>, CodeAnalysis.Message>>> shownMessages = new HashMap<>();
+
+    /**
+     * Registers the rules of H-UPPAAL and analyses the components that are added to the project from now on
+     * (as long as code analysis is enabled)
+     */
+    public static void initialize() {
+        registerRule(new UniqueSubComponentIdentifierRule());
+        registerRule(new NoIncomingEdgesRule());
+        registerRule(new SubComponentEdgeConsistencyRule());
+        registerRule(new LocationNicknameRule());
+        registerRule(new LocationInvariantRule());
+
+        registerRule(new OutgoingEdgeFromFinalLocationRule());
+        registerRule(new IncomingEdgeToInitialLocationRule());
+        registerRule(new ForkEdgeRule());
+        registerRule(new JoinEdgeRule());
+        registerRule(new EdgeExpressionRule());
+
+        ProjectAnalysis.initialize();
+
+        HUPPAAL.getProject().getComponents().addListener((ListChangeListener<Component>) c -> {
+            while (c.next()) {
+                c.getRemoved().forEach(AnalysisEngine::stopAnalysing);
+                if (CodeAnalysis.isEnabled()) {
+                    c.getAddedSubList().forEach(AnalysisEngine::startAnalysing);
+                }
+            }
+        });
+
+        // The declarations of the main component are global, so every component refers to them
+        final ChangeListener<String> globalDeclarationsListener = (observable, oldDeclarations, newDeclarations) -> markAllDirty();
+        HUPPAAL.getProject().mainComponentProperty().addListener((observable, oldMainComponent, newMainComponent) -> {
+            if (oldMainComponent != null) oldMainComponent.declarationsProperty().removeListener(globalDeclarationsListener);
+            if (newMainComponent != null) newMainComponent.declarationsProperty().addListener(globalDeclarationsListener);
+            markAllDirty();
+        });
+        if (HUPPAAL.getProject().getMainComponent() != null) {
+            HUPPAAL.getProject().getMainComponent().declarationsProperty().addListener(globalDeclarationsListener);
+        }
+    }
+
+    private static void markAllDirty() {
+        analysedComponents.forEach((component, listeners) -> {
+            markDirty(component);
+            listeners.markEdgesDirty();
+        });
+        ProjectAnalysis.markDirty();
+    }
+
+    public static void registerRule(final AnalysisRule rule) {
+        rules.add(rule);
+        analysedComponents.keySet().forEach(AnalysisEngine::markDirty);
+    }
+
+    public static void registerRule(final EdgeRule rule) {
+        edgeRules.add(rule);
+        analysedComponents.values().forEach(ComponentListeners::markEdgesDirty);
+    }
+
+    /**
+     * Analyses every component in the project, e.g. when the project was added while code analysis was disabled
+     */
+    public static void analyseProject() {
+        HUPPAAL.getProject().getComponents().forEach(AnalysisEngine::startAnalysing);
+    }
+
+    static void startAnalysing(final Component component) {
+        if (analysedComponents.containsKey(component)) return;
+
+        final ComponentListeners listeners = new ComponentListeners(component);
+        analysedComponents.put(component, listeners);
+
+        component.revisionProperty().addListener(listeners.revisionListener);
+        component.declarationsProperty().addListener(listeners.declarationsListener);
+        component.getEdges().addListener(listeners.edgesListener);
+        component.getEdges().forEach(listeners::startAnalysing);
+
+        markDirty(component);
+        ProjectAnalysis.markDirty();
+    }
+
+    static void stopAnalysing(final Component component) {
+        final ComponentListeners listeners = analysedComponents.remove(component);
+        if (listeners == null) return;
+
+        component.revisionProperty().removeListener(listeners.revisionListener);
+        component.declarationsProperty().removeListener(listeners.declarationsListener);
+        component.getEdges().removeListener(listeners.edgesListener);
+        new ArrayList<>(listeners.edgeListeners.keySet()).forEach(listeners::stopAnalysing);
+
+        synchronized (worklist) {
+            worklist.remove(component);
+        }
+
+        // The component is no longer in the project, so neither are its messages
+        final Map<Check, Map<List<Object>, CodeAnalysis.Message>> messages = shownMessages.remove(component);
+        if (messages != null) {
+            messages.values().forEach(checkMessages -> checkMessages.values().forEach(message -> CodeAnalysis.removeMessage(component, message)));
+        }
+
+        ProjectAnalysis.forget(component);
+        ProjectAnalysis.markDirty();
+    }
+
+    /**
+     * Checks the (non-edge) rules of the component once they have been left alone for their quiet period
+     */
+    public static void markDirty(final Component component) {
+        final long now = System.currentTimeMillis();
+
+        synchronized (worklist) {
+            final Map<Check, Long> componentChecks = worklist.computeIfAbsent(component, c -> new HashMap<>());
+            for (final AnalysisRule rule : rules) {
+                final long checkTime = now + rule.getQuietPeriod();
+                componentChecks.put(new Check(rule), checkTime);
+                scheduleCheck(checkTime);
+            }
+        }
+    }
+
+    /**
+     * Checks the edge rules of the edge once they have been left alone for their quiet period
+     */
+    public static void markDirty(final Component component, final Edge edge) {
+        final long now = System.currentTimeMillis();
+
+        synchronized (worklist) {
+            final Map<Check, Long> componentChecks = worklist.computeIfAbsent(component, c -> new HashMap<>());
+            for (final EdgeRule rule : edgeRules) {
+                final long checkTime = now + rule.getQuietPeriod();
+                componentChecks.put(new Check(rule, edge), checkTime);
+                scheduleCheck(checkTime);
+            }
+        }
+    }
+
+    private static void scheduleCheck(final long checkTime) {
+        if (scheduledCheck != null && scheduledCheckTime <= checkTime) return; // An earlier check will reschedule
+
+        if (scheduledCheck != null) {
+            scheduledCheck.cancel(false);
+        }
+
+        scheduledCheckTime = checkTime;
+        scheduledCheck = executor.schedule(AnalysisEngine::check, Math.max(0, checkTime - System.currentTimeMillis()), TimeUnit.MILLISECONDS);
+    }
+
+    private static void check() {
+        final Map<Component, List<Check>> dueChecks = new HashMap<>();
+
+        synchronized (worklist) {
+            scheduledCheck = null;
+
+            final long now = System.currentTimeMillis();
+            long nextCheckTime = Long.MAX_VALUE;
+
+            final Iterator<Map.Entry<Component, Map<Check, Long>>> components = worklist.entrySet().iterator();
+            while (components.hasNext()) {
+                final Map.Entry<Component, Map<Check, Long>> component = components.next();
+
+                final Iterator<Map.Entry<Check, Long>> componentChecks = component.getValue().entrySet().iterator();
+                while (componentChecks.hasNext()) {
+                    final Map.Entry<Check, Long> check = componentChecks.next();
+                    if (check.getValue() <= now) {
+                        dueChecks.computeIfAbsent(component.getKey(), c -> new ArrayList<>()).add(check.getKey());
+                        componentChecks.remove();
+                    } else {
+                        nextCheckTime = Math.min(nextCheckTime, check.getValue());
+                    }
+                }
+
+                if (component.getValue().isEmpty()) {
+                    components.remove();
+                }
+            }
+
+            if (nextCheckTime != Long.MAX_VALUE) {
+                scheduleCheck(nextCheckTime);
+            }
+        }
+
+        final Map<Component, Map<Check, List<CodeAnalysis.Message>>> results = new HashMap<>();
+        dueChecks.forEach((component, componentChecks) -> {
+            for (final Check check : componentChecks) {
+                try {
+                    results.computeIfAbsent(component, c -> new HashMap<>()).put(check, check.run(component));
+                } catch (final ConcurrentModificationException | IndexOutOfBoundsException e) {
+                    // The component was edited while it was checked
+                    retry(component, check);
+                } catch (final RuntimeException e) {
+                    e.printStackTrace();
+                }
+            }
+        });
+
+        if (!results.isEmpty()) {
+            Platform.runLater(() -> deliver(results));
+        }
+    }
+
+    private static void retry(final Component component, final Check check) {
+        final long checkTime = System.currentTimeMillis() + DEFAULT_QUIET_PERIOD;
+
+        synchronized (worklist) {
+            // A later edit might already have put the check back on the worklist
+            worklist.computeIfAbsent(component, c -> new HashMap<>()).putIfAbsent(check, checkTime);
+            scheduleCheck(checkTime);
+        }
+    }
+
+    private static void deliver(final Map<Component, Map<Check, List<CodeAnalysis.Message>>> results) {
+        // The project is being loaded, it is analysed again when code analysis is enabled
+        if (!CodeAnalysis.isEnabled()) return;
+
+        results.forEach((component, componentResults) -> {
+            final ComponentListeners listeners = analysedComponents.get(component);
+            if (listeners == null) return; // The component has been removed
+
+            final Map<Check, Map<List<Object>, CodeAnalysis.Message>> componentMessages = shownMessages.computeIfAbsent(component, c -> new HashMap<>());
+
+            componentResults.forEach((check, messages) -> {
+                if (check.edge != null && !listeners.edgeListeners.containsKey(check.edge)) return; // The edge has been removed
+
+                final Map<List<Object>, CodeAnalysis.Message> oldMessages = componentMessages.getOrDefault(check, Collections.emptyMap());
+                final Map<List<Object>, CodeAnalysis.Message> newMessages = new LinkedHashMap<>();
+
+                // Keep the messages that are still found, such that the UI does not change for them
+                for (final CodeAnalysis.Message message : messages) {
+                    final List<Object> key = keyOf(message);
+                    newMessages.put(key, oldMessages.getOrDefault(key, message));
+                }
+
+                oldMessages.forEach((key, message) -> {
+                    if (!newMessages.containsKey(key)) {
+                        CodeAnalysis.removeMessage(component, message);
+                    }
+                });
+                newMessages.forEach((key, message) -> {
+                    if (!oldMessages.containsKey(key)) {
+                        CodeAnalysis.addMessage(component, message);
+                    }
+                });
+
+                if (newMessages.isEmpty()) {
+                    componentMessages.remove(check);
+                } else {
+                    componentMessages.put(check, newMessages);
+                }
+            });
+        });
+    }
+
+    /**
+     * True if a rule whose errors the engine would also reject reports an error, such that verifying the model would
+     * only give errors (FX thread only)
+     */
+    public static boolean hasVerificationErrors() {
+        for (final Map<Check, Map<List<Object>, CodeAnalysis.Message>> componentMessages : shownMessages.values()) {
+            for (final Map.Entry<Check, Map<List<Object>, CodeAnalysis.Message>> checkMessages : componentMessages.entrySet()) {
+                if (!checkMessages.getKey().blocksVerification()) continue;
+
+                for (final CodeAnalysis.Message message : checkMessages.getValue().values()) {
+                    if (message.getMessageType() == CodeAnalysis.MessageType.ERROR) return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Messages with the same key are the same message. The descriptions of the nearables are part of the key,
+     * such that a message is replaced (and its description in the UI updated) when e.g. a location is renamed
+     */
+    static List<Object> keyOf(final CodeAnalysis.Message message) {
+        final List<Object> key = new ArrayList<>();
+        key.add(message.getMessageType());
+        key.add(message.getMessage());
+        for (final Nearable nearable : message.getNearables()) {
+            key.add(nearable);
+            key.add(nearable.generateNearString());
+        }
+        return key;
+    }
+
+    /**
+     * A rule, and the edge to check it for if it is an edge rule
+     */
+    private static class Check {
+
+        private final AnalysisRule rule;
+        private final EdgeRule edgeRule;
+        private final Edge edge;
+
+        Check(final AnalysisRule rule) {
+            this.rule = rule;
+            this.edgeRule = null;
+            this.edge = null;
+        }
+
+        Check(final EdgeRule edgeRule, final Edge edge) {
+            this.rule = null;
+            this.edgeRule = edgeRule;
+            this.edge = edge;
+        }
+
+        List<CodeAnalysis.Message> run(final Component component) {
+            return rule != null ? rule.check(component) : edgeRule.check(component, edge);
+        }
+
+        boolean blocksVerification() {
+            return rule != null ? rule.blocksVerification() : edgeRule.blocksVerification();
+        }
+
+        @Override
+        public boolean equals(final Object o) {
+            if (this == o) return true;
+            if (!(o instanceof Check)) return false;
+            final Check check = (Check) o;
+            return rule == check.rule && edgeRule == check.edgeRule && edge == check.edge;
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(System.identityHashCode(rule), System.identityHashCode(edgeRule), System.identityHashCode(edge));
+        }
+    }
+
+    /**
+     * The listeners that put the checks of an analysed component on the worklist
+     */
+    private static class ComponentListeners {
+
+        private final Component component;
+        private final ChangeListener<Number> revisionListener;
+        private final ChangeListener<String> declarationsListener;
+        private final ListChangeListener<Edge> edgesListener;
+        private final Map<Edge, ChangeListener<Object>> edgeListeners = new HashMap<>();
+        private final Map<Edge, ListChangeListener<Nail>> nailsListeners = new HashMap<>();
+
+        ComponentListeners(final Component component) {
+            this.component = component;
+            this.revisionListener = (observable, oldRevision, newRevision) -> {
+                markDirty(component);
+                ProjectAnalysis.markDirty();
+            };
+            this.declarationsListener = (observable, oldDeclarations, newDeclarations) -> markEdgesDirty();
+            this.edgesListener = c -> {
+                while (c.next()) {
+                    c.getRemoved().forEach(this::stopAnalysing);
+                    c.getAddedSubList().forEach(this::startAnalysing);
+                }
+            };
+        }
+
+        private void startAnalysing(final Edge edge) {
+            if (edgeListeners.containsKey(edge)) return;
+
+            final ChangeListener<Object> edgeListener = (observable, oldValue, newValue) -> markDirty(component, edge);
+            edgeListeners.put(edge, edgeListener);
+
+            edge.sourceLocationProperty().addListener(edgeListener);
+            edge.targetLocationProperty().addListener(edgeListener);
+            edge.sourceSubComponentProperty().addListener(edgeListener);
+            edge.targetSubComponentProperty().addListener(edgeListener);
+            edge.sourceJorkProperty().addListener(edgeListener);
+            edge.targetJorkProperty().addListener(edgeListener);
+            edge.selectProperty().addListener(edgeListener);
+            edge.guardProperty().addListener(edgeListener);
+            edge.syncProperty().addListener(edgeListener);
+            edge.updateProperty().addListener(edgeListener);
+
+            // Only the labels that have a nail are part of the model
+            final ListChangeListener<Nail> nailsListener = c -> markDirty(component, edge);
+            nailsListeners.put(edge, nailsListener);
+            edge.getNails().addListener(nailsListener);
+
+            markDirty(component, edge);
+        }
+
+        private void markEdgesDirty() {
+            edgeListeners.keySet().forEach(edge -> markDirty(component, edge));
+        }
+
+        private void stopAnalysing(final Edge edge) {
+            final ChangeListener<Object> edgeListener = edgeListeners.remove(edge);
+            if (edgeListener == null) return;
+
+            edge.sourceLocationProperty().removeListener(edgeListener);
+            edge.targetLocationProperty().removeListener(edgeListener);
+            edge.sourceSubComponentProperty().removeListener(edgeListener);
+            edge.targetSubComponentProperty().removeListener(edgeListener);
+            edge.sourceJorkProperty().removeListener(edgeListener);
+            edge.targetJorkProperty().removeListener(edgeListener);
+            edge.selectProperty().removeListener(edgeListener);
+            edge.guardProperty().removeListener(edgeListener);
+            edge.syncProperty().removeListener(edgeListener);
+            edge.updateProperty().removeListener(edgeListener);
+            edge.getNails().removeListener(nailsListeners.remove(edge));
+
+            synchronized (worklist) {
+                final Map<Check, Long> componentChecks = worklist.get(component);
+                if (componentChecks != null) {
+                    componentChecks.keySet().removeIf(check -> check.edge == edge);
+                }
+            }
+
+            // The edge is no longer in the component, so neither are its messages
+            final Map<Check, Map<List<Object>, CodeAnalysis.Message>> componentMessages = shownMessages.get(component);
+            if (componentMessages != null) {
+                componentMessages.entrySet().removeIf(check -> {
+                    if (check.getKey().edge != edge) return false;
+                    check.getValue().values().forEach(message -> CodeAnalysis.removeMessage(component, message));
+                    return true;
+                });
+            }
+        }
+    }
+}
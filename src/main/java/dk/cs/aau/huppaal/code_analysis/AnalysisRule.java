@@ -0,0 +1,34 @@
+package dk.cs.aau.huppaal.code_analysis;
+
+import dk.cs.aau.huppaal.abstractions.Component;
+
+import java.util.List;
+
+/**
+ * A rule checked by the {@link AnalysisEngine}.
+ * Rules are checked on the analysis thread, so they must only read the model (and copy lists before iterating them)
+ */
+public interface AnalysisRule {
+
+    /**
+     * The messages that currently apply to the component. Messages with the same type, text and nearables as
+     * the last time the rule was checked are considered the same message
+     */
+    List<CodeAnalysis.Message> check(Component component);
+
+    /**
+     * How long the component must be left unchanged before the rule is checked (ms)
+     */
+    default long getQuietPeriod() {
+        return AnalysisEngine.DEFAULT_QUIET_PERIOD;
+    }
+
+    /**
+     * True if the engine would also reject the model for the errors of the rule, such that the model is not
+     * verified while the rule reports any
+     */
+    default boolean blocksVerification() {
+        return false;
+    }
+
+}
@@ -1,118 +1,112 @@
 package dk.cs.aau.huppaal.code_analysis;
 
 import dk.cs.aau.huppaal.abstractions.Component;
+import javafx.application.Platform;
 import javafx.beans.property.SimpleStringProperty;
 import javafx.beans.property.StringProperty;
 import javafx.collections.FXCollections;
 import javafx.collections.ObservableList;
 
-import java.util.Collections;
-import java.util.HashMap;
-import java.util.List;
-import java.util.Map;
+import java.util.*;
 
+/**
+ * The warnings and errors of the project.
+ * Messages are indexed by the component and by the nearables they belong to. The observable lists are only updated
+ * once per pulse, such that adding or removing many messages results in a single change per list.
+ * Must only be used from the FX thread
+ */
 public class CodeAnalysis {
 
     private static boolean ENABLED = true;
 
-    private static final ObservableList<Message> backendErrors = FXCollections.observableArrayList();
-    private static final ObservableList<Message> warnings = FXCollections.observableArrayList();
-    private static final ObservableList<Message> errors = FXCollections.observableArrayList();
+    private static final MessageList backendErrors = new MessageList();
+    private static final MessageList warnings = new MessageList();
+    private static final MessageList errors = new MessageList();
 
-    private static final Map<Component, ObservableList<Message>> componentWarningsMap = new HashMap<>();
-    private static final Map<Component, ObservableList<Message>> componentErrorsMap = new HashMap<>();
+    private static final Map<Component, MessageList> componentWarningsMap = new HashMap<>();
+    private static final Map<Component, MessageList> componentErrorsMap = new HashMap<>();
 
-    public static ObservableList<Message> getWarnings(final Component component) {
-        ObservableList<Message> list = componentWarningsMap.get(component);
-        if (list == null) {
-            list = FXCollections.observableArrayList();
-            componentWarningsMap.put(component, list);
-        }
-        return list;
-    }
+    // The component of each message, and the messages of each nearable
+    private static final Map<Message, Component> messageComponents = new HashMap<>();
+    private static final Map<Nearable, Set<Message>> nearableMessages = new HashMap<>();
 
-    private static void addToWarnings(final Component component, final Message message) {
-        if(!ENABLED) return;
-
-        final ObservableList<Message> list = getWarnings(component);
-
-        list.add(message);
-        warnings.add(message);
-    }
+    // The lists with changes that have not been published yet
+    private static final Set<MessageList> changedLists = new LinkedHashSet<>();
 
-    private static void removeFromWarnings(final Component component, final Message message) {
-        if(!ENABLED) return;
-
-        final ObservableList<Message> list = getWarnings(component);
-
-        list.remove(message);
-        warnings.remove(message);
+    public static ObservableList<Message> getWarnings(final Component component) {
+        return componentWarningsMap.computeIfAbsent(component, c -> new MessageList()).view;
     }
 
     public static ObservableList<Message> getErrors(final Component component) {
-        ObservableList<Message> list = componentErrorsMap.get(component);
-        if (list == null) {
-            list = FXCollections.observableArrayList();
-            componentErrorsMap.put(component, list);
-        }
-
-        return list;
-    }
-
-    private static void addToErrors(final Component component, final Message message) {
-        if(!ENABLED) return;
-
-        final ObservableList<Message> list = getErrors(component);
-
-        if (list.contains(message)) return;
-
-        list.add(message);
-        errors.add(message);
-    }
-
-    private static void removeFromErrors(final Component component, final Message message) {
-        if(!ENABLED) return;
-
-        final ObservableList<Message> list = getErrors(component);
-
-        list.remove(message);
-        errors.remove(message);
+        return componentErrorsMap.computeIfAbsent(component, c -> new MessageList()).view;
     }
 
     public static void addMessage(final Component component, final Message message) {
         if(!ENABLED) return;
+        if (messageComponents.containsKey(message)) return;
 
         if (message.getMessageType().equals(MessageType.WARNING)) {
-            addToWarnings(component, message);
+            componentWarningsMap.computeIfAbsent(component, c -> new MessageList()).add(message);
+            warnings.add(message);
         } else if (message.getMessageType().equals(MessageType.ERROR)) {
-            addToErrors(component, message);
+            componentErrorsMap.computeIfAbsent(component, c -> new MessageList()).add(message);
+            errors.add(message);
         }
+
+        messageComponents.put(message, component);
+        message.getNearables().forEach(nearable -> nearableMessages.computeIfAbsent(nearable, n -> new LinkedHashSet<>()).add(message));
     }
 
+    /**
+     * Removes the message (also while code analysis is disabled, such that messages of removed components are removed)
+     */
     public static void removeMessage(final Component component, final Message message) {
-        if(!ENABLED) return;
+        if (!messageComponents.containsKey(message)) return;
+        final Component messageComponent = messageComponents.remove(message);
 
         if (message.getMessageType().equals(MessageType.WARNING)) {
-            removeFromWarnings(component, message);
+            componentWarningsMap.get(messageComponent).remove(message);
+            warnings.remove(message);
         } else if (message.getMessageType().equals(MessageType.ERROR)) {
-            removeFromErrors(component, message);
+            componentErrorsMap.get(messageComponent).remove(message);
+            errors.remove(message);
         }
+
+        message.getNearables().forEach(nearable -> {
+            final Set<Message> messages = nearableMessages.get(nearable);
+            if (messages == null) return;
+            messages.remove(message);
+            if (messages.isEmpty()) {
+                nearableMessages.remove(nearable);
+            }
+        });
+    }
+
+    /**
+     * The warnings and errors that are near the nearable
+     */
+    public static Set<Message> getMessages(final Nearable nearable) {
+        return Collections.unmodifiableSet(nearableMessages.getOrDefault(nearable, Collections.emptySet()));
     }
 
     public static void clearWarnings(final Component component) {
-        getWarnings(component).clear();
+        final MessageList list = componentWarningsMap.get(component);
+        if (list == null) return;
+        list.getCurrentMessages().forEach(message -> removeMessage(component, message));
     }
 
     public static void clearErrors(final Component component) {
-        getErrors(component).clear();
+        final MessageList list = componentErrorsMap.get(component);
+        if (list == null) return;
+        list.getCurrentMessages().forEach(message -> removeMessage(component, message));
     }
 
     public static ObservableList<Message> getWarnings() {
-        return warnings;
+        return warnings.view;
     }
 
     public static ObservableList<Message> getErrors() {
-        return errors;
+        return errors.view;
     }
 
     public static void addBackendError(final Message message) {
@@ -124,7 +118,82 @@ public class CodeAnalysis {
     }
 
     public static ObservableList<Message> getBackendErrors() {
-        return backendErrors;
+        return backendErrors.view;
+    }
+
+    /**
+     * Publishes the changes made since the last pulse to the observable lists, one change per list
+     */
+    private static void publishChanges() {
+        final List<MessageList> lists = new ArrayList<>(changedLists);
+        changedLists.clear();
+        lists.forEach(MessageList::publish);
+    }
+
+    /**
+     * An observable list of messages that is updated in batches
+     */
+    private static class MessageList {
+
+        private final ObservableList<Message> messages = FXCollections.observableArrayList();
+        private final ObservableList<Message> view = FXCollections.unmodifiableObservableList(messages);
+
+        private final Set<Message> pendingAdditions = new LinkedHashSet<>();
+        private final Set<Message> pendingRemovals = new HashSet<>();
+
+        private void add(final Message message) {
+            if (!pendingRemovals.remove(message)) {
+                pendingAdditions.add(message);
+            }
+            changed();
+        }
+
+        private void remove(final Message message) {
+            if (!pendingAdditions.remove(message)) {
+                pendingRemovals.add(message);
+            }
+            changed();
+        }
+
+        /**
+         * The messages of the list, including the changes that have not been published yet
+         */
+        private List<Message> getCurrentMessages() {
+            final List<Message> currentMessages = new ArrayList<>();
+            messages.forEach(message -> {
+                if (!pendingRemovals.contains(message)) {
+                    currentMessages.add(message);
+                }
+            });
+            currentMessages.addAll(pendingAdditions);
+            return currentMessages;
+        }
+
+        private void clear() {
+            pendingAdditions.clear();
+            pendingRemovals.addAll(messages);
+            changed();
+        }
+
+        private void changed() {
+            if (changedLists.isEmpty()) {
+                Platform.runLater(CodeAnalysis::publishChanges);
+            }
+            changedLists.add(this);
+        }
+
+        private void publish() {
+            // Removing all of them at once is linear, since the removed messages are looked up in a hash set
+            if (!pendingRemovals.isEmpty()) {
+                messages.removeAll(pendingRemovals);
+                pendingRemovals.clear();
+            }
+
+            if (!pendingAdditions.isEmpty()) {
+                messages.addAll(pendingAdditions);
+                pendingAdditions.clear();
+            }
+        }
     }
 
     public enum MessageType {WARNING, ERROR}
@@ -181,4 +250,8 @@ public class CodeAnalysis {
         ENABLED = false;
     }
 
+    public static boolean isEnabled() {
+        return ENABLED;
+    }
+
 }
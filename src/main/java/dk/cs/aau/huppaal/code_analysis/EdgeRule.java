@@ -0,0 +1,36 @@
+package dk.cs.aau.huppaal.code_analysis;
+
+import dk.cs.aau.huppaal.abstractions.Component;
+import dk.cs.aau.huppaal.abstractions.Edge;
+
+import java.util.List;
+
+/**
+ * A rule about a single edge, checked by the {@link AnalysisEngine}.
+ * The rule is only checked again for an edge when the edge is added, its source, target or labels change, or the
+ * declarations of the component or the main component change. So it must only depend on those (and the types of the
+ * source and target, which do not change)
+ */
+public interface EdgeRule {
+
+    /**
+     * The messages that currently apply to the edge
+     */
+    List<CodeAnalysis.Message> check(Component component, Edge edge);
+
+    /**
+     * How long the edge must be left unchanged before the rule is checked (ms)
+     */
+    default long getQuietPeriod() {
+        return AnalysisEngine.DEFAULT_QUIET_PERIOD;
+    }
+
+    /**
+     * True if the engine would also reject the model for the errors of the rule, such that the model is not
+     * verified while the rule reports any
+     */
+    default boolean blocksVerification() {
+        return false;
+    }
+
+}
@@ -0,0 +1,400 @@
+package dk.cs.aau.huppaal.code_analysis;
+
+import dk.cs.aau.huppaal.HUPPAAL;
+import dk.cs.aau.huppaal.abstractions.*;
+import dk.cs.aau.huppaal.code_analysis.declarations.DeclarationLexer;
+import dk.cs.aau.huppaal.code_analysis.declarations.Declarations;
+import dk.cs.aau.huppaal.code_analysis.declarations.Symbol;
+import dk.cs.aau.huppaal.code_analysis.declarations.Token;
+import dk.cs.aau.huppaal.utility.DebouncedScheduler;
+import javafx.application.Platform;
+import javafx.beans.value.ChangeListener;
+import javafx.collections.ListChangeListener;
+
+import java.util.*;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+
+/**
+ * Analyses the project as a whole: declarations that are never used, channels that are sent on but never received
+ * by the instantiated components, locations that no path leads to, and components that instantiate themselves.
+ *
+ * A summary of every component (what it declares, uses, sends and receives) is computed in parallel on the
+ * fork/join pool, and only for the components that changed since the last pass. The summaries are then merged
+ * into the messages of each component.
+ */
+public class ProjectAnalysis {
+
+    private static final long QUIET_PERIOD = 500; // ms
+    private static final String PASS = "project";
+
+    private static final EnumSet<Symbol.Kind> CHECKED_KINDS = EnumSet.of(Symbol.Kind.CLOCK, Symbol.Kind.CHANNEL,
+            Symbol.Kind.INT, Symbol.Kind.BOOL, Symbol.Kind.VARIABLE);
+
+    private static final DebouncedScheduler<String> scheduler = new DebouncedScheduler<>("Project analysis");
+
+    // The summary of each component from the last pass (scheduler thread only)
+    private static final Map<Component, ComponentSummary> summaries = new HashMap<>();
+
+    // The messages currently shown for each component (FX thread only)
+    private static final Map<Component, Map<List<Object>, CodeAnalysis.Message>> shownMessages = new HashMap<>();
+
+    /**
+     * Analyses the project again when a query changes (names used in queries are not unused)
+     */
+    static void initialize() {
+        final ChangeListener<String> queryListener = (observable, oldQuery, newQuery) -> markDirty();
+
+        HUPPAAL.getProject().getQueries().addListener((ListChangeListener<Query>) c -> {
+            while (c.next()) {
+                c.getRemoved().forEach(query -> query.queryProperty().removeListener(queryListener));
+                c.getAddedSubList().forEach(query -> query.queryProperty().addListener(queryListener));
+            }
+            markDirty();
+        });
+        HUPPAAL.getProject().getQueries().forEach(query -> query.queryProperty().addListener(queryListener));
+    }
+
+    /**
+     * Analyses the project once it has been left alone for the quiet period
+     */
+    static void markDirty() {
+        scheduler.schedule(PASS, QUIET_PERIOD, ProjectAnalysis::analyse);
+    }
+
+    /**
+     * Removes the messages of a component that is no longer in the project
+     */
+    static void forget(final Component component) {
+        final Map<List<Object>, CodeAnalysis.Message> messages = shownMessages.remove(component);
+        if (messages != null) {
+            messages.values().forEach(message -> CodeAnalysis.removeMessage(component, message));
+        }
+    }
+
+    private static void analyse() {
+        // No project has been loaded (components can be analysed on their own)
+        if (HUPPAAL.getProject() == null) return;
+
+        final List<Component> components;
+        final Component mainComponent;
+        final Set<String> queryNames = new HashSet<>();
+
+        try {
+            components = new ArrayList<>(HUPPAAL.getProject().getComponents());
+            mainComponent = HUPPAAL.getProject().getMainComponent();
+            for (final Query query : new ArrayList<>(HUPPAAL.getProject().getQueries())) {
+                addIdentifiers(query.getQuery(), queryNames);
+            }
+        } catch (final ConcurrentModificationException | IndexOutOfBoundsException e) {
+            // The project was edited while it was read (and the pass is therefore already scheduled again)
+            return;
+        }
+
+        // Summarise the components that changed since the last pass in parallel
+        summaries.keySet().retainAll(components);
+        final List<Callable<ComponentSummary>> tasks = new ArrayList<>();
+        for (final Component component : components) {
+            final ComponentSummary summary = summaries.get(component);
+            if (summary == null || summary.revision != component.getRevision()) {
+                tasks.add(() -> new ComponentSummary(component));
+            }
+        }
+
+        try {
+            for (final Future<ComponentSummary> summary : ForkJoinPool.commonPool().invokeAll(tasks)) {
+                summaries.put(summary.get().component, summary.get());
+            }
+        } catch (final InterruptedException e) {
+            return;
+        } catch (final ExecutionException e) {
+            // Unless a component was edited while it was summarised (and the pass is therefore already scheduled again)
+            if (!(e.getCause() instanceof ConcurrentModificationException || e.getCause() instanceof IndexOutOfBoundsException)) {
+                e.printStackTrace();
+            }
+            return;
+        }
+
+        final Map<Component, List<CodeAnalysis.Message>> results = new HashMap<>();
+        components.forEach(component -> results.put(component, new ArrayList<>()));
+
+        checkUnusedDeclarations(components, mainComponent, queryNames, results);
+        checkChannels(components, mainComponent, results);
+        checkUnreachableLocations(components, results);
+        checkRecursiveInstantiation(components, results);
+
+        Platform.runLater(() -> deliver(results));
+    }
+
+    private static void checkUnusedDeclarations(final List<Component> components, final Component mainComponent,
+                                                final Set<String> queryNames, final Map<Component, List<CodeAnalysis.Message>> results) {
+        // Names used by any component that are not declared by the component itself refer to the global declarations
+        final Set<String> globalUses = new HashSet<>(queryNames);
+        for (final Component component : components) {
+            globalUses.addAll(component == mainComponent ? summaries.get(component).usedLocals : summaries.get(component).usedGlobals);
+        }
+
+        for (final Component component : components) {
+            final ComponentSummary summary = summaries.get(component);
+            final Set<String> uses = component == mainComponent ? globalUses : summary.usedLocals;
+
+            for (final Symbol symbol : summary.symbols.values()) {
+                if (!CHECKED_KINDS.contains(symbol.getKind()) || uses.contains(symbol.getName()) || queryNames.contains(symbol.getName())) continue;
+
+                results.get(component).add(new CodeAnalysis.Message(describe(symbol) + " " + symbol.getName() + " is never used", CodeAnalysis.MessageType.WARNING));
+            }
+        }
+    }
+
+    private static void checkChannels(final List<Component> components, final Component mainComponent,
+                                      final Map<Component, List<CodeAnalysis.Message>> results) {
+        if (mainComponent == null || !summaries.containsKey(mainComponent)) return;
+
+        // Only the components that are instantiated from the main component take part in the synchronizations
+        final Set<Component> instantiated = new HashSet<>();
+        final Deque<Component> waiting = new ArrayDeque<>();
+        waiting.add(mainComponent);
+        while (!waiting.isEmpty()) {
+            final ComponentSummary summary = summaries.get(waiting.poll());
+            if (summary == null || !instantiated.add(summary.component)) continue;
+            waiting.addAll(summary.instantiatedComponents);
+        }
+
+        // The channels that are received on, by the component declaring them
+        final Map<Component, Set<String>> receivedChannels = new HashMap<>();
+        for (final Component component : instantiated) {
+            final ComponentSummary summary = summaries.get(component);
+            summary.receivedChannels.forEach(channel -> receivedChannels.computeIfAbsent(summary.declaringComponent(channel, mainComponent), c -> new HashSet<>()).add(channel));
+        }
+
+        for (final Component component : instantiated) {
+            final ComponentSummary summary = summaries.get(component);
+            summary.sentChannels.forEach((channel, edges) -> {
+                final Component declaringComponent = summary.declaringComponent(channel, mainComponent);
+                final Symbol symbol = summaries.get(declaringComponent).symbols.get(channel);
+
+                // Broadcast channels do not need anyone to receive them
+                if (symbol == null || symbol.getKind() != Symbol.Kind.CHANNEL || symbol.isBroadcast()) return;
+                if (receivedChannels.getOrDefault(declaringComponent, Collections.emptySet()).contains(channel)) return;
+
+                results.get(component).add(new CodeAnalysis.Message("Channel " + channel + " is sent on but never received", CodeAnalysis.MessageType.WARNING, new ArrayList<Nearable>(edges)));
+            });
+        }
+    }
+
+    private static void checkUnreachableLocations(final List<Component> components, final Map<Component, List<CodeAnalysis.Message>> results) {
+        for (final Component component : components) {
+            for (final Location location : summaries.get(component).unreachableLocations) {
+                results.get(component).add(new CodeAnalysis.Message("Location is unreachable from the initial location", CodeAnalysis.MessageType.WARNING, location));
+            }
+        }
+    }
+
+    private static void checkRecursiveInstantiation(final List<Component> components, final Map<Component, List<CodeAnalysis.Message>> results) {
+        for (final Component component : components) {
+            for (final SubComponent subComponent : summaries.get(component).subComponents) {
+                if (instantiates(subComponent.getComponent(), component)) {
+                    results.get(component).add(new CodeAnalysis.Message("Sub component instantiates " + component.getName() + " recursively", CodeAnalysis.MessageType.ERROR, subComponent));
+                }
+            }
+        }
+    }
+
+    /**
+     * True if the component is, or (transitively) instantiates, the other component
+     */
+    private static boolean instantiates(final Component component, final Component other) {
+        final Set<Component> visited = new HashSet<>();
+        final Deque<Component> waiting = new ArrayDeque<>();
+        waiting.add(component);
+        while (!waiting.isEmpty()) {
+            final Component next = waiting.poll();
+            if (next == other) return true;
+
+            final ComponentSummary summary = summaries.get(next);
+            if (summary == null || !visited.add(next)) continue;
+            waiting.addAll(summary.instantiatedComponents);
+        }
+        return false;
+    }
+
+    private static void deliver(final Map<Component, List<CodeAnalysis.Message>> results) {
+        // The project is being loaded, it is analysed again when code analysis is enabled
+        if (!CodeAnalysis.isEnabled()) return;
+
+        final Set<Component> components = new HashSet<>(HUPPAAL.getProject().getComponents());
+        results.forEach((component, messages) -> {
+            if (!components.contains(component)) return; // The component has been removed
+
+            final Map<List<Object>, CodeAnalysis.Message> oldMessages = shownMessages.getOrDefault(component, Collections.emptyMap());
+            final Map<List<Object>, CodeAnalysis.Message> newMessages = new LinkedHashMap<>();
+
+            // Keep the messages that are still found, such that the UI does not change for them
+            for (final CodeAnalysis.Message message : messages) {
+                final List<Object> key = AnalysisEngine.keyOf(message);
+                newMessages.put(key, oldMessages.getOrDefault(key, message));
+            }
+
+            oldMessages.forEach((key, message) -> {
+                if (!newMessages.containsKey(key)) {
+                    CodeAnalysis.removeMessage(component, message);
+                }
+            });
+            newMessages.forEach((key, message) -> {
+                if (!oldMessages.containsKey(key)) {
+                    CodeAnalysis.addMessage(component, message);
+                }
+            });
+
+            if (newMessages.isEmpty()) {
+                shownMessages.remove(component);
+            } else {
+                shownMessages.put(component, newMessages);
+            }
+        });
+    }
+
+    private static String describe(final Symbol symbol) {
+        switch (symbol.getKind()) {
+            case CLOCK:
+                return "Clock";
+            case CHANNEL:
+                return "Channel";
+            default:
+                return "Variable";
+        }
+    }
+
+    private static void addIdentifiers(final String text, final Set<String> names) {
+        if (text == null || text.isEmpty()) return;
+
+        for (final Token token : DeclarationLexer.lex(text)) {
+            if (token.getType() == Token.Type.IDENTIFIER) {
+                names.add(token.getText(text));
+            }
+        }
+    }
+
+    /**
+     * What a component declares, uses, sends, receives and instantiates (computed on the fork/join pool)
+     */
+    private static class ComponentSummary {
+
+        private final Component component;
+        private final long revision;
+
+        // The symbols declared by the component, by name
+        private final Map<String, Symbol> symbols = new HashMap<>();
+
+        // The names used by the component that it declares itself, and the ones it does not
+        private final Set<String> usedLocals = new HashSet<>();
+        private final Set<String> usedGlobals = new HashSet<>();
+
+        private final Map<String, List<Edge>> sentChannels = new HashMap<>();
+        private final Set<String> receivedChannels = new HashSet<>();
+
+        private final List<SubComponent> subComponents;
+        private final Set<Component> instantiatedComponents = new HashSet<>();
+        private final List<Location> unreachableLocations = new ArrayList<>();
+
+        ComponentSummary(final Component component) {
+            this.component = component;
+            this.revision = component.getRevision();
+
+            final Declarations declarations = component.getParsedDeclarations();
+            final Set<Integer> declaringPositions = new HashSet<>();
+            for (final Symbol symbol : declarations.getSymbols()) {
+                symbols.putIfAbsent(symbol.getName(), symbol);
+                declaringPositions.add(symbol.getPosition());
+            }
+
+            // Names used in the declarations themselves (e.g. in initialisers and function bodies)
+            final Set<String> uses = new HashSet<>();
+            for (final Token token : declarations.getTokens()) {
+                if (token.getType() == Token.Type.IDENTIFIER && !declaringPositions.contains(token.getStart())) {
+                    uses.add(token.getText(declarations.getText()));
+                }
+            }
+
+            final List<Location> locations = component.getLocationsWithInitialAndFinal();
+            for (final Location location : locations) {
+                addIdentifiers(location.getInvariant(), uses);
+            }
+
+            final List<Edge> edges = new ArrayList<>(component.getEdges());
+            for (final Edge edge : edges) {
+                addIdentifiers(edge.getSelect(), uses);
+                addIdentifiers(edge.getGuard(), uses);
+                addIdentifiers(edge.getSync(), uses);
+                addIdentifiers(edge.getUpdate(), uses);
+                addSynchronization(edge);
+            }
+
+            for (final String name : uses) {
+                (symbols.containsKey(name) ? usedLocals : usedGlobals).add(name);
+            }
+
+            subComponents = new ArrayList<>(component.getSubComponents());
+            for (final SubComponent subComponent : subComponents) {
+                if (subComponent.getComponent() != null) {
+                    instantiatedComponents.add(subComponent.getComponent());
+                }
+            }
+
+            findUnreachableLocations(locations, edges);
+        }
+
+        private void addSynchronization(final Edge edge) {
+            final String sync = edge.getSync();
+            if (sync == null || sync.isEmpty()) return;
+
+            final List<Token> tokens = DeclarationLexer.lex(sync);
+            Token channel = null;
+            Token direction = null;
+            for (final Token token : tokens) {
+                if (token.getType() == Token.Type.COMMENT) continue;
+                if (channel == null && token.getType() == Token.Type.IDENTIFIER) channel = token;
+                direction = token;
+            }
+            if (channel == null) return;
+
+            if (direction.is(sync, "!")) {
+                sentChannels.computeIfAbsent(channel.getText(sync), c -> new ArrayList<>()).add(edge);
+            } else if (direction.is(sync, "?")) {
+                receivedChannels.add(channel.getText(sync));
+            }
+        }
+
+        /**
+         * The locations that no edges lead to from the initial location. Locations without any incoming edges are
+         * already reported when they are checked on their own, so only the final location is reported for that
+         */
+        private void findUnreachableLocations(final List<Location> locations, final List<Edge> edges) {
+            final Set<Location> targetLocations = new HashSet<>();
+            for (final Edge edge : edges) {
+                if (edge.getTargetLocation() != null) {
+                    targetLocations.add(edge.getTargetLocation());
+                }
+            }
+
+            // Within the component on its own, every sub component is assumed to be left at some point
+            final Set<Object> reachable = StaticReachability.reachableNodes(component, edges, subComponent -> true);
+
+            for (final Location location : locations) {
+                if (reachable.contains(location)) continue;
+                if (targetLocations.contains(location) || location == component.getFinalLocation()) {
+                    unreachableLocations.add(location);
+                }
+            }
+        }
+
+        /**
+         * The component declaring the channel as seen from this component
+         */
+        private Component declaringComponent(final String name, final Component mainComponent) {
+            return symbols.containsKey(name) ? component : mainComponent;
+        }
+    }
+}
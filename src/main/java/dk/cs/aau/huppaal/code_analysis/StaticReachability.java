@@ -0,0 +1,82 @@
+package dk.cs.aau.huppaal.code_analysis;
+
+import dk.cs.aau.huppaal.abstractions.Component;
+import dk.cs.aau.huppaal.abstractions.Edge;
+import dk.cs.aau.huppaal.abstractions.Location;
+import dk.cs.aau.huppaal.abstractions.SubComponent;
+
+import java.util.*;
+import java.util.function.Predicate;
+
+/**
+ * Which parts of the model can be reached by following its edges, regardless of guards and synchronizations.
+ * A location that cannot be reached this way is unreachable, without having to ask the engine
+ */
+public class StaticReachability {
+
+    /**
+     * The locations that can be reached from the initial location of the main component, for each component that is
+     * entered. Sub components are entered at the initial location of their component, and only left if the final
+     * location of it can be reached. Components that are never entered are not in the map
+     */
+    public static Map<Component, Set<Location>> findReachableLocations(final Component mainComponent) {
+        final Map<Component, Set<Object>> reachableNodes = new HashMap<>();
+        reach(mainComponent, reachableNodes);
+
+        final Map<Component, Set<Location>> locations = new HashMap<>();
+        reachableNodes.forEach((component, nodes) -> {
+            final Set<Location> componentLocations = new HashSet<>();
+            nodes.forEach(node -> {
+                if (node instanceof Location) {
+                    componentLocations.add((Location) node);
+                }
+            });
+            locations.put(component, componentLocations);
+        });
+        return locations;
+    }
+
+    private static Set<Object> reach(final Component component, final Map<Component, Set<Object>> reachableNodes) {
+        final Set<Object> knownNodes = reachableNodes.get(component);
+        if (knownNodes != null) return knownNodes;
+
+        // A component instantiating itself is not reached any further than this
+        reachableNodes.put(component, Collections.emptySet());
+
+        final Set<Object> nodes = reachableNodes(component, new ArrayList<>(component.getEdges()), subComponent -> {
+            final Component subComponentComponent = subComponent.getComponent();
+            return subComponentComponent != null && reach(subComponentComponent, reachableNodes).contains(subComponentComponent.getFinalLocation());
+        });
+        reachableNodes.put(component, nodes);
+        return nodes;
+    }
+
+    /**
+     * The locations, sub components and jorks of the component that the edges lead to from its initial location.
+     * The edges leaving a sub component are only followed if it can be left
+     */
+    static Set<Object> reachableNodes(final Component component, final List<Edge> edges, final Predicate<SubComponent> canLeave) {
+        final Map<Object, List<Object>> successors = new HashMap<>();
+        for (final Edge edge : edges) {
+            final Object source = edge.getSourceLocation() != null ? edge.getSourceLocation()
+                    : edge.getSourceSubComponent() != null ? edge.getSourceSubComponent() : edge.getSourceJork();
+            final Object target = edge.getTargetLocation() != null ? edge.getTargetLocation()
+                    : edge.getTargetSubComponent() != null ? edge.getTargetSubComponent() : edge.getTargetJork();
+            if (source == null || target == null) continue;
+
+            successors.computeIfAbsent(source, s -> new ArrayList<>()).add(target);
+        }
+
+        final Set<Object> reachable = new HashSet<>();
+        final Deque<Object> waiting = new ArrayDeque<>();
+        waiting.add(component.getInitialLocation());
+        while (!waiting.isEmpty()) {
+            final Object node = waiting.poll();
+            if (!reachable.add(node)) continue;
+            if (node instanceof SubComponent && !canLeave.test((SubComponent) node)) continue;
+
+            waiting.addAll(successors.getOrDefault(node, Collections.emptyList()));
+        }
+        return reachable;
+    }
+}
@@ -0,0 +1,163 @@
+package dk.cs.aau.huppaal.code_analysis.declarations;
+
+import com.google.common.collect.ImmutableSet;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Splits UPPAAL declarations into tokens. Whitespace is not part of any token.
+ *
+ * When the declarations are edited, only the tokens around the edit are lexed again: lexing restarts at the token
+ * the edit touches, and stops as soon as it produces a token that is identical to one after the edit.
+ */
+public class DeclarationLexer {
+
+    public static final Set<String> UPPAAL_KEYWORDS = ImmutableSet.of("clock", "chan", "urgent", "broadcast", "hybrid");
+    public static final Set<String> C_KEYWORDS = ImmutableSet.of("auto", "bool", "break", "case", "char", "const",
+            "continue", "default", "do", "double", "else", "enum", "extern", "float", "for", "goto", "if", "int", "long",
+            "register", "return", "short", "signed", "sizeof", "static", "struct", "switch", "typedef", "union",
+            "unsigned", "void", "volatile", "while");
+
+    private static final String PUNCTUATION = ";,()[]{}";
+
+    // Operators that are longer than a single character, longest first
+    private static final String[] OPERATORS = {"<<=", ">>=", "-->", "<->", "->", "++", "--", "<<", ">>", "<=", ">=", "==",
+            "!=", "&&", "||", ":=", "+=", "-=", "*=", "/=", "%=", "&=", "|=", "^=", "<?", ">?"};
+
+    public static List<Token> lex(final String text) {
+        final List<Token> tokens = new ArrayList<>();
+        int position = 0;
+        Token token;
+        while ((token = next(text, position)) != null) {
+            tokens.add(token);
+            position = token.getEnd();
+        }
+        return Collections.unmodifiableList(tokens);
+    }
+
+    /**
+     * The tokens of the new text, reusing the tokens of the old text outside of the edited region
+     */
+    public static List<Token> relex(final String oldText, final List<Token> oldTokens, final String newText) {
+        // Find the edited region by the common prefix and suffix of the texts
+        final int maxCommon = Math.min(oldText.length(), newText.length());
+        int prefix = 0;
+        while (prefix < maxCommon && oldText.charAt(prefix) == newText.charAt(prefix)) prefix++;
+        int suffix = 0;
+        while (suffix < maxCommon - prefix && oldText.charAt(oldText.length() - 1 - suffix) == newText.charAt(newText.length() - 1 - suffix)) suffix++;
+
+        final int oldEditEnd = oldText.length() - suffix;
+        final int newEditEnd = newText.length() - suffix;
+        final int delta = newText.length() - oldText.length();
+
+        // The first token that touches the edit (a token ending right at the edit may be extended by it)
+        int low = 0, high = oldTokens.size();
+        while (low < high) {
+            final int middle = (low + high) >>> 1;
+            if (oldTokens.get(middle).getEnd() < prefix) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        final int first = low;
+
+        final List<Token> tokens = new ArrayList<>(oldTokens.size() + 16);
+        tokens.addAll(oldTokens.subList(0, first));
+
+        // Tokens do not depend on what comes before them, so lexing can restart right after the last unchanged token
+        int position = first > 0 ? oldTokens.get(first - 1).getEnd() : 0;
+
+        // The next old token that may be identical to a new one (it starts after the edit)
+        int candidate = first;
+        while (candidate < oldTokens.size() && oldTokens.get(candidate).getStart() < oldEditEnd) candidate++;
+
+        Token token;
+        while ((token = next(newText, position)) != null) {
+            if (token.getStart() >= newEditEnd) {
+                while (candidate < oldTokens.size() && oldTokens.get(candidate).getStart() + delta < token.getStart()) candidate++;
+
+                // The lexer is back in sync with the old tokens, so the rest of them are unchanged
+                if (candidate < oldTokens.size() && token.sameAs(oldTokens.get(candidate), delta)) {
+                    for (int i = candidate; i < oldTokens.size(); i++) {
+                        tokens.add(oldTokens.get(i).shift(delta));
+                    }
+                    return Collections.unmodifiableList(tokens);
+                }
+            }
+
+            tokens.add(token);
+            position = token.getEnd();
+        }
+
+        return Collections.unmodifiableList(tokens);
+    }
+
+    /**
+     * The first token at or after the position, or null if there are only whitespace left
+     */
+    private static Token next(final String text, int position) {
+        final int length = text.length();
+        while (position < length && Character.isWhitespace(text.charAt(position))) position++;
+        if (position >= length) return null;
+
+        final int start = position;
+        final char c = text.charAt(position);
+
+        // Comments
+        if (c == '/' && position + 1 < length) {
+            if (text.charAt(position + 1) == '/') {
+                final int lineEnd = text.indexOf('\n', position);
+                return new Token(Token.Type.COMMENT, start, lineEnd == -1 ? length : lineEnd);
+            }
+            if (text.charAt(position + 1) == '*') {
+                final int commentEnd = text.indexOf("*/", position + 2);
+                return new Token(Token.Type.COMMENT, start, commentEnd == -1 ? length : commentEnd + 2);
+            }
+        }
+
+        // Strings (which runs to the end of the line if it is not terminated)
+        if (c == '"') {
+            position++;
+            while (position < length && text.charAt(position) != '"' && text.charAt(position) != '\n') {
+                if (text.charAt(position) == '\\') position++;
+                position++;
+            }
+            if (position < length && text.charAt(position) == '"') position++;
+            return new Token(Token.Type.STRING, start, Math.min(position, length));
+        }
+
+        // Identifiers and keywords
+        if (Character.isLetter(c) || c == '_') {
+            while (position < length && (Character.isLetterOrDigit(text.charAt(position)) || text.charAt(position) == '_')) position++;
+            final String word = text.substring(start, position);
+            if (UPPAAL_KEYWORDS.contains(word)) return new Token(Token.Type.UPPAAL_KEYWORD, start, position);
+            if (C_KEYWORDS.contains(word)) return new Token(Token.Type.C_KEYWORD, start, position);
+            return new Token(Token.Type.IDENTIFIER, start, position);
+        }
+
+        // Numbers
+        if (Character.isDigit(c)) {
+            while (position < length && (Character.isLetterOrDigit(text.charAt(position)) || text.charAt(position) == '.')) position++;
+            return new Token(Token.Type.NUMBER, start, position);
+        }
+
+        if (PUNCTUATION.indexOf(c) != -1) {
+            return new Token(Token.Type.PUNCTUATION, start, start + 1);
+        }
+
+        for (final String operator : OPERATORS) {
+            if (text.startsWith(operator, start)) {
+                return new Token(Token.Type.OPERATOR, start, start + operator.length());
+            }
+        }
+        if ("+-*/%<>=!&|^~?:.'".indexOf(c) != -1) {
+            return new Token(Token.Type.OPERATOR, start, start + 1);
+        }
+
+        return new Token(Token.Type.UNKNOWN, start, start + 1);
+    }
+}
@@ -0,0 +1,225 @@
+package dk.cs.aau.huppaal.code_analysis.declarations;
+
+import com.google.common.collect.ImmutableSet;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Finds the symbols declared at the top level of UPPAAL declarations, i.e. variables, clocks, channels, functions
+ * and types. The bodies of functions and structs are skipped, and a malformed declaration is skipped up to the next
+ * semicolon, such that a typing error does not hide the declarations after it.
+ */
+public class DeclarationParser {
+
+    private static final Set<String> QUALIFIERS = ImmutableSet.of("const", "urgent", "broadcast", "meta", "hybrid");
+
+    // Words that can only start a declaration, such that a declaration missing its semicolon ends before them
+    private static final Set<String> DECLARATION_WORDS = ImmutableSet.of("const", "urgent", "broadcast", "meta", "hybrid",
+            "typedef", "struct", "clock", "chan", "int", "bool", "double", "void");
+
+    private final String text;
+    private final List<Token> tokens = new ArrayList<>();
+    private final List<Symbol> symbols = new ArrayList<>();
+    private int index = 0;
+
+    private DeclarationParser(final String text, final List<Token> tokens) {
+        this.text = text;
+        for (final Token token : tokens) {
+            if (token.getType() != Token.Type.COMMENT) {
+                this.tokens.add(token);
+            }
+        }
+    }
+
+    public static List<Symbol> parse(final String text, final List<Token> tokens) {
+        final DeclarationParser parser = new DeclarationParser(text, tokens);
+        while (parser.index < parser.tokens.size()) {
+            final int start = parser.index;
+            parser.parseDeclaration();
+
+            // Always make progress, also on tokens that can not start a declaration
+            if (parser.index == start) parser.index++;
+        }
+        return Collections.unmodifiableList(parser.symbols);
+    }
+
+    private void parseDeclaration() {
+        if (at(";")) {
+            index++;
+            return;
+        }
+
+        if (atWord("typedef")) {
+            index++;
+            parseTypedef();
+            return;
+        }
+
+        boolean constant = false, urgent = false, broadcast = false;
+        while (index < tokens.size() && QUALIFIERS.contains(current())) {
+            final String qualifier = current();
+            constant |= qualifier.equals("const");
+            urgent |= qualifier.equals("urgent");
+            broadcast |= qualifier.equals("broadcast");
+            index++;
+        }
+
+        // The type
+        if (index >= tokens.size()) return;
+        final String type;
+        if (atWord("struct")) {
+            index++;
+            if (index < tokens.size() && tokens.get(index).getType() == Token.Type.IDENTIFIER) index++;
+            if (!at("{")) {
+                skipDeclaration();
+                return;
+            }
+            skipBalanced();
+            type = "struct";
+        } else if (tokens.get(index).getType() == Token.Type.IDENTIFIER
+                || tokens.get(index).getType() == Token.Type.UPPAAL_KEYWORD
+                || tokens.get(index).getType() == Token.Type.C_KEYWORD) {
+            type = current();
+            index++;
+
+            // Bounded integers and scalars, e.g. int[0, 5]
+            if (at("[")) skipBalanced();
+        } else {
+            // A stray token, which is skipped on its own such that it does not hide the declaration after it
+            return;
+        }
+
+        // The declarators, e.g. x, y[2] = {1, 2}
+        while (index < tokens.size()) {
+            if (tokens.get(index).getType() != Token.Type.IDENTIFIER) {
+                skipDeclaration();
+                return;
+            }
+
+            final Token name = tokens.get(index);
+            index++;
+
+            if (at("(")) {
+                skipBalanced();
+                if (at("{")) skipBalanced();
+                symbols.add(new Symbol(name.getText(text), Symbol.Kind.FUNCTION, type, false, false, false, false, name.getStart()));
+                return;
+            }
+
+            boolean array = false;
+            while (at("[")) {
+                skipBalanced();
+                array = true;
+            }
+
+            symbols.add(new Symbol(name.getText(text), kindOf(type), type, constant, urgent, broadcast, array, name.getStart()));
+
+            // The initializer
+            if (at("=")) {
+                index++;
+                while (index < tokens.size() && !at(",") && !at(";") && !atDeclarationWord()) {
+                    if (at("{") || at("(") || at("[")) {
+                        skipBalanced();
+                    } else {
+                        index++;
+                    }
+                }
+            }
+
+            if (at(",")) {
+                index++;
+            } else {
+                if (at(";")) index++;
+                return;
+            }
+        }
+    }
+
+    private void parseTypedef() {
+        Token name = null;
+        while (index < tokens.size() && !at(";")) {
+            if (at("{") || at("[")) {
+                skipBalanced();
+            } else {
+                if (tokens.get(index).getType() == Token.Type.IDENTIFIER) name = tokens.get(index);
+                index++;
+            }
+        }
+        if (at(";")) index++;
+
+        if (name != null) {
+            symbols.add(new Symbol(name.getText(text), Symbol.Kind.TYPE, name.getText(text), false, false, false, false, name.getStart()));
+        }
+    }
+
+    private static Symbol.Kind kindOf(final String type) {
+        switch (type) {
+            case "clock":
+                return Symbol.Kind.CLOCK;
+            case "chan":
+                return Symbol.Kind.CHANNEL;
+            case "int":
+                return Symbol.Kind.INT;
+            case "bool":
+                return Symbol.Kind.BOOL;
+            default:
+                return Symbol.Kind.VARIABLE;
+        }
+    }
+
+    /**
+     * Skips past the next semicolon that is not nested in brackets
+     */
+    private void skipDeclaration() {
+        while (index < tokens.size() && !at(";")) {
+            if (at("{") || at("(") || at("[")) {
+                skipBalanced();
+            } else {
+                index++;
+            }
+        }
+        if (at(";")) index++;
+    }
+
+    /**
+     * Skips past the bracket at the current token and everything up to its matching bracket.
+     * Outside of braces a semicolon ends an unclosed parenthesis or square bracket, such that e.g. a missing ")"
+     * does not hide the declarations after it
+     */
+    private void skipBalanced() {
+        int depth = 0;
+        int braceDepth = 0;
+        while (index < tokens.size()) {
+            if (at(";") && braceDepth == 0) return;
+
+            if (at("{") || at("(") || at("[")) {
+                depth++;
+                if (at("{")) braceDepth++;
+            } else if (at("}") || at(")") || at("]")) {
+                depth--;
+                if (at("}")) braceDepth--;
+            }
+            index++;
+            if (depth <= 0) return;
+        }
+    }
+
+    private String current() {
+        return tokens.get(index).getText(text);
+    }
+
+    private boolean at(final String symbol) {
+        return index < tokens.size() && tokens.get(index).is(text, symbol);
+    }
+
+    private boolean atDeclarationWord() {
+        return index < tokens.size() && tokens.get(index).getType() != Token.Type.STRING && DECLARATION_WORDS.contains(current());
+    }
+
+    private boolean atWord(final String word) {
+        return index < tokens.size() && tokens.get(index).getType() != Token.Type.STRING && tokens.get(index).is(text, word);
+    }
+}
@@ -0,0 +1,105 @@
+package dk.cs.aau.huppaal.code_analysis.declarations;
+
+import javafx.scene.control.IndexRange;
+
+import java.util.*;
+
+/**
+ * The tokens and symbols of a version of some declarations. Immutable, so it can be read from any thread
+ */
+public class Declarations {
+
+    private final String text;
+    private final List<Token> tokens;
+    private final List<Symbol> symbols;
+    private final Map<String, Symbol> symbolsByName = new HashMap<>();
+
+    private Declarations(final String text, final List<Token> tokens) {
+        this.text = text;
+        this.tokens = tokens;
+        this.symbols = DeclarationParser.parse(text, tokens);
+
+        // If a name is declared more than once, the first declaration is used
+        symbols.forEach(symbol -> symbolsByName.putIfAbsent(symbol.getName(), symbol));
+    }
+
+    public static Declarations of(final String text) {
+        return new Declarations(text, DeclarationLexer.lex(text));
+    }
+
+    /**
+     * The declarations after an edit to these declarations, only lexing the edited region again
+     */
+    public Declarations edit(final String newText) {
+        if (newText.equals(text)) return this;
+        return new Declarations(newText, DeclarationLexer.relex(text, tokens, newText));
+    }
+
+    /**
+     * The region of these declarations in which the tokens or the text differ from the previous declarations
+     */
+    public IndexRange getChangedRange(final Declarations previous) {
+        final String oldText = previous.text;
+        final List<Token> oldTokens = previous.tokens;
+        final int delta = text.length() - oldText.length();
+
+        // The edited text
+        final int maxCommon = Math.min(oldText.length(), text.length());
+        int prefix = 0;
+        while (prefix < maxCommon && oldText.charAt(prefix) == text.charAt(prefix)) prefix++;
+        int suffix = 0;
+        while (suffix < maxCommon - prefix && oldText.charAt(oldText.length() - 1 - suffix) == text.charAt(text.length() - 1 - suffix)) suffix++;
+
+        // The tokens that differ (e.g. all of the text after an opened block comment). Tokens overlapping the edited
+        // text differ, since some of their characters have been moved
+        final int maxCommonTokens = Math.min(oldTokens.size(), tokens.size());
+        int tokenPrefix = 0;
+        while (tokenPrefix < maxCommonTokens
+                && tokens.get(tokenPrefix).getEnd() <= prefix
+                && tokens.get(tokenPrefix).sameAs(oldTokens.get(tokenPrefix), 0)) tokenPrefix++;
+        int tokenSuffix = 0;
+        while (tokenSuffix < maxCommonTokens - tokenPrefix
+                && tokens.get(tokens.size() - 1 - tokenSuffix).getStart() >= text.length() - suffix
+                && tokens.get(tokens.size() - 1 - tokenSuffix).sameAs(oldTokens.get(oldTokens.size() - 1 - tokenSuffix), delta)) tokenSuffix++;
+
+        int start = prefix;
+        int end = text.length() - suffix;
+        if (tokenPrefix < tokens.size() - tokenSuffix) {
+            start = Math.min(start, tokens.get(tokenPrefix).getStart());
+            end = Math.max(end, tokens.get(tokens.size() - 1 - tokenSuffix).getEnd());
+        }
+        if (tokenPrefix < oldTokens.size() - tokenSuffix) {
+            start = Math.min(start, oldTokens.get(tokenPrefix).getStart());
+            end = Math.max(end, oldTokens.get(oldTokens.size() - 1 - tokenSuffix).getEnd() + delta);
+        }
+
+        start = Math.max(0, Math.min(start, text.length()));
+        return new IndexRange(start, Math.max(start, Math.min(end, text.length())));
+    }
+
+    public String getText() {
+        return text;
+    }
+
+    public List<Token> getTokens() {
+        return tokens;
+    }
+
+    public List<Symbol> getSymbols() {
+        return symbols;
+    }
+
+    public Symbol getSymbol(final String name) {
+        return symbolsByName.get(name);
+    }
+
+    public List<Symbol> getSymbols(final Symbol.Kind kind) {
+        final List<Symbol> symbolsOfKind = new ArrayList<>();
+        for (final Symbol symbol : symbols) {
+            if (symbol.getKind() == kind) {
+                symbolsOfKind.add(symbol);
+            }
+        }
+        return symbolsOfKind;
+    }
+}
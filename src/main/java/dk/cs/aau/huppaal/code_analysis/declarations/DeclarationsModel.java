@@ -0,0 +1,41 @@
+package dk.cs.aau.huppaal.code_analysis.declarations;
+
+import javafx.beans.value.ObservableStringValue;
+
+/**
+ * Keeps the parsed declarations up to date with some declarations text.
+ * The declarations are parsed the first time they are needed (from any thread), and from then on every edit of the
+ * text only lexes the edited region again. Edits are applied when the declarations are next needed, such that
+ * typing costs nothing on the FX thread.
+ */
+public class DeclarationsModel {
+
+    private final ObservableStringValue text;
+    private Declarations declarations = null; // Guarded by this
+    private String editedText = null; // Guarded by this
+
+    public DeclarationsModel(final ObservableStringValue text) {
+        this.text = text;
+
+        text.addListener((observable, oldText, newText) -> {
+            synchronized (this) {
+                if (declarations == null) return; // Not needed yet
+                editedText = newText == null ? "" : newText;
+            }
+        });
+    }
+
+    /**
+     * The current parsed declarations
+     */
+    public synchronized Declarations get() {
+        if (declarations == null) {
+            final String currentText = text.get();
+            declarations = Declarations.of(currentText == null ? "" : currentText);
+        } else if (editedText != null) {
+            declarations = declarations.edit(editedText);
+        }
+        editedText = null;
+        return declarations;
+    }
+}
@@ -0,0 +1,75 @@
+package dk.cs.aau.huppaal.code_analysis.declarations;
+
+/**
+ * A name declared in the declarations
+ */
+public class Symbol {
+
+    private final String name;
+    private final Kind kind;
+    private final String type;
+    private final boolean constant;
+    private final boolean urgent;
+    private final boolean broadcast;
+    private final boolean array;
+    private final int position;
+
+    public Symbol(final String name, final Kind kind, final String type, final boolean constant, final boolean urgent,
+                  final boolean broadcast, final boolean array, final int position) {
+        this.name = name;
+        this.kind = kind;
+        this.type = type;
+        this.constant = constant;
+        this.urgent = urgent;
+        this.broadcast = broadcast;
+        this.array = array;
+        this.position = position;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public Kind getKind() {
+        return kind;
+    }
+
+    /**
+     * The name of the type of the symbol as written in the declarations (the return type of functions)
+     */
+    public String getType() {
+        return type;
+    }
+
+    public boolean isConstant() {
+        return constant;
+    }
+
+    public boolean isUrgent() {
+        return urgent;
+    }
+
+    public boolean isBroadcast() {
+        return broadcast;
+    }
+
+    public boolean isArray() {
+        return array;
+    }
+
+    /**
+     * The position of the name in the declarations
+     */
+    public int getPosition() {
+        return position;
+    }
+
+    @Override
+    public String toString() {
+        return kind + " " + name;
+    }
+
+    public enum Kind {
+        CLOCK, CHANNEL, INT, BOOL, FUNCTION, TYPE, VARIABLE
+    }
+}
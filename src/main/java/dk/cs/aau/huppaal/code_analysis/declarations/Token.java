@@ -0,0 +1,61 @@
+package dk.cs.aau.huppaal.code_analysis.declarations;
+
+/**
+ * A token of the declarations, spanning the characters from start (inclusive) to end (exclusive)
+ */
+public class Token {
+
+    private final Type type;
+    private final int start;
+    private final int end;
+
+    public Token(final Type type, final int start, final int end) {
+        this.type = type;
+        this.start = start;
+        this.end = end;
+    }
+
+    public Type getType() {
+        return type;
+    }
+
+    public int getStart() {
+        return start;
+    }
+
+    public int getEnd() {
+        return end;
+    }
+
+    public int getLength() {
+        return end - start;
+    }
+
+    public String getText(final String declarations) {
+        return declarations.substring(start, end);
+    }
+
+    /**
+     * True if the token is the given punctuation or operator
+     */
+    public boolean is(final String declarations, final String symbol) {
+        return getLength() == symbol.length() && declarations.startsWith(symbol, start);
+    }
+
+    Token shift(final int delta) {
+        return delta == 0 ? this : new Token(type, start + delta, end + delta);
+    }
+
+    boolean sameAs(final Token token, final int delta) {
+        return type == token.type && start == token.start + delta && end == token.end + delta;
+    }
+
+    @Override
+    public String toString() {
+        return type + "[" + start + ", " + end + ")";
+    }
+
+    public enum Type {
+        IDENTIFIER, UPPAAL_KEYWORD, C_KEYWORD, NUMBER, STRING, COMMENT, OPERATOR, PUNCTUATION, UNKNOWN
+    }
+}
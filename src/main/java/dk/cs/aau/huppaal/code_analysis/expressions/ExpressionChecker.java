@@ -0,0 +1,473 @@
+package dk.cs.aau.huppaal.code_analysis.expressions;
+
+import com.google.common.collect.ImmutableSet;
+import dk.cs.aau.huppaal.code_analysis.declarations.DeclarationLexer;
+import dk.cs.aau.huppaal.code_analysis.declarations.Symbol;
+import dk.cs.aau.huppaal.code_analysis.declarations.Token;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Checks the selections, guards, synchronizations, updates and invariants of a model against the declarations,
+ * such that errors are found without compiling the system in the engine.
+ *
+ * The checks are deliberately lenient: only errors the engine would also report are found (syntax errors,
+ * undeclared names, side effects where none are allowed, assignments to constants, misuse of channels and
+ * functions). Names declared with a type the checker does not know (e.g. a typedef) are not checked further.
+ */
+public class ExpressionChecker {
+
+    private static final Set<String> ASSIGNMENT_OPERATORS = ImmutableSet.of("=", ":=", "+=", "-=", "*=", "/=", "%=", "&=", "|=", "^=", "<<=", ">>=");
+
+    // The binary operators from the lowest to the highest precedence
+    private static final String[][] BINARY_OPERATORS = {
+            {"||", "or", "imply"},
+            {"&&", "and"},
+            {"|"},
+            {"^"},
+            {"&"},
+            {"==", "!="},
+            {"<", "<=", ">", ">="},
+            {"<<", ">>"},
+            {"<?", ">?"},
+            {"+", "-"},
+            {"*", "/", "%"}
+    };
+
+    private final String text;
+    private final List<Token> tokens = new ArrayList<>();
+    private final String description;
+    private final boolean sideEffectsAllowed;
+    private final List<String> errors;
+    private Scope scope;
+    private int index = 0;
+
+    private ExpressionChecker(final String text, final Scope scope, final String description, final boolean sideEffectsAllowed, final List<String> errors) {
+        this.text = text;
+        this.scope = scope;
+        this.description = description;
+        this.sideEffectsAllowed = sideEffectsAllowed;
+        this.errors = errors;
+
+        for (final Token token : DeclarationLexer.lex(text)) {
+            if (token.getType() != Token.Type.COMMENT) {
+                tokens.add(token);
+            }
+        }
+    }
+
+    /**
+     * Checks a selection, e.g. "i : int[0, 3], j : id_t"
+     * @return the scope extended with the selected names
+     */
+    public static Scope checkSelect(final String select, final Scope scope, final List<String> errors) {
+        final ExpressionChecker checker = new ExpressionChecker(select, scope, "Selections", false, errors);
+        if (checker.tokens.isEmpty()) return scope;
+
+        try {
+            do {
+                final Token name = checker.expectIdentifier();
+                checker.expect(":");
+                final Symbol.Kind kind = checker.parseType();
+                checker.scope = checker.scope.with(new Symbol(name.getText(select), kind, "", false, false, false, false, name.getStart()));
+            } while (checker.accept(","));
+            checker.expectEnd();
+        } catch (final SyntaxError e) {
+            errors.add(e.getMessage());
+        }
+        return checker.scope;
+    }
+
+    /**
+     * Checks a guard, which must not have side effects
+     */
+    public static void checkGuard(final String guard, final Scope scope, final List<String> errors) {
+        checkExpression(new ExpressionChecker(guard, scope, "Guards", false, errors));
+    }
+
+    /**
+     * Checks an invariant, which must not have side effects
+     */
+    public static void checkInvariant(final String invariant, final Scope scope, final List<String> errors) {
+        checkExpression(new ExpressionChecker(invariant, scope, "Invariants", false, errors));
+    }
+
+    /**
+     * Checks an update, i.e. a comma separated list of expressions (usually assignments)
+     */
+    public static void checkUpdate(final String update, final Scope scope, final List<String> errors) {
+        final ExpressionChecker checker = new ExpressionChecker(update, scope, "Updates", true, errors);
+        if (checker.tokens.isEmpty()) return;
+
+        try {
+            do {
+                checker.use(checker.parseExpression());
+            } while (checker.accept(","));
+            checker.expectEnd();
+        } catch (final SyntaxError e) {
+            errors.add(e.getMessage());
+        }
+    }
+
+    /**
+     * Checks a synchronization, e.g. "c!" or "c[i]?"
+     */
+    public static void checkSync(final String sync, final Scope scope, final List<String> errors) {
+        final ExpressionChecker checker = new ExpressionChecker(sync, scope, "Synchronizations", false, errors);
+        if (checker.tokens.isEmpty()) return;
+
+        try {
+            final Token start = checker.peek();
+            final Value channel = checker.parsePostfix();
+            if (channel.type != Value.Type.CHANNEL && channel.type != Value.Type.UNKNOWN) {
+                errors.add("'" + start.getText(sync) + "' is not a channel");
+            }
+            if (!checker.accept("!") && !checker.accept("?")) {
+                throw checker.syntaxError("Expected '!' or '?'");
+            }
+            checker.expectEnd();
+        } catch (final SyntaxError e) {
+            errors.add(e.getMessage());
+        }
+    }
+
+    private static void checkExpression(final ExpressionChecker checker) {
+        if (checker.tokens.isEmpty()) return;
+
+        try {
+            checker.use(checker.parseExpression());
+            checker.expectEnd();
+        } catch (final SyntaxError e) {
+            checker.errors.add(e.getMessage());
+        }
+    }
+
+    private Value parseExpression() {
+        final Value left = parseConditional();
+
+        final Token operator = peek();
+        if (operator != null && ASSIGNMENT_OPERATORS.contains(operator.getText(text))) {
+            index++;
+            sideEffect();
+
+            if (left.variable == null) {
+                errors.add("The left side of '" + operator.getText(text) + "' must be a variable");
+            } else if (left.variable.isConstant()) {
+                errors.add("'" + left.variable.getName() + "' is a constant and can not be assigned");
+            } else if (left.type == Value.Type.CHANNEL || left.variable.getKind() == Symbol.Kind.FUNCTION) {
+                errors.add("'" + left.variable.getName() + "' can not be assigned");
+            }
+
+            use(parseExpression());
+            return new Value(left.type, null);
+        }
+
+        return left;
+    }
+
+    private Value parseConditional() {
+        final Value condition = parseBinary(0);
+        if (!accept("?")) return condition;
+
+        use(condition);
+        final Value whenTrue = parseExpression();
+        expect(":");
+        final Value whenFalse = parseConditional();
+        use(whenTrue);
+        use(whenFalse);
+        return new Value(whenTrue.type, null);
+    }
+
+    private Value parseBinary(final int level) {
+        if (level == BINARY_OPERATORS.length) return parseUnary();
+
+        Value left = parseBinary(level + 1);
+        while (atAny(BINARY_OPERATORS[level])) {
+            index++;
+            final Value right = parseBinary(level + 1);
+            use(left);
+            use(right);
+            left = new Value(isBooleanLevel(level) ? Value.Type.BOOL : Value.Type.INT, null);
+        }
+        return left;
+    }
+
+    /**
+     * True if the operators of the level result in a boolean (logical, equality and relational operators)
+     */
+    private static boolean isBooleanLevel(final int level) {
+        return level <= 1 || level == 5 || level == 6;
+    }
+
+    private Value parseUnary() {
+        if (at("++") || at("--")) {
+            index++;
+            sideEffect();
+            final Value operand = parseUnary();
+            requireVariable(operand);
+            return new Value(operand.type, null);
+        }
+
+        if (at("!") || at("not")) {
+            index++;
+            use(parseUnary());
+            return new Value(Value.Type.BOOL, null);
+        }
+
+        if (at("-") || at("+") || at("~")) {
+            index++;
+            use(parseUnary());
+            return new Value(Value.Type.INT, null);
+        }
+
+        return parsePostfix();
+    }
+
+    private Value parsePostfix() {
+        Value value = parsePrimary();
+
+        while (true) {
+            if (accept("[")) {
+                if (value.variable != null && !value.variable.isArray() && isKnownType(value.variable)) {
+                    errors.add("'" + value.variable.getName() + "' is not an array");
+                }
+                use(parseExpression());
+                expect("]");
+                value = new Value(value.type, value.variable);
+            } else if (at("(")) {
+                if (value.variable != null && value.variable.getKind() != Symbol.Kind.FUNCTION) {
+                    errors.add("'" + value.variable.getName() + "' is not a function");
+                }
+                index++;
+                if (!accept(")")) {
+                    do {
+                        use(parseExpression());
+                    } while (accept(","));
+                    expect(")");
+                }
+                value = new Value(value.variable != null ? typeOfFunction(value.variable) : Value.Type.UNKNOWN, null);
+            } else if (accept(".")) {
+                expectIdentifier();
+                value = new Value(Value.Type.UNKNOWN, value.variable);
+            } else if (at("++") || at("--")) {
+                index++;
+                sideEffect();
+                requireVariable(value);
+                value = new Value(value.type, null);
+            } else if (accept("'")) {
+                // The rate of a clock, e.g. x' == 0 to stop it
+                value = new Value(Value.Type.INT, null);
+            } else {
+                return value;
+            }
+        }
+    }
+
+    private Value parsePrimary() {
+        final Token token = peek();
+        if (token == null) throw new SyntaxError("Unexpected end");
+
+        if (accept("(")) {
+            final Value value = parseExpression();
+            expect(")");
+            return new Value(value.type, null);
+        }
+
+        if (token.getType() == Token.Type.NUMBER) {
+            index++;
+            return new Value(Value.Type.INT, null);
+        }
+
+        if (token.getType() == Token.Type.IDENTIFIER) {
+            final String name = token.getText(text);
+            index++;
+
+            if (name.equals("true") || name.equals("false")) {
+                return new Value(Value.Type.BOOL, null);
+            }
+
+            // Quantifiers and sums, e.g. forall (i : int[0, 3]) x[i] > 0
+            if ((name.equals("forall") || name.equals("exists") || name.equals("sum")) && at("(")) {
+                index++;
+                final Token variable = expectIdentifier();
+                expect(":");
+                final Symbol.Kind kind = parseType();
+                expect(")");
+
+                final Scope outer = scope;
+                scope = scope.with(new Symbol(variable.getText(text), kind, "", false, false, false, false, variable.getStart()));
+                final Value body = parseExpression();
+                scope = outer;
+
+                use(body);
+                return new Value(name.equals("sum") ? Value.Type.INT : Value.Type.BOOL, null);
+            }
+
+            final Symbol symbol = scope.lookup(name);
+            if (symbol == null) {
+                errors.add("'" + name + "' is not declared");
+                return new Value(Value.Type.UNKNOWN, null);
+            }
+            if (symbol.getKind() == Symbol.Kind.TYPE) {
+                errors.add("'" + name + "' is a type");
+                return new Value(Value.Type.UNKNOWN, null);
+            }
+            return new Value(typeOf(symbol), symbol);
+        }
+
+        throw syntaxError("Unexpected '" + token.getText(text) + "'");
+    }
+
+    /**
+     * A type of a selection or quantifier, e.g. int[0, 3] or the name of a typedef
+     */
+    private Symbol.Kind parseType() {
+        final Token type = peek();
+        if (type == null) throw syntaxError("Expected a type");
+
+        final String name = type.getText(text);
+        index++;
+
+        if (name.equals("int") || name.equals("scalar")) {
+            if (accept("[")) {
+                use(parseExpression());
+                if (name.equals("int")) {
+                    expect(",");
+                    use(parseExpression());
+                }
+                expect("]");
+            }
+            return name.equals("int") ? Symbol.Kind.INT : Symbol.Kind.VARIABLE;
+        }
+
+        if (name.equals("bool")) return Symbol.Kind.BOOL;
+
+        if (type.getType() == Token.Type.IDENTIFIER) {
+            final Symbol symbol = scope.lookup(name);
+            if (symbol == null) {
+                errors.add("'" + name + "' is not declared");
+            } else if (symbol.getKind() != Symbol.Kind.TYPE) {
+                errors.add("'" + name + "' is not a type");
+            }
+            return Symbol.Kind.VARIABLE;
+        }
+
+        throw syntaxError("Expected a type but found '" + name + "'");
+    }
+
+    /**
+     * Reports values that can not be used in expressions
+     */
+    private void use(final Value value) {
+        if (value.type == Value.Type.CHANNEL && value.variable != null) {
+            errors.add("The channel '" + value.variable.getName() + "' can only be used in synchronizations");
+        }
+    }
+
+    private void requireVariable(final Value value) {
+        if (value.variable == null) {
+            errors.add("Only variables can be incremented and decremented");
+        } else if (value.variable.isConstant()) {
+            errors.add("'" + value.variable.getName() + "' is a constant and can not be assigned");
+        }
+    }
+
+    private void sideEffect() {
+        if (!sideEffectsAllowed) {
+            errors.add(description + " can not have side effects");
+        }
+    }
+
+    private static boolean isKnownType(final Symbol symbol) {
+        return symbol.getKind() == Symbol.Kind.CLOCK || symbol.getKind() == Symbol.Kind.CHANNEL
+                || symbol.getKind() == Symbol.Kind.INT || symbol.getKind() == Symbol.Kind.BOOL;
+    }
+
+    private static Value.Type typeOf(final Symbol symbol) {
+        switch (symbol.getKind()) {
+            case CLOCK:
+                return Value.Type.CLOCK;
+            case CHANNEL:
+                return Value.Type.CHANNEL;
+            case INT:
+                return Value.Type.INT;
+            case BOOL:
+                return Value.Type.BOOL;
+            default:
+                return Value.Type.UNKNOWN;
+        }
+    }
+
+    private static Value.Type typeOfFunction(final Symbol function) {
+        switch (function.getType()) {
+            case "int":
+                return Value.Type.INT;
+            case "bool":
+                return Value.Type.BOOL;
+            default:
+                return Value.Type.UNKNOWN;
+        }
+    }
+
+    private Token peek() {
+        return index < tokens.size() ? tokens.get(index) : null;
+    }
+
+    private boolean at(final String symbol) {
+        return index < tokens.size() && tokens.get(index).getType() != Token.Type.STRING && tokens.get(index).is(text, symbol);
+    }
+
+    private boolean atAny(final String[] symbols) {
+        for (final String symbol : symbols) {
+            if (at(symbol)) return true;
+        }
+        return false;
+    }
+
+    private boolean accept(final String symbol) {
+        if (!at(symbol)) return false;
+        index++;
+        return true;
+    }
+
+    private void expect(final String symbol) {
+        if (!accept(symbol)) throw syntaxError("Expected '" + symbol + "'");
+    }
+
+    private Token expectIdentifier() {
+        final Token token = peek();
+        if (token == null || token.getType() != Token.Type.IDENTIFIER) throw syntaxError("Expected a name");
+        index++;
+        return token;
+    }
+
+    private void expectEnd() {
+        if (index < tokens.size()) throw syntaxError("Unexpected '" + tokens.get(index).getText(text) + "'");
+    }
+
+    private SyntaxError syntaxError(final String message) {
+        final Token token = peek();
+        return new SyntaxError(token == null ? message + " at the end" : message + " at column " + (token.getStart() + 1));
+    }
+
+    private static class Value {
+
+        private enum Type {INT, BOOL, CLOCK, CHANNEL, UNKNOWN}
+
+        private final Type type;
+        private final Symbol variable; // The variable the value is stored in (null if the value is not a variable)
+
+        private Value(final Type type, final Symbol variable) {
+            this.type = type;
+            this.variable = variable;
+        }
+    }
+
+    private static class SyntaxError extends RuntimeException {
+        private SyntaxError(final String message) {
+            super(message);
+        }
+    }
+}
@@ -0,0 +1,90 @@
+package dk.cs.aau.huppaal.code_analysis.expressions;
+
+import com.google.common.collect.ImmutableMap;
+import dk.cs.aau.huppaal.HUPPAAL;
+import dk.cs.aau.huppaal.abstractions.Component;
+import dk.cs.aau.huppaal.code_analysis.declarations.Declarations;
+import dk.cs.aau.huppaal.code_analysis.declarations.Symbol;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The names visible in an expression: the names declared by selections and quantifiers, the names of the
+ * declarations (searched in order) and the built-in functions of the engine
+ */
+public class Scope {
+
+    private static final Map<String, Symbol> BUILT_INS = builtIns(
+            "int", "abs", "fint", "ilogb", "signbit",
+            "double", "fabs", "fmod", "fma", "fmax", "fmin", "fdim", "exp", "exp2", "expm1", "ln", "log", "log10",
+            "log2", "log1p", "pow", "sqrt", "cbrt", "hypot", "sin", "cos", "tan", "asin", "acos", "atan", "atan2",
+            "sinh", "cosh", "tanh", "asinh", "acosh", "atanh", "erf", "erfc", "tgamma", "lgamma", "ceil", "floor",
+            "trunc", "round", "ldexp", "logb", "nextafter", "copysign", "random", "random_normal", "random_poisson",
+            "random_arcsine", "random_beta", "random_gamma", "random_tri", "random_weibull");
+
+    private final List<Declarations> declarations;
+    private final Map<String, Symbol> locals;
+
+    public Scope(final List<Declarations> declarations) {
+        this(declarations, new HashMap<>());
+    }
+
+    private Scope(final List<Declarations> declarations, final Map<String, Symbol> locals) {
+        this.declarations = declarations;
+        this.locals = locals;
+    }
+
+    /**
+     * The names visible in the expressions of the component: its own declarations, and the global declarations
+     * (the declarations of the main component)
+     */
+    public static Scope of(final Component component) {
+        final List<Declarations> declarations = new ArrayList<>();
+        declarations.add(component.getParsedDeclarations());
+
+        final Component mainComponent = HUPPAAL.getProject().getMainComponent();
+        if (mainComponent != null && mainComponent != component) {
+            declarations.add(mainComponent.getParsedDeclarations());
+        }
+        return new Scope(declarations);
+    }
+
+    public Symbol lookup(final String name) {
+        final Symbol local = locals.get(name);
+        if (local != null) return local;
+
+        for (final Declarations declaration : declarations) {
+            final Symbol symbol = declaration.getSymbol(name);
+            if (symbol != null) return symbol;
+        }
+        return BUILT_INS.get(name);
+    }
+
+    /**
+     * A scope in which the symbol is also visible
+     */
+    public Scope with(final Symbol local) {
+        final Map<String, Symbol> newLocals = new HashMap<>(locals);
+        newLocals.put(local.getName(), local);
+        return new Scope(declarations, newLocals);
+    }
+
+    /**
+     * The built-in functions, given as their return types each followed by the functions returning it
+     */
+    private static Map<String, Symbol> builtIns(final String... typesAndNames) {
+        final ImmutableMap.Builder<String, Symbol> builtIns = ImmutableMap.builder();
+        String type = null;
+        for (final String word : typesAndNames) {
+            if (word.equals("int") || word.equals("double")) {
+                type = word;
+            } else {
+                builtIns.put(word, new Symbol(word, Symbol.Kind.FUNCTION, type, false, false, false, false, -1));
+            }
+        }
+        return builtIns.build();
+    }
+}
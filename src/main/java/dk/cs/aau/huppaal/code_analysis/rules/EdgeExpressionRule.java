@@ -0,0 +1,70 @@
+package dk.cs.aau.huppaal.code_analysis.rules;
+
+import dk.cs.aau.huppaal.abstractions.Component;
+import dk.cs.aau.huppaal.abstractions.Edge;
+import dk.cs.aau.huppaal.code_analysis.CodeAnalysis;
+import dk.cs.aau.huppaal.code_analysis.EdgeRule;
+import dk.cs.aau.huppaal.code_analysis.expressions.ExpressionChecker;
+import dk.cs.aau.huppaal.code_analysis.expressions.Scope;
+
+import java.util.ArrayList;
+import java.util.List;
+
+public class EdgeExpressionRule implements EdgeRule {
+
+    @Override
+    public List<CodeAnalysis.Message> check(final Component component, final Edge edge) {
+        final List<CodeAnalysis.Message> messages = new ArrayList<>();
+
+        // The selected names are visible in the guard, synchronization and update
+        Scope scope = Scope.of(component);
+        if (hasLabel(edge, Edge.PropertyType.SELECTION)) {
+            final List<String> selectErrors = new ArrayList<>();
+            scope = ExpressionChecker.checkSelect(nonNull(edge.getSelect()), scope, selectErrors);
+            addMessages(messages, "select", selectErrors, edge);
+        }
+
+        if (hasLabel(edge, Edge.PropertyType.GUARD)) {
+            final List<String> guardErrors = new ArrayList<>();
+            ExpressionChecker.checkGuard(nonNull(edge.getGuard()), scope, guardErrors);
+            addMessages(messages, "guard", guardErrors, edge);
+        }
+
+        if (hasLabel(edge, Edge.PropertyType.SYNCHRONIZATION)) {
+            final List<String> syncErrors = new ArrayList<>();
+            ExpressionChecker.checkSync(nonNull(edge.getSync()), scope, syncErrors);
+            addMessages(messages, "synchronization", syncErrors, edge);
+        }
+
+        if (hasLabel(edge, Edge.PropertyType.UPDATE)) {
+            final List<String> updateErrors = new ArrayList<>();
+            ExpressionChecker.checkUpdate(nonNull(edge.getUpdate()), scope, updateErrors);
+            addMessages(messages, "update", updateErrors, edge);
+        }
+
+        return messages;
+    }
+
+    @Override
+    public boolean blocksVerification() {
+        return true;
+    }
+
+    /**
+     * A label is only part of the model if the edge has a nail for it (see HUPPAALDocument)
+     */
+    private static boolean hasLabel(final Edge edge, final Edge.PropertyType propertyType) {
+        return edge.getNails().stream().anyMatch(nail -> nail.getPropertyType().equals(propertyType));
+    }
+
+    private static void addMessages(final List<CodeAnalysis.Message> messages, final String label, final List<String> errors, final Edge edge) {
+        for (final String error : errors) {
+            messages.add(new CodeAnalysis.Message("Invalid " + label + ": " + error, CodeAnalysis.MessageType.ERROR, edge));
+        }
+    }
+
+    private static String nonNull(final String text) {
+        return text == null ? "" : text;
+    }
+
+}
@@ -0,0 +1,29 @@
+package dk.cs.aau.huppaal.code_analysis.rules;
+
+import dk.cs.aau.huppaal.abstractions.Component;
+import dk.cs.aau.huppaal.abstractions.Edge;
+import dk.cs.aau.huppaal.abstractions.Jork;
+import dk.cs.aau.huppaal.code_analysis.CodeAnalysis;
+import dk.cs.aau.huppaal.code_analysis.EdgeRule;
+
+import java.util.Collections;
+import java.util.List;
+
+public class ForkEdgeRule implements EdgeRule {
+
+    @Override
+    public List<CodeAnalysis.Message> check(final Component component, final Edge edge) {
+        // The edge is not being drawn (i.e. it has a target)
+        if ((edge.getTargetLocation() != null || edge.getTargetSubComponent() != null || edge.getTargetJork() != null)
+                // The edge has a source jork
+                && edge.getSourceJork() != null
+                // The source jork is a fork
+                && edge.getSourceJork().getType().equals(Jork.Type.FORK)
+                // The jork does not have a sub component as its target
+                && edge.getTargetSubComponent() == null) {
+            return Collections.singletonList(new CodeAnalysis.Message("Only subcomponents can run in parallel", CodeAnalysis.MessageType.ERROR, edge));
+        }
+        return Collections.emptyList();
+    }
+
+}
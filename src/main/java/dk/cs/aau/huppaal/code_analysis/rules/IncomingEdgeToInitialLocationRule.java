@@ -0,0 +1,23 @@
+package dk.cs.aau.huppaal.code_analysis.rules;
+
+import dk.cs.aau.huppaal.abstractions.Component;
+import dk.cs.aau.huppaal.abstractions.Edge;
+import dk.cs.aau.huppaal.abstractions.Location;
+import dk.cs.aau.huppaal.code_analysis.CodeAnalysis;
+import dk.cs.aau.huppaal.code_analysis.EdgeRule;
+
+import java.util.Collections;
+import java.util.List;
+
+public class IncomingEdgeToInitialLocationRule implements EdgeRule {
+
+    @Override
+    public List<CodeAnalysis.Message> check(final Component component, final Edge edge) {
+        final Location targetLocation = edge.getTargetLocation();
+        if (targetLocation != null && targetLocation.getType().equals(Location.Type.INITIAL)) {
+            return Collections.singletonList(new CodeAnalysis.Message("Incoming edges to an initial location are not allowed", CodeAnalysis.MessageType.ERROR, edge));
+        }
+        return Collections.emptyList();
+    }
+
+}
@@ -0,0 +1,29 @@
+package dk.cs.aau.huppaal.code_analysis.rules;
+
+import dk.cs.aau.huppaal.abstractions.Component;
+import dk.cs.aau.huppaal.abstractions.Edge;
+import dk.cs.aau.huppaal.abstractions.Jork;
+import dk.cs.aau.huppaal.code_analysis.CodeAnalysis;
+import dk.cs.aau.huppaal.code_analysis.EdgeRule;
+
+import java.util.Collections;
+import java.util.List;
+
+public class JoinEdgeRule implements EdgeRule {
+
+    @Override
+    public List<CodeAnalysis.Message> check(final Component component, final Edge edge) {
+        // The edge is not being drawn (i.e. it has a target)
+        if ((edge.getTargetLocation() != null || edge.getTargetSubComponent() != null || edge.getTargetJork() != null)
+                // The edge has a target jork
+                && edge.getTargetJork() != null
+                // The target jork is a join
+                && edge.getTargetJork().getType().equals(Jork.Type.JOIN)
+                // The jork does not have a sub component as its source
+                && edge.getSourceSubComponent() == null) {
+            return Collections.singletonList(new CodeAnalysis.Message("Only subcomponents that are running in parallel can be joined", CodeAnalysis.MessageType.ERROR, edge));
+        }
+        return Collections.emptyList();
+    }
+
+}
@@ -0,0 +1,40 @@
+package dk.cs.aau.huppaal.code_analysis.rules;
+
+import dk.cs.aau.huppaal.abstractions.Component;
+import dk.cs.aau.huppaal.abstractions.Location;
+import dk.cs.aau.huppaal.code_analysis.AnalysisRule;
+import dk.cs.aau.huppaal.code_analysis.CodeAnalysis;
+import dk.cs.aau.huppaal.code_analysis.expressions.ExpressionChecker;
+import dk.cs.aau.huppaal.code_analysis.expressions.Scope;
+
+import java.util.ArrayList;
+import java.util.List;
+
+public class LocationInvariantRule implements AnalysisRule {
+
+    @Override
+    public List<CodeAnalysis.Message> check(final Component component) {
+        final List<Location> locations = new ArrayList<>(component.getLocations());
+        locations.add(component.getInitialLocation());
+        locations.add(component.getFinalLocation());
+
+        final Scope scope = Scope.of(component);
+        final List<CodeAnalysis.Message> messages = new ArrayList<>();
+        for (final Location location : locations) {
+            if (location == null || location.getInvariant() == null) continue;
+
+            final List<String> errors = new ArrayList<>();
+            ExpressionChecker.checkInvariant(location.getInvariant(), scope, errors);
+            for (final String error : errors) {
+                messages.add(new CodeAnalysis.Message("Invalid invariant: " + error, CodeAnalysis.MessageType.ERROR, location));
+            }
+        }
+        return messages;
+    }
+
+    @Override
+    public boolean blocksVerification() {
+        return true;
+    }
+
+}
@@ -0,0 +1,31 @@
+package dk.cs.aau.huppaal.code_analysis.rules;
+
+import dk.cs.aau.huppaal.abstractions.Component;
+import dk.cs.aau.huppaal.abstractions.Location;
+import dk.cs.aau.huppaal.code_analysis.AnalysisRule;
+import dk.cs.aau.huppaal.code_analysis.CodeAnalysis;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.regex.Pattern;
+
+public class LocationNicknameRule implements AnalysisRule {
+
+    private static final Pattern VALID_NICKNAME = Pattern.compile("[A-Za-z0-9_-]*$");
+
+    @Override
+    public List<CodeAnalysis.Message> check(final Component component) {
+        final List<Location> locations = new ArrayList<>(component.getLocations());
+        locations.add(component.getInitialLocation());
+        locations.add(component.getFinalLocation());
+
+        final List<CodeAnalysis.Message> messages = new ArrayList<>();
+        for (final Location location : locations) {
+            if (location != null && !VALID_NICKNAME.matcher(location.getNickname()).matches()) {
+                messages.add(new CodeAnalysis.Message("Nicknames for locations must be alpha-numeric", CodeAnalysis.MessageType.ERROR, location));
+            }
+        }
+        return messages;
+    }
+
+}
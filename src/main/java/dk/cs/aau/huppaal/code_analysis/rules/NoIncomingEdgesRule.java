@@ -0,0 +1,40 @@
+package dk.cs.aau.huppaal.code_analysis.rules;
+
+import dk.cs.aau.huppaal.abstractions.Component;
+import dk.cs.aau.huppaal.abstractions.Edge;
+import dk.cs.aau.huppaal.abstractions.Location;
+import dk.cs.aau.huppaal.code_analysis.AnalysisRule;
+import dk.cs.aau.huppaal.code_analysis.CodeAnalysis;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+public class NoIncomingEdgesRule implements AnalysisRule {
+
+    @Override
+    public List<CodeAnalysis.Message> check(final Component component) {
+        final Set<Location> targetLocations = new HashSet<>();
+        for (final Edge edge : new ArrayList<>(component.getEdges())) {
+            if (edge.getTargetLocation() != null) {
+                targetLocations.add(edge.getTargetLocation());
+            }
+        }
+
+        final List<CodeAnalysis.Message> messages = new ArrayList<>();
+        for (final Location location : new ArrayList<>(component.getLocations())) {
+            if (!targetLocations.contains(location)) {
+                messages.add(new CodeAnalysis.Message("Location has no incoming edges", CodeAnalysis.MessageType.WARNING, location));
+            }
+        }
+        return messages;
+    }
+
+    @Override
+    public long getQuietPeriod() {
+        // Do not warn about locations that the user is still connecting
+        return 5000;
+    }
+
+}
@@ -0,0 +1,25 @@
+package dk.cs.aau.huppaal.code_analysis.rules;
+
+import dk.cs.aau.huppaal.abstractions.Component;
+import dk.cs.aau.huppaal.abstractions.Edge;
+import dk.cs.aau.huppaal.abstractions.Location;
+import dk.cs.aau.huppaal.code_analysis.CodeAnalysis;
+import dk.cs.aau.huppaal.code_analysis.EdgeRule;
+
+import java.util.Collections;
+import java.util.List;
+
+public class OutgoingEdgeFromFinalLocationRule implements EdgeRule {
+
+    @Override
+    public List<CodeAnalysis.Message> check(final Component component, final Edge edge) {
+        final Location sourceLocation = edge.getSourceLocation();
+        if (sourceLocation != null
+                && sourceLocation.getType().equals(Location.Type.FINAl)
+                && edge.getTargetCircular() != null) {
+            return Collections.singletonList(new CodeAnalysis.Message("Outgoing edges from a target location are not allowed", CodeAnalysis.MessageType.ERROR, edge));
+        }
+        return Collections.emptyList();
+    }
+
+}
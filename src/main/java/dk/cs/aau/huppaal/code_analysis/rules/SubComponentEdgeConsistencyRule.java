@@ -0,0 +1,71 @@
+package dk.cs.aau.huppaal.code_analysis.rules;
+
+import dk.cs.aau.huppaal.abstractions.Component;
+import dk.cs.aau.huppaal.abstractions.Edge;
+import dk.cs.aau.huppaal.abstractions.Jork;
+import dk.cs.aau.huppaal.abstractions.SubComponent;
+import dk.cs.aau.huppaal.code_analysis.AnalysisRule;
+import dk.cs.aau.huppaal.code_analysis.CodeAnalysis;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+public class SubComponentEdgeConsistencyRule implements AnalysisRule {
+
+    @Override
+    public List<CodeAnalysis.Message> check(final Component component) {
+        // Count the edges to and from each sub component in a single pass over the edges
+        final Map<SubComponent, Integer> incomingEdges = new HashMap<>();
+        final Map<SubComponent, Integer> forks = new HashMap<>();
+        final Map<SubComponent, Integer> outgoingEdges = new HashMap<>();
+        final Map<SubComponent, Integer> joins = new HashMap<>();
+
+        for (final Edge edge : new ArrayList<>(component.getEdges())) {
+            final SubComponent target = edge.getTargetSubComponent();
+            if (target != null) {
+                incomingEdges.merge(target, 1, Integer::sum);
+                if (edge.getSourceJork() != null && edge.getSourceJork().getType().equals(Jork.Type.FORK)) {
+                    forks.merge(target, 1, Integer::sum);
+                }
+            }
+
+            final SubComponent source = edge.getSourceSubComponent();
+            if (source != null) {
+                outgoingEdges.merge(source, 1, Integer::sum);
+                if (edge.getTargetJork() != null && edge.getTargetJork().getType().equals(Jork.Type.JOIN)) {
+                    joins.merge(source, 1, Integer::sum);
+                }
+            }
+        }
+
+        final List<CodeAnalysis.Message> messages = new ArrayList<>();
+        for (final SubComponent subComponent : new ArrayList<>(component.getSubComponents())) {
+            final int subComponentForks = forks.getOrDefault(subComponent, 0);
+            final int subComponentJoins = joins.getOrDefault(subComponent, 0);
+
+            // If the component is started by multiple forks
+            if (subComponentForks > 1) {
+                messages.add(new CodeAnalysis.Message("Subcomponents can only be started by once, and only by a single fork", CodeAnalysis.MessageType.ERROR, subComponent));
+            }
+
+            // If there are inconsistent edges (eg from fork and a location)
+            if (incomingEdges.getOrDefault(subComponent, 0) > subComponentForks && subComponentForks != 0) {
+                messages.add(new CodeAnalysis.Message("Subcomponents can not be started both in parallel and sequentially", CodeAnalysis.MessageType.ERROR, subComponent));
+            }
+
+            // If the component is joined by multiple joins
+            if (subComponentJoins > 1) {
+                messages.add(new CodeAnalysis.Message("Subcomponents can only be joined once, and only by a single join", CodeAnalysis.MessageType.ERROR, subComponent));
+            }
+
+            // If there are inconsistent edges (eg to join and a location)
+            if (outgoingEdges.getOrDefault(subComponent, 0) > subComponentJoins && subComponentJoins != 0) {
+                messages.add(new CodeAnalysis.Message("Subcomponents can not end in both a join and locations", CodeAnalysis.MessageType.ERROR, subComponent));
+            }
+        }
+        return messages;
+    }
+
+}
@@ -0,0 +1,32 @@
+package dk.cs.aau.huppaal.code_analysis.rules;
+
+import dk.cs.aau.huppaal.abstractions.Component;
+import dk.cs.aau.huppaal.abstractions.SubComponent;
+import dk.cs.aau.huppaal.code_analysis.AnalysisRule;
+import dk.cs.aau.huppaal.code_analysis.CodeAnalysis;
+import dk.cs.aau.huppaal.code_analysis.Nearable;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+public class UniqueSubComponentIdentifierRule implements AnalysisRule {
+
+    @Override
+    public List<CodeAnalysis.Message> check(final Component component) {
+        final Map<String, List<Nearable>> subComponentsByIdentifier = new LinkedHashMap<>();
+        for (final SubComponent subComponent : new ArrayList<>(component.getSubComponents())) {
+            subComponentsByIdentifier.computeIfAbsent(subComponent.getIdentifier(), identifier -> new ArrayList<>()).add(subComponent);
+        }
+
+        final List<CodeAnalysis.Message> messages = new ArrayList<>();
+        subComponentsByIdentifier.forEach((identifier, clashingSubComponents) -> {
+            if (clashingSubComponents.size() > 1) {
+                messages.add(new CodeAnalysis.Message("Identifier '" + identifier + "' is multiply defined", CodeAnalysis.MessageType.ERROR, clashingSubComponents));
+            }
+        });
+        return messages;
+    }
+
+}
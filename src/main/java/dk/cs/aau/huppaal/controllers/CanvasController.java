@@ -1,5 +1,6 @@
 package dk.cs.aau.huppaal.controllers;
 
+import dk.cs.aau.huppaal.HUPPAAL;
 import dk.cs.aau.huppaal.abstractions.Component;
 import dk.cs.aau.huppaal.presentations.CanvasPresentation;
 import dk.cs.aau.huppaal.presentations.ComponentPresentation;
@@ -7,6 +8,7 @@ import dk.cs.aau.huppaal.utility.helpers.SelectHelper;
 import javafx.application.Platform;
 import javafx.beans.property.ObjectProperty;
 import javafx.beans.property.SimpleObjectProperty;
+import javafx.collections.ListChangeListener;
 import javafx.event.EventHandler;
 import javafx.fxml.Initializable;
 import javafx.scene.input.KeyCode;
@@ -27,6 +29,9 @@ public class CanvasController implements Initializable {
 
     private final static HashMap<Component, Pair<Double, Double>> componentTranslateMap = new HashMap<>();
 
+    // Presentations are created the first time a component is shown and reused until the component is removed
+    private final static HashMap<Component, ComponentPresentation> componentPresentationMap = new HashMap<>();
+
     public Pane root;
 
     public static Component getActiveComponent() {
@@ -85,11 +90,20 @@ public class CanvasController implements Initializable {
                 root.setTranslateY(GRID_SIZE * 8);
             }
 
-            final ComponentPresentation newComponentPresentation = new ComponentPresentation(newComponent);
+            final ComponentPresentation newComponentPresentation = componentPresentationMap.computeIfAbsent(newComponent, ComponentPresentation::new);
             root.getChildren().add(newComponentPresentation);
             root.requestFocus();
         });
 
+        HUPPAAL.getProject().getComponents().addListener((ListChangeListener<Component>) c -> {
+            while (c.next()) {
+                c.getRemoved().forEach(removedComponent -> {
+                    componentPresentationMap.remove(removedComponent);
+                    componentTranslateMap.remove(removedComponent);
+                });
+            }
+        });
+
         leaveTextAreas = () -> {root.requestFocus();};
 
         leaveOnEnterPressed = (keyEvent) -> {
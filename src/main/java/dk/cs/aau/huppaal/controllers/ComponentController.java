@@ -3,7 +3,6 @@ package dk.cs.aau.huppaal.controllers;
 import dk.cs.aau.huppaal.HUPPAAL;
 import dk.cs.aau.huppaal.abstractions.*;
 import dk.cs.aau.huppaal.backend.UPPAALDriverManager;
-import dk.cs.aau.huppaal.code_analysis.CodeAnalysis;
 import dk.cs.aau.huppaal.code_analysis.Nearable;
 import dk.cs.aau.huppaal.presentations.*;
 import dk.cs.aau.huppaal.utility.UndoRedoStack;
@@ -14,15 +13,18 @@ import com.jfoenix.controls.JFXRippler;
 import com.jfoenix.controls.JFXTextField;
 import javafx.animation.Interpolator;
 import javafx.animation.Transition;
-import javafx.application.Platform;
-import javafx.beans.binding.DoubleBinding;
+import javafx.beans.InvalidationListener;
+import javafx.beans.WeakInvalidationListener;
 import javafx.beans.property.ObjectProperty;
 import javafx.beans.property.SimpleBooleanProperty;
 import javafx.beans.property.SimpleObjectProperty;
 import javafx.beans.value.ChangeListener;
 import javafx.collections.ListChangeListener;
+import javafx.collections.WeakListChangeListener;
 import javafx.fxml.FXML;
 import javafx.fxml.Initializable;
+import javafx.geometry.BoundingBox;
+import javafx.geometry.Bounds;
 import javafx.scene.Group;
 import javafx.scene.Node;
 import javafx.scene.control.Label;
@@ -42,24 +44,23 @@ import java.net.URL;
 import java.util.*;
 import java.util.function.Consumer;
 import java.util.function.Function;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
 
 import static dk.cs.aau.huppaal.presentations.CanvasPresentation.GRID_SIZE;
 
 public class ComponentController implements Initializable {
 
-    private static final Map<Component, Timer> COMPONENT_SUBCOMPONENT_NAME_CHECK_TIMER_MAP = new HashMap<>();
+    // How far outside of a location pressing the component still finishes an edge in it
+    private static final double EDGE_SNAP_DISTANCE = GRID_SIZE;
+
     private static final Map<Component, ListChangeListener<Location>> locationListChangeListenerMap = new HashMap<>();
-    private static final Map<Component, Boolean> errorsAndWarningsInitialized = new HashMap<>();
     private static Location placingLocation = null;
-    private static double lastChanged = 0;
     private final ObjectProperty<Component> component = new SimpleObjectProperty<>(null);
-    private final Map<Edge, EdgePresentation> edgePresentationMap = new HashMap<>();
-    private final Map<Location, LocationPresentation> locationPresentationMap = new HashMap<>();
-    private final Map<SubComponent, SubComponentPresentation> subComponentPresentationMap = new HashMap<>();
-    private final Map<Jork, JorkPresentation> jorkPresentationMap = new HashMap<>();
-    private Boolean alreadyRunningNoIncomingEdgesCheck = false;
+    private ViewportCuller<Edge> edgeCuller;
+    private ViewportCuller<Location> locationCuller;
+    private ViewportCuller<SubComponent> subComponentCuller;
+    private ViewportCuller<Jork> jorkCuller;
+    private ListChangeListener<Component> projectComponentsListener;
+    private InvalidationListener visibleAreaListener;
     public BorderPane toolbar;
     public Rectangle background;
     public StyleClassedTextArea declaration;
@@ -80,6 +81,12 @@ public class ComponentController implements Initializable {
     public Pane modelContainerJork;
 
     private MouseTracker mouseTracker;
+
+    // The rectangle dragged out on the component to select the elements within it
+    private final Rectangle selectionRectangle = new Rectangle();
+    private double selectionStartX;
+    private double selectionStartY;
+    private boolean isSelectingArea = false;
     private DropDownMenu contextMenu;
     private DropDownMenu finishEdgeContextMenu;
 
@@ -101,10 +108,6 @@ public class ComponentController implements Initializable {
         ComponentController.placingLocation = placingLocation;
     }
 
-    public static void setLastChanged() {
-        lastChanged = System.currentTimeMillis() + 500;
-    }
-
     @Override
     public void initialize(final URL location, final ResourceBundle resources) {
 
@@ -129,32 +132,12 @@ public class ComponentController implements Initializable {
             declaration.replaceText(0, declaration.getLength(), newComponent.getDeclarations());
             declaration.textProperty().addListener((observable, oldDeclaration, newDeclaration) -> newComponent.setDeclarations(newDeclaration));
 
-
-            // Find the clocks in the decls
-            newComponent.declarationsProperty().addListener((observable, oldValue, newValue) -> {
-
-                final List<String> clocks = new ArrayList<String>();
-
-                final String strippedDecls = newValue.replaceAll("[\\r\\n]+", "");
-
-                Pattern pattern = Pattern.compile("clock (?<CLOCKS>[^;]*);");
-                Matcher matcher = pattern.matcher(strippedDecls);
-
-                while (matcher.find()) {
-                    final String clockStrings[] = matcher.group("CLOCKS").split(",");
-                    for (String clockString : clockStrings) {
-                        clocks.add(clockString.replaceAll("\\s",""));
-                    }
-                }
-
-                //TODO this logs the clocks System.out.println(clocks);
-            });
-
             initializeEdgeHandling(newComponent);
             initializeLocationHandling(newComponent);
             initializeSubComponentHandling(newComponent);
             initializeJorkHandling(newComponent);
             initializeDeclarations();
+            initializeCulling();
 
             // When we update the color of the component, also update the color of the initial and final locations if the colors are the same
             newComponent.colorProperty().addListener((obs1, oldColor, newColor) -> {
@@ -176,128 +159,69 @@ public class ComponentController implements Initializable {
         mouseTracker = new MouseTracker(root);
 
         initializeComponentContextMenu();
-
-        component.addListener((obs, old, component) -> {
-            if (component == null) return;
-
-            if (!errorsAndWarningsInitialized.containsKey(component) || !errorsAndWarningsInitialized.get(component)) {
-                initializeSubComponentUniqueNameError();
-                initializeNoIncomingEdgesWarning();
-                errorsAndWarningsInitialized.put(component, true);
-            }
-        });
+        initializeAreaSelection();
     }
 
-    private void initializeNoIncomingEdgesWarning() {
-        final Map<Location, CodeAnalysis.Message> messages = new HashMap<>();
-
-        final Function<Location, Boolean> hasIncomingEdges = location -> {
-            if (!getComponent().getLocations().contains(location))
-                return true; // Do now show messages for locations not in the set of locations
-
-            for (final Edge edge : getComponent().getEdges()) {
-                final Location targetLocation = edge.getTargetLocation();
-                if (targetLocation != null && targetLocation.equals(location)) return true;
-            }
-
-            return false;
-        };
-
-        final Consumer<Component> checkLocations = (component) -> {
-            if(alreadyRunningNoIncomingEdgesCheck) {
-                return;
+    private void initializeAreaSelection() {
+        selectionRectangle.setManaged(false);
+        selectionRectangle.setMouseTransparent(true);
+        selectionRectangle.setVisible(false);
+        selectionRectangle.setFill(SelectHelper.getNormalColor().deriveColor(0, 1, 1, 0.15));
+        selectionRectangle.setStroke(SelectHelper.getBorderColor());
+        selectionRectangle.getStrokeDashArray().addAll(3d, 3d);
+        modelContainerJork.getChildren().add(selectionRectangle);
+
+        modelContainerSubComponent.addEventHandler(MouseEvent.MOUSE_DRAGGED, event -> {
+            if (!isSelectingArea) return;
+
+            selectionRectangle.setX(Math.min(selectionStartX, event.getX()));
+            selectionRectangle.setY(Math.min(selectionStartY, event.getY()));
+            selectionRectangle.setWidth(Math.abs(event.getX() - selectionStartX));
+            selectionRectangle.setHeight(Math.abs(event.getY() - selectionStartY));
+
+            if (!selectionRectangle.isVisible()) {
+                selectionRectangle.setVisible(true);
+                selectionRectangle.toFront();
             }
+        });
 
-            new Thread(() -> {
-                alreadyRunningNoIncomingEdgesCheck = true;
-
-                while(lastChanged > System.currentTimeMillis() - 5000){
-                    try {
-                        Thread.sleep(2000);
-                    } catch (InterruptedException e) {
-                        e.printStackTrace();
-                    }
-                }
-
-                Platform.runLater(new Runnable() {
-                    @Override
-                    public void run() {
-                        final List<Location> ignored = new ArrayList<>();
-
-                        // Run through all of the locations we are currently displaying a warning for, checking if we should remove them
-                        final Set<Location> removeMessages = new HashSet<>();
-                        messages.keySet().forEach(location -> {
-                            // Check if the location has some incoming edges
-                            final boolean result = hasIncomingEdges.apply(location);
-
-                            // The location has at least one incoming edge
-                            if (result) {
-                                CodeAnalysis.removeMessage(component, messages.get(location));
-                                removeMessages.add(location);
-                            }
-
-                            // Ignore this location from now on (we already checked it)
-                            ignored.add(location);
-                        });
-                        removeMessages.forEach(messages::remove);
-
-                        // Run through all non-ignored locations
-                        for (final Location location : component.getLocations()) {
-                            if (ignored.contains(location)) continue; // Skip ignored
-                            if (messages.containsKey(location)) continue; // Skip locations that already have warnings associated
-
-                            // Check if the location has some incoming edges
-                            final boolean result = hasIncomingEdges.apply(location);
-
-                            // The location has no incoming edge
-                            if (!result) {
-                                final CodeAnalysis.Message message = new CodeAnalysis.Message("Location has no incoming edges", CodeAnalysis.MessageType.WARNING, location);
-                                messages.put(location, message);
-                                CodeAnalysis.addMessage(component, message);
-                            }
-                        }
-                    }
-                });
-
-                alreadyRunningNoIncomingEdgesCheck = false;
-            }).start();
-        };
-
-        final Component component = getComponent();
-        checkLocations.accept(component);
+        modelContainerSubComponent.addEventHandler(MouseEvent.MOUSE_RELEASED, event -> {
+            if (!isSelectingArea) return;
+            isSelectingArea = false;
 
-        // Check location whenever we get new edges
-        component.getEdges().addListener(new ListChangeListener<Edge>() {
-            @Override
-            public void onChanged(final Change<? extends Edge> c) {
-                while (c.next()) {
-                    checkLocations.accept(component);
-                }
+            if (selectionRectangle.isVisible()) {
+                selectionRectangle.setVisible(false);
+                selectElementsWithin(selectionRectangle.getX(), selectionRectangle.getY(), selectionRectangle.getX() + selectionRectangle.getWidth(), selectionRectangle.getY() + selectionRectangle.getHeight());
             }
         });
+    }
 
-        // Check location whenever we get new locations
-        component.getLocations().addListener(new ListChangeListener<Location>() {
-            @Override
-            public void onChanged(final Change<? extends Location> c) {
-                while (c.next()) {
-                    if(!c.getRemoved().isEmpty()){
-                        alreadyRunningNoIncomingEdgesCheck = false;
-                        lastChanged = 0;
-                    }
-                    checkLocations.accept(component);
-                }
+    /**
+     * Selects the locations, jorks and sub components that overlap the area (in one update of the selection)
+     */
+    private void selectElementsWithin(final double minX, final double minY, final double maxX, final double maxY) {
+        final List<SelectHelper.ItemSelectable> selectables = new ArrayList<>();
+
+        for (final LocationAware element : getComponent().getSpatialIndex().query(minX, minY, maxX, maxY)) {
+            // The initial and final location are not part of the model containers
+            if (element instanceof Location && ((Location) element).getType() == Location.Type.NORMAL) {
+                selectables.add(((LocationPresentation) locationCuller.materialize((Location) element)).getController());
+            } else if (element instanceof Jork) {
+                selectables.add(((JorkPresentation) jorkCuller.materialize((Jork) element)).getController());
+            } else if (element instanceof SubComponent) {
+                selectables.add(((SubComponentPresentation) subComponentCuller.materialize((SubComponent) element)).getController());
             }
-        });
+        }
+
+        SelectHelper.addToSelection(selectables);
     }
 
     private void initializeJorkHandling(final Component newComponent) {
-        final Consumer<Jork> handleAddedJork = newJork -> {
-            final JorkPresentation jorkPresentation = new JorkPresentation(newJork, newComponent);
-            jorkPresentationMap.put(newJork, jorkPresentation);
-            modelContainerJork.getChildren().add(jorkPresentation);
-        };
-
+        jorkCuller = new ViewportCuller<>(
+                modelContainerJork,
+                jork -> new JorkPresentation(jork, newComponent),
+                jork -> new BoundingBox(jork.getX(), jork.getY(), JorkPresentation.JORK_WIDTH, JorkPresentation.JORK_HEIGHT)
+        );
 
         // React on addition of jorks to the component
         newComponent.getJorks().addListener(new ListChangeListener<Jork>() {
@@ -305,108 +229,15 @@ public class ComponentController implements Initializable {
             public void onChanged(final Change<? extends Jork> c) {
                 if (c.next()) {
                     // Edges are added to the component
-                    c.getAddedSubList().forEach(handleAddedJork::accept);
+                    c.getAddedSubList().forEach(jorkCuller::materialize);
 
                     // Edges are removed from the component
-                    c.getRemoved().forEach(edge -> {
-                        final JorkPresentation jorkPresentation = jorkPresentationMap.get(edge);
-                        modelContainerJork.getChildren().remove(jorkPresentation);
-                        jorkPresentationMap.remove(edge);
-                    });
+                    c.getRemoved().forEach(jorkCuller::remove);
                 }
             }
         });
 
-        newComponent.getJorks().forEach(handleAddedJork);
-    }
-
-    private void initializeSubComponentUniqueNameError() {
-        final HashMap<String, ArrayList<CodeAnalysis.Message>> errorsMap = new HashMap<>();
-
-        final Runnable checkNames = () -> {
-            final HashMap<String, Integer> occurrences = new HashMap<>();
-
-            subComponentPresentationMap.keySet().forEach(subComponent -> {
-
-                // Check if we have seen the identifier of the sub component before
-                final String identifier = subComponent.getIdentifier();
-                if (occurrences.containsKey(identifier)) {
-                    occurrences.put(identifier, occurrences.get(identifier) + 1);
-                } else {
-                    occurrences.put(identifier, 0);
-                }
-            });
-
-            // Check if we have previously added an error for each of the found duplicates
-            occurrences.keySet().forEach(id -> {
-                if (!errorsMap.containsKey(id)) {
-                    errorsMap.put(id, new ArrayList<>());
-                }
-
-                final ArrayList<CodeAnalysis.Message> messages = errorsMap.get(id);
-                final int addedErrors = messages.size();
-                final int foundErrors = occurrences.get(id);
-
-                if (addedErrors > foundErrors) { // There are too many errors in the view
-                    final CodeAnalysis.Message messageToRemove = messages.get(0);
-                    messages.remove(messageToRemove);
-                    Platform.runLater(() -> CodeAnalysis.removeMessage(getComponent(), messageToRemove));
-                } else if (addedErrors < foundErrors) { // There are too few errors in the view
-                    // Find all subcomponents with that name
-                    final List<Nearable> clashingSubcomponents = new ArrayList<>();
-
-                    getComponent().getSubComponents().forEach(subComponent -> {
-                        if (subComponent.getIdentifier().equals(id)) {
-                            clashingSubcomponents.add(subComponent);
-                        }
-                    });
-
-                    final CodeAnalysis.Message identifierIsNotUnique = new CodeAnalysis.Message("Identifier '" + id + "' is multiply defined", CodeAnalysis.MessageType.ERROR, clashingSubcomponents);
-                    messages.add(identifierIsNotUnique);
-                    Platform.runLater(() -> CodeAnalysis.addMessage(getComponent(), identifierIsNotUnique));
-                }
-            });
-
-            // Remove any messages that are no longer found
-            errorsMap.keySet().forEach(id -> {
-                if (!occurrences.containsKey(id)) {
-                    errorsMap.get(id).forEach(message -> Platform.runLater(() -> CodeAnalysis.removeMessage(getComponent(), message)));
-                    errorsMap.put(id, new ArrayList<>());
-                }
-            });
-
-        };
-
-        // Wait until component is not null
-        if (!COMPONENT_SUBCOMPONENT_NAME_CHECK_TIMER_MAP.containsKey(getComponent())) {
-            final TimerTask reachabilityCheckTask = new TimerTask() {
-                @Override
-                public void run() {
-                    if (getComponent() == null) return;
-                    checkNames.run();
-                }
-            };
-
-            final int interval = 2000; // ms
-            final Timer timer = new Timer();
-            timer.schedule(reachabilityCheckTask, 0, interval);
-
-            COMPONENT_SUBCOMPONENT_NAME_CHECK_TIMER_MAP.put(getComponent(), timer);
-        }
-
-        // Cancel timers when the component is removed
-        HUPPAAL.getProject().getComponents().addListener(new ListChangeListener<Component>() {
-            @Override
-            public void onChanged(Change<? extends Component> c) {
-                while (c.next()) {
-                    c.getRemoved().forEach(removedComponent -> {
-                        if (COMPONENT_SUBCOMPONENT_NAME_CHECK_TIMER_MAP.containsKey(removedComponent)) {
-                            COMPONENT_SUBCOMPONENT_NAME_CHECK_TIMER_MAP.get(removedComponent).cancel();
-                        }
-                    });
-                }
-            }
-        });
+        newComponent.getJorks().forEach(jorkCuller::add);
     }
 
     private void initializeComponentContextMenu() {
@@ -549,12 +380,9 @@ public class ComponentController implements Initializable {
             initializeDropDownMenu.accept(newComponent);
         });
 
-        HUPPAAL.getProject().getComponents().addListener(new ListChangeListener<Component>() {
-            @Override
-            public void onChanged(final Change<? extends Component> c) {
-                initializeDropDownMenu.accept(getComponent());
-            }
-        });
+        // The project outlives the presentation, so it must not keep the presentation alive
+        projectComponentsListener = c -> initializeDropDownMenu.accept(getComponent());
+        HUPPAAL.getProject().getComponents().addListener(new WeakListChangeListener<>(projectComponentsListener));
 
         initializeDropDownMenu.accept(getComponent());
     }
@@ -679,8 +507,8 @@ public class ComponentController implements Initializable {
     }
 
     private void initializeLocationHandling(final Component newComponent) {
-        final Consumer<Location> handleAddedLocation = (loc) -> {
-            // Create a new presentation, and register it on the map
+        final Function<Location, Node> createLocationPresentation = (loc) -> {
+            // Create a new presentation
             final LocationPresentation newLocationPresentation = new LocationPresentation(loc, newComponent);
 
             final ChangeListener<Number> locationPlacementChangedListener = (observable, oldValue, newValue) -> {
@@ -721,17 +549,13 @@ public class ComponentController implements Initializable {
 
                 //Check to see if the location is placed on top of another location
                 else {
-                    for (Map.Entry<Location, LocationPresentation> entry : locationPresentationMap.entrySet()) {
-                        if (entry.getValue() != newLocationPresentation &&
-                                Math.abs(entry.getValue().getLayoutX() - (newLocationPresentation.getLayoutX())) < offset &&
-                                Math.abs(entry.getValue().getLayoutY() - (newLocationPresentation.getLayoutY())) < offset) {
-                            hit = true;
-                            latestHitRight = entry.getValue().getLayoutX();
-                            latestHitDown = entry.getValue().getLayoutY();
-                            latestHitLeft = entry.getValue().getLayoutX();
-                            latestHitUp = entry.getValue().getLayoutY();
-                            break;
-                        }
+                    final Location other = findOverlappingLocation(loc, newLocationPresentation.getLayoutX(), newLocationPresentation.getLayoutY(), offset);
+                    if (other != null) {
+                        hit = true;
+                        latestHitRight = other.getX();
+                        latestHitDown = other.getY();
+                        latestHitLeft = other.getX();
+                        latestHitUp = other.getY();
                     }
                 }
 
@@ -753,14 +577,10 @@ public class ComponentController implements Initializable {
                             hit = true;
                             latestHitRight = finalLocationX;
                         } else {
-                            for (Map.Entry<Location, LocationPresentation> entry : locationPresentationMap.entrySet()) {
-                                if (entry.getValue() != newLocationPresentation &&
-                                        Math.abs(entry.getValue().getLayoutX() - (latestHitRight + offset)) < offset &&
-                                        Math.abs(entry.getValue().getLayoutY() - (newLocationPresentation.getLayoutY())) < offset) {
-                                    hit = true;
-                                    latestHitRight = entry.getValue().getLayoutX();
-                                    break;
-                                }
+                            final Location other = findOverlappingLocation(loc, latestHitRight + offset, newLocationPresentation.getLayoutY(), offset);
+                            if (other != null) {
+                                hit = true;
+                                latestHitRight = other.getX();
                             }
                         }
 
@@ -780,14 +600,10 @@ public class ComponentController implements Initializable {
                             hit = true;
                             latestHitDown = finalLocationY;
                         } else {
-                            for (Map.Entry<Location, LocationPresentation> entry : locationPresentationMap.entrySet()) {
-                                if (entry.getValue() != newLocationPresentation &&
-                                        Math.abs(entry.getValue().getLayoutX() - (newLocationPresentation.getLayoutX())) < offset &&
-                                        Math.abs(entry.getValue().getLayoutY() - (latestHitDown + offset)) < offset) {
-                                    hit = true;
-                                    latestHitDown = entry.getValue().getLayoutY();
-                                    break;
-                                }
+                            final Location other = findOverlappingLocation(loc, newLocationPresentation.getLayoutX(), latestHitDown + offset, offset);
+                            if (other != null) {
+                                hit = true;
+                                latestHitDown = other.getY();
                             }
                         }
                         if(!hit) {
@@ -806,14 +622,10 @@ public class ComponentController implements Initializable {
                             hit = true;
                             latestHitLeft = initialLocationX;
                         } else {
-                            for (Map.Entry<Location, LocationPresentation> entry : locationPresentationMap.entrySet()) {
-                                if (entry.getValue() != newLocationPresentation &&
-                                        Math.abs(entry.getValue().getLayoutX() - (latestHitLeft - offset)) < offset &&
-                                        Math.abs(entry.getValue().getLayoutY() - (newLocationPresentation.getLayoutY())) < offset) {
-                                    hit = true;
-                                    latestHitLeft = entry.getValue().getLayoutX();
-                                    break;
-                                }
+                            final Location other = findOverlappingLocation(loc, latestHitLeft - offset, newLocationPresentation.getLayoutY(), offset);
+                            if (other != null) {
+                                hit = true;
+                                latestHitLeft = other.getX();
                             }
                         }
                         if(!hit) {
@@ -832,14 +644,10 @@ public class ComponentController implements Initializable {
                             hit = true;
                             latestHitUp = initialLocationY;
                         } else {
-                            for (Map.Entry<Location, LocationPresentation> entry : locationPresentationMap.entrySet()) {
-                                if (entry.getValue() != newLocationPresentation &&
-                                        Math.abs(entry.getValue().getLayoutX() - (newLocationPresentation.getLayoutX())) < offset &&
-                                        Math.abs(entry.getValue().getLayoutY() - (latestHitUp - offset)) < offset) {
-                                    hit = true;
-                                    latestHitUp = entry.getValue().getLayoutY();
-                                    break;
-                                }
+                            final Location other = findOverlappingLocation(loc, newLocationPresentation.getLayoutX(), latestHitUp - offset, offset);
+                            if (other != null) {
+                                hit = true;
+                                latestHitUp = other.getY();
                             }
                         }
                         if(!hit) {
@@ -856,18 +664,26 @@ public class ComponentController implements Initializable {
 
             newLocationPresentation.layoutYProperty().addListener(locationPlacementChangedListener);
 
-            locationPresentationMap.put(loc, newLocationPresentation);
-
-            // Add it to the view
-            modelContainerLocation.getChildren().add(newLocationPresentation);
-
             // Bind the newly created location to the mouse and tell the ui that it is not placed yet
             if (loc.getX() == 0) {
                 newLocationPresentation.setPlaced(false);
                 BindingHelper.bind(loc, newComponent.xProperty(), newComponent.yProperty());
             }
+
+            // The location may have been selected (e.g. from a message) before it was shown
+            if (SelectHelper.elementsToBeSelected.contains(loc)) {
+                SelectHelper.addToSelection(newLocationPresentation.getController());
+            }
+
+            return newLocationPresentation;
         };
 
+        locationCuller = new ViewportCuller<>(
+                modelContainerLocation,
+                createLocationPresentation,
+                loc -> new BoundingBox(loc.getX() - LocationPresentation.RADIUS, loc.getY() - LocationPresentation.RADIUS, LocationPresentation.RADIUS * 2, LocationPresentation.RADIUS * 2)
+        );
+
         if(locationListChangeListenerMap.containsKey(newComponent)) {
             newComponent.getLocations().removeListener(locationListChangeListenerMap.get(newComponent));
         }
@@ -875,9 +691,7 @@ public class ComponentController implements Initializable {
             if (c.next()) {
                 // Locations are added to the component
                 c.getAddedSubList().forEach((loc) -> {
-                    handleAddedLocation.accept(loc);
-
-                    LocationPresentation locationPresentation = locationPresentationMap.get(loc);
+                    final LocationPresentation locationPresentation = (LocationPresentation) locationCuller.materialize(loc);
 
                     //Ensure that the component is inside the bounds of the component
                     locationPresentation.setLayoutX(locationPresentation.getController().getDragBounds().trimX(locationPresentation.getLayoutX()));
@@ -888,24 +702,43 @@ public class ComponentController implements Initializable {
                 });
 
                 // Locations are removed from the component
-                c.getRemoved().forEach(location -> {
-                    final LocationPresentation locationPresentation = locationPresentationMap.get(location);
-                    modelContainerLocation.getChildren().remove(locationPresentation);
-                    locationPresentationMap.remove(location);
-                });
+                c.getRemoved().forEach(locationCuller::remove);
             }
         };
         newComponent.getLocations().addListener(locationListChangeListener);
         locationListChangeListenerMap.put(newComponent, locationListChangeListener);
 
-        newComponent.getLocations().forEach(handleAddedLocation);
+        newComponent.getLocations().forEach(loc -> {
+            locationCuller.add(loc);
+
+            // Edges to a location that is not shown yet must still end at its circle
+            if (!loc.radiusProperty().isBound()) {
+                loc.setRadius(LocationPresentation.RADIUS);
+            }
+        });
+    }
+
+    /**
+     * A location (other than the given one, the initial and the final location) that is closer to the point than
+     * the offset along both axes
+     */
+    private Location findOverlappingLocation(final Location location, final double x, final double y, final double offset) {
+        final double range = offset + LocationPresentation.RADIUS;
+        for (final LocationAware element : getComponent().getSpatialIndex().query(x - range, y - range, x + range, y + range)) {
+            if (!(element instanceof Location) || element == location) continue;
+
+            final Location other = (Location) element;
+            if (other.getType() == Location.Type.NORMAL && Math.abs(other.getX() - x) < offset && Math.abs(other.getY() - y) < offset) {
+                return other;
+            }
+        }
+        return null;
     }
 
     private void initializeEdgeHandling(final Component newComponent) {
-        final Consumer<Edge> handleAddedEdge = edge -> {
+        // The extent of an edge depends on its nails and the elements it connects, so edges are always created
+        edgeCuller = new ViewportCuller<>(modelContainerEdge, edge -> {
             final EdgePresentation edgePresentation = new EdgePresentation(edge, newComponent);
-            edgePresentationMap.put(edge, edgePresentation);
-            modelContainerEdge.getChildren().add(edgePresentation);
 
             final Consumer<Circular> updateMouseTransparency = (newCircular) -> {
                 if (newCircular == null) {
@@ -917,7 +750,9 @@ public class ComponentController implements Initializable {
 
             edge.targetCircularProperty().addListener((obs1, oldTarget, newTarget) -> updateMouseTransparency.accept(newTarget));
             updateMouseTransparency.accept(edge.getTargetCircular());
-        };
+
+            return edgePresentation;
+        });
 
 
         // React on addition of edges to the component
@@ -926,27 +761,32 @@ public class ComponentController implements Initializable {
             public void onChanged(final Change<? extends Edge> c) {
                 if (c.next()) {
                     // Edges are added to the component
-                    c.getAddedSubList().forEach(handleAddedEdge::accept);
+                    c.getAddedSubList().forEach(edgeCuller::materialize);
 
                     // Edges are removed from the component
-                    c.getRemoved().forEach(edge -> {
-                        final EdgePresentation edgePresentation = edgePresentationMap.get(edge);
-                        modelContainerEdge.getChildren().remove(edgePresentation);
-                        edgePresentationMap.remove(edge);
-                    });
+                    c.getRemoved().forEach(edgeCuller::remove);
                 }
             }
         });
 
-        newComponent.getEdges().forEach(handleAddedEdge);
+        newComponent.getEdges().forEach(edgeCuller::add);
     }
 
     private void initializeSubComponentHandling(final Component newSubComponent) {
-        final Consumer<SubComponent> handleAddedSubComponent = subComponent -> {
-            final SubComponentPresentation subComponentPresentation = new SubComponentPresentation(subComponent, getComponent());
-            subComponentPresentationMap.put(subComponent, subComponentPresentation);
-            modelContainerSubComponent.getChildren().add(subComponentPresentation);
-        };
+        subComponentCuller = new ViewportCuller<>(
+                modelContainerSubComponent,
+                subComponent -> {
+                    final SubComponentPresentation subComponentPresentation = new SubComponentPresentation(subComponent, getComponent());
+
+                    // The sub component may have been selected (e.g. from a message) before it was shown
+                    if (SelectHelper.elementsToBeSelected.contains(subComponent)) {
+                        SelectHelper.addToSelection(subComponentPresentation.getController());
+                    }
+
+                    return subComponentPresentation;
+                },
+                subComponent -> new BoundingBox(subComponent.getX(), subComponent.getY(), subComponent.getWidth(), subComponent.getHeight())
+        );
 
         // React on addition of sub components to the component
         newSubComponent.getSubComponents().addListener(new ListChangeListener<SubComponent>() {
@@ -954,24 +794,47 @@ public class ComponentController implements Initializable {
             public void onChanged(final Change<? extends SubComponent> c) {
                 if (c.next()) {
                     // SubComponents are added to the component
-                    c.getAddedSubList().forEach(handleAddedSubComponent::accept);
+                    c.getAddedSubList().forEach(subComponentCuller::materialize);
 
                     // SubComponents are removed from the component
-                    c.getRemoved().forEach(subComponent -> {
-                        final SubComponentPresentation subComponentPresentation = subComponentPresentationMap.get(subComponent);
-                        modelContainerSubComponent.getChildren().remove(subComponentPresentation);
-                    });
+                    c.getRemoved().forEach(subComponentCuller::remove);
                 }
             }
         });
 
-        newSubComponent.getSubComponents().forEach(handleAddedSubComponent);
+        newSubComponent.getSubComponents().forEach(subComponentCuller::add);
     }
 
-    private void initializeDeclarations() {
-        // Initially style the declarations
-        declaration.setStyleSpans(0, ComponentPresentation.computeHighlighting(getComponent().getDeclarations()));
+    private void initializeCulling() {
+        // Only the presentations within the visible part of the canvas are kept in the scene graph
+        visibleAreaListener = observable -> {
+            final Bounds canvasArea = CanvasPresentation.visibleAreaProperty().get();
+            final Node canvas = root.getParent();
+
+            if (canvasArea == null || canvas == null) {
+                edgeCuller.setVisibleArea(null);
+                locationCuller.setVisibleArea(null);
+                subComponentCuller.setVisibleArea(null);
+                jorkCuller.setVisibleArea(null);
+                return;
+            }
+
+            final Bounds sceneArea = canvas.localToScene(canvasArea);
+            edgeCuller.setVisibleArea(modelContainerEdge.sceneToLocal(sceneArea));
+            locationCuller.setVisibleArea(modelContainerLocation.sceneToLocal(sceneArea));
+            subComponentCuller.setVisibleArea(modelContainerSubComponent.sceneToLocal(sceneArea));
+            jorkCuller.setVisibleArea(modelContainerJork.sceneToLocal(sceneArea));
+        };
+
+        // The visible area outlives the component, so it must not keep the presentation alive
+        CanvasPresentation.visibleAreaProperty().addListener(new WeakInvalidationListener(visibleAreaListener));
+        root.parentProperty().addListener(visibleAreaListener);
+        root.layoutXProperty().addListener(visibleAreaListener);
+        root.layoutYProperty().addListener(visibleAreaListener);
+        visibleAreaListener.invalidated(null);
+    }
 
+    private void initializeDeclarations() {
         final Circle circle = new Circle(0);
         if(getComponent().isDeclarationOpen()) {
             circle.setRadius(1000);
@@ -1077,15 +940,27 @@ public class ComponentController implements Initializable {
         } else if(event.isPrimaryButtonDown()) {
             // We are drawing an edge
             if (unfinishedEdge != null) {
+                // Pressing right next to a location finishes the edge in it
+                final Location nearbyLocation = getComponent().getSpatialIndex().nearest(Location.class, event.getX(), event.getY(), EDGE_SNAP_DISTANCE);
+                if (nearbyLocation != null) {
+                    unfinishedEdge.setTargetLocation(nearbyLocation);
+                    return;
+                }
+
                 // Calculate the position for the new nail (based on the component position and the canvas mouse tracker)
-                final DoubleBinding x = CanvasPresentation.mouseTracker.gridXProperty().subtract(getComponent().xProperty());
-                final DoubleBinding y = CanvasPresentation.mouseTracker.gridYProperty().subtract(getComponent().yProperty());
+                final double x = CanvasPresentation.mouseTracker.getGridX() - getComponent().getX();
+                final double y = CanvasPresentation.mouseTracker.getGridY() - getComponent().getY();
 
                 // Create the abstraction for the new nail and add it to the unfinished edge
                 final Nail newNail = new Nail(x, y);
                 unfinishedEdge.addNail(newNail);
             } else {
                 SelectHelper.clearSelectedElements();
+
+                // Dragging from here selects the elements within the dragged out area
+                isSelectingArea = true;
+                selectionStartX = event.getX();
+                selectionStartY = event.getY();
             }
         }
 
@@ -1,7 +1,6 @@
 package dk.cs.aau.huppaal.controllers;
 
 import dk.cs.aau.huppaal.abstractions.*;
-import dk.cs.aau.huppaal.code_analysis.CodeAnalysis;
 import dk.cs.aau.huppaal.code_analysis.Nearable;
 import dk.cs.aau.huppaal.arrow_heads.SimpleArrowHead;
 import dk.cs.aau.huppaal.presentations.CanvasPresentation;
@@ -18,7 +17,6 @@ import javafx.animation.KeyFrame;
 import javafx.animation.KeyValue;
 import javafx.animation.Timeline;
 import javafx.application.Platform;
-import javafx.beans.InvalidationListener;
 import javafx.beans.property.*;
 import javafx.beans.value.ChangeListener;
 import javafx.collections.FXCollections;
@@ -43,10 +41,6 @@ import java.util.function.Consumer;
 import static dk.cs.aau.huppaal.presentations.CanvasPresentation.GRID_SIZE;
 
 public class EdgeController implements Initializable, SelectHelper.ItemSelectable {
-    private static final Map<Edge, Boolean> initializedEdgeFromTargetError = new HashMap<>();
-    private static final Map<Edge, Boolean> initializedEdgeToInitialError = new HashMap<>();
-    private static final Map<Edge, Boolean> initializedEdgeToForkError = new HashMap<>();
-    private static final Map<Edge, Boolean> initializedEdgeFromJoinError = new HashMap<>();
     private final ObservableList<Link> links = FXCollections.observableArrayList();
     private final ObjectProperty<Edge> edge = new SimpleObjectProperty<>();
     private final ObjectProperty<Component> component = new SimpleObjectProperty<>();
@@ -65,6 +59,9 @@ public class EdgeController implements Initializable, SelectHelper.ItemSelectabl
     public void initialize(final URL location, final ResourceBundle resources) {
         initializeNailCollapse();
 
+        // When zoomed far out the edge is drawn without its arrow head
+        simpleArrowHead.visibleProperty().bind(LevelOfDetailHelper.detailsShownProperty());
+
         edge.addListener((obsEdge, oldEdge, newEdge) -> {
             newEdge.targetCircularProperty().addListener(getNewTargetCircularListener(newEdge));
             newEdge.sourceCircularProperty().addListener(getNewSourceCircularListener(newEdge));
@@ -110,143 +107,6 @@ public class EdgeController implements Initializable, SelectHelper.ItemSelectabl
         });
     }
 
-    public void initializeEdgeErrorFromTargetLocation() {
-        if (initializedEdgeFromTargetError.containsKey(getEdge())) return; // Already initialized
-        initializedEdgeFromTargetError.put(getEdge(), true); // Set initialized
-
-        final CodeAnalysis.Message message = new CodeAnalysis.Message("Outgoing edges from a target location are not allowed", CodeAnalysis.MessageType.ERROR, getEdge());
-
-        final Consumer<Location> checkIfErrorIsPresent = (sourceLocation) -> {
-            if (sourceLocation != null
-                    && sourceLocation.getType().equals(Location.Type.FINAl)
-                    && getComponent().getEdges().contains(getEdge())
-                    && getEdge().getTargetCircular() != null) {
-
-
-                // Add the message to the UI
-                CodeAnalysis.addMessage(getComponent(), message);
-            } else {
-                // Remove the message from the UI
-                CodeAnalysis.removeMessage(getComponent(), message);
-            }
-        };
-
-        // When the source location is updated
-        getEdge().sourceLocationProperty().addListener((obs, oldSource, newSource) -> checkIfErrorIsPresent.accept(newSource));
-
-        // When the list of edges are updated
-        final InvalidationListener listener = observable -> checkIfErrorIsPresent.accept(getEdge().getSourceLocation());
-        getComponent().getEdges().addListener(listener);
-
-        // Check if the error is present right now
-        checkIfErrorIsPresent.accept(getEdge().getSourceLocation());
-    }
-
-    public void initializeEdgeErrorToInitialLocation() {
-        if (initializedEdgeToInitialError.containsKey(getEdge())) return; // Already initialized
-        initializedEdgeToInitialError.put(getEdge(), true); // Set initialized
-
-        final CodeAnalysis.Message message = new CodeAnalysis.Message("Incoming edges to an initial location are not allowed", CodeAnalysis.MessageType.ERROR, getEdge());
-
-        final Consumer<Location> checkIfErrorIsPresent = (targetLocation) -> {
-
-            if (targetLocation != null
-                    && targetLocation.getType().equals(Location.Type.INITIAL)
-                    && getComponent().getEdges().contains(getEdge())) {
-
-                // Add the message to the UI
-                CodeAnalysis.addMessage(getComponent(), message);
-            } else {
-                // Remove the message from the UI
-                CodeAnalysis.removeMessage(getComponent(), message);
-            }
-        };
-
-        // When the source location is updated
-        getEdge().targetLocationProperty().addListener((obs, oldTarget, newTarget) -> checkIfErrorIsPresent.accept(newTarget));
-
-        // When the list of edges are updated
-        final InvalidationListener listener = observable -> checkIfErrorIsPresent.accept(getEdge().getTargetLocation());
-        getComponent().getEdges().addListener(listener);
-
-        // Check if the error is present right now
-        checkIfErrorIsPresent.accept(getEdge().getTargetLocation());
-    }
-
-    public void initializeEdgeToForkError() {
-        if (initializedEdgeToForkError.containsKey(getEdge())) return; // Already initialized
-        initializedEdgeToForkError.put(getEdge(), true); // Set initialized
-
-        final CodeAnalysis.Message message = new CodeAnalysis.Message("Only subcomponents can run in parallel", CodeAnalysis.MessageType.ERROR, getEdge());
-
-        final Consumer<Edge> checkIfErrorIsPresent = (edge) -> {
-            if (edge != null // The edge is not null
-                    // The edge is not being drawn
-                    && !edge.equals(getComponent().getUnfinishedEdge())
-                    // The edge has a source jork
-                    && edge.getSourceJork() != null
-                    // The source jork is a fork
-                    && edge.getSourceJork().getType().equals(Jork.Type.FORK)
-                    // The jork does not have a sub component as its target
-                    && edge.getTargetSubComponent() == null
-                    // The edge is in the component (not deleted)
-                    && getComponent().getEdges().contains(edge)) {
-                // Add the message to the UI
-                CodeAnalysis.addMessage(getComponent(), message);
-            } else {
-                // Add the message to the UI
-                CodeAnalysis.removeMessage(getComponent(), message);
-            }
-        };
-
-        // When the target location is updated
-        getEdge().targetCircularProperty().addListener((obs, oldTarget, newTarget) -> checkIfErrorIsPresent.accept(getEdge()));
-
-        // When the list of edges are updated
-        final InvalidationListener listener = observable -> checkIfErrorIsPresent.accept(getEdge());
-        getComponent().getEdges().addListener(listener);
-
-        // Check if the error is present right now
-        checkIfErrorIsPresent.accept(getEdge());
-    }
-
-    public void initializeEdgeFromJoinError() {
-        if (initializedEdgeFromJoinError.containsKey(getEdge())) return; // Already initialized
-        initializedEdgeFromJoinError.put(getEdge(), true); // Set initialized
-
-        final CodeAnalysis.Message message = new CodeAnalysis.Message("Only subcomponents that are running in parallel can be joined", CodeAnalysis.MessageType.ERROR, getEdge());
-
-        final Consumer<Edge> checkIfErrorIsPresent = (edge) -> {
-            if (edge != null // The edge is not null
-                    // The edge is not being drawn
-                    && !edge.equals(getComponent().getUnfinishedEdge())
-                    // The edge has a target jork
-                    && edge.getTargetJork() != null
-                    // The target jork is a join
-                    && edge.getTargetJork().getType().equals(Jork.Type.JOIN)
-                    // The jork does not have a sub component as its source
-                    && edge.getSourceSubComponent() == null
-                    // The edge is in the component (not deleted)
-                    && getComponent().getEdges().contains(edge)) {
-                // Add the message to the UI
-                CodeAnalysis.addMessage(getComponent(), message);
-            } else {
-                // Add the message to the UI
-                CodeAnalysis.removeMessage(getComponent(), message);
-            }
-        };
-
-        // When the target location is updated
-        getEdge().targetCircularProperty().addListener((obs, oldTarget, newTarget) -> checkIfErrorIsPresent.accept(getEdge()));
-
-        // When the list of edges are updated
-        final InvalidationListener listener = observable -> checkIfErrorIsPresent.accept(getEdge());
-        getComponent().getEdges().addListener(listener);
-
-        // Check if the error is present right now
-        checkIfErrorIsPresent.accept(getEdge());
-    }
-
     private void ensureNailsInFront() {
 
         // When ever changes happens to the children of the edge root force nails in front and other elements to back
@@ -592,8 +452,8 @@ public class EdgeController implements Initializable, SelectHelper.ItemSelectabl
 
 
                     } else if ((event.isShiftDown() && event.isPrimaryButtonDown()) || event.isMiddleButtonDown()) {
-                        final double nailX = CanvasPresentation.mouseTracker.gridXProperty().subtract(getComponent().xProperty()).doubleValue();
-                        final double nailY = CanvasPresentation.mouseTracker.gridYProperty().subtract(getComponent().yProperty()).doubleValue();
+                        final double nailX = CanvasPresentation.mouseTracker.getGridX() - getComponent().getX();
+                        final double nailY = CanvasPresentation.mouseTracker.getGridY() - getComponent().getY();
 
                         final Nail newNail = new Nail(nailX, nailY);
 
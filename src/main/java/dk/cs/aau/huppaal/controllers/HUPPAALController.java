@@ -4,8 +4,11 @@ import dk.cs.aau.huppaal.Debug;
 import dk.cs.aau.huppaal.HUPPAAL;
 import dk.cs.aau.huppaal.abstractions.*;
 import dk.cs.aau.huppaal.backend.*;
+import dk.cs.aau.huppaal.code_analysis.AnalysisEngine;
 import dk.cs.aau.huppaal.code_analysis.CodeAnalysis;
+import dk.cs.aau.huppaal.code_analysis.StaticReachability;
 import dk.cs.aau.huppaal.presentations.*;
+import dk.cs.aau.huppaal.utility.DebouncedScheduler;
 import dk.cs.aau.huppaal.utility.UndoRedoStack;
 import dk.cs.aau.huppaal.utility.colors.Color;
 import dk.cs.aau.huppaal.utility.colors.EnabledColor;
@@ -15,6 +18,8 @@ import dk.cs.aau.huppaal.utility.keyboard.Keybind;
 import dk.cs.aau.huppaal.utility.keyboard.KeyboardTracker;
 import dk.cs.aau.huppaal.utility.keyboard.NudgeDirection;
 import dk.cs.aau.huppaal.utility.keyboard.Nudgeable;
+import dk.cs.aau.huppaal.utility.serialize.ProjectArchive;
+import dk.cs.aau.huppaal.utility.serialize.ProjectJournal;
 import com.jfoenix.controls.*;
 import javafx.animation.Interpolator;
 import javafx.animation.Transition;
@@ -45,15 +50,19 @@ import java.io.File;
 import java.io.IOException;
 import java.net.URL;
 import java.util.*;
+import java.util.concurrent.ExecutionException;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
+import java.util.concurrent.FutureTask;
 import java.util.function.Consumer;
 
 public class HUPPAALController implements Initializable {
 
     // Reachability analysis
     public static boolean reachabilityServiceEnabled = false;
-    private static long reachabilityTime = Long.MAX_VALUE;
+    private static final long REACHABILITY_QUIET_PERIOD = 5500; // ms
+    private static final String REACHABILITY_ANALYSIS = "reachability";
+    private static final DebouncedScheduler<String> reachabilityScheduler = new DebouncedScheduler<>("Reachability analysis");
     private static ExecutorService reachabilityService;
 
     // View stuff
@@ -113,6 +122,7 @@ public class HUPPAALController implements Initializable {
     public MenuItem menuBarPreferencesUppaalLocation;
     public MenuItem menuBarFileNew;
     public MenuItem menuBarFileOpenProject;
+    public MenuItem menuBarFileOpenProjectArchive;
     public MenuItem menuBarFileSave;
     public MenuItem menuBarFileSaveAs;
     public MenuItem menuBarFileExport;
@@ -138,10 +148,23 @@ public class HUPPAALController implements Initializable {
     private double tabPanePreviousY = 0;
     private boolean shouldISkipOpeningTheMessagesContainer = true;
 
+    /**
+     * Runs the reachability analysis once the model has been left unchanged for a while
+     */
     public static void runReachabilityAnalysis() {
         if (!reachabilityServiceEnabled) return;
 
-        reachabilityTime = System.currentTimeMillis() + 500;
+        reachabilityScheduler.schedule(REACHABILITY_ANALYSIS, REACHABILITY_QUIET_PERIOD, HUPPAALController::startReachabilityAnalysis);
+    }
+
+    /**
+     * Runs the reachability analysis right away, call after changes that should not wait for the quiet period
+     */
+    public static void runReachabilityAnalysisNow() {
+        if (!reachabilityServiceEnabled) return;
+
+        runReachabilityAnalysis();
+        reachabilityScheduler.flush(REACHABILITY_ANALYSIS);
     }
 
     @Override
@@ -246,8 +269,6 @@ public class HUPPAALController implements Initializable {
         initializeNoMainComponentError();
         initializeUppalFileNotFoundWarning();
 
-        initializeReachabilityAnalysisThread();
-
         //Adds a tooltip to the generateUppaalModelButton if UPPAAL was not found
         IUPPAALDriver uppaalDriver = UPPAALDriverManager.getInstance();
         if(uppaalDriver instanceof DummyUPPAALDriver){
@@ -260,90 +281,138 @@ public class HUPPAALController implements Initializable {
         ZoomHelper.setCanvas(canvas);
     }
 
-    private void initializeReachabilityAnalysisThread() {
-        new Thread(() -> {
-            while (true) {
-
-                // Wait for the reachability (the last time we changed the model) becomes smaller than the current time with a 5 second delay
-                while (reachabilityTime > System.currentTimeMillis() - 5000) {
-                    try {
-                        Thread.sleep(2000);
-                        Debug.backgroundThreads.removeIf(thread -> !thread.isAlive());
-                    } catch (InterruptedException e) {
-                        e.printStackTrace();
-                    }
-                }
+    /**
+     * Cancels any ongoing reachability analysis and starts a new one (runs on the reachability scheduler)
+     */
+    private static void startReachabilityAnalysis() {
+        // Cancel any ongoing analysis
+        if (reachabilityService != null) {
+            reachabilityService.shutdownNow();
+        }
 
-                // We are now performing the analysis. Do not do another analysis before another change is introduced
-                reachabilityTime = Long.MAX_VALUE;
+        // Start new analysis
+        reachabilityService = Executors.newFixedThreadPool(10);
 
-                // Cancel any ongoing analysis
-                if (reachabilityService != null) {
-                    reachabilityService.shutdownNow();
-                }
+        // Forget the queries that ended without removing their thread, and stop the rest (the list is guarded by Debug)
+        synchronized (Debug.class) {
+            Debug.backgroundThreads.removeIf(thread -> !thread.isAlive());
+            while (Debug.backgroundThreads.size() > 0) {
+                final Thread thread = Debug.backgroundThreads.get(0);
+                thread.interrupt();
+                Debug.removeThread(thread);
+            }
+        }
 
-                // Start new analysis
-                reachabilityService = Executors.newFixedThreadPool(10);
+        // Decide what we can without the engine (the model and the messages are only read on the FX thread)
+        final FutureTask<Boolean> errorCheck = new FutureTask<>(AnalysisEngine::hasVerificationErrors);
+        final FutureTask<Map<Component, Set<Location>>> staticCheck = new FutureTask<>(HUPPAALController::findStaticallyReachableLocations);
+        Platform.runLater(() -> {
+            errorCheck.run();
+            staticCheck.run();
+        });
 
-                while (Debug.backgroundThreads.size() > 0) {
-                    final Thread thread = Debug.backgroundThreads.get(0);
-                    thread.interrupt();
-                    Debug.removeThread(thread);
-                }
+        final boolean hasVerificationErrors;
+        final Map<Component, Set<Location>> reachableLocations;
+        try {
+            hasVerificationErrors = errorCheck.get();
+            reachableLocations = staticCheck.get();
+        } catch (final InterruptedException | ExecutionException e) {
+            e.printStackTrace();
+            return;
+        }
 
-                try {
-                    // Make sure that the model is generated
-                    UPPAALDriverManager.getInstance().buildHUPPAALDocument();
+        // There is no main component, so there is nothing to verify
+        if (reachableLocations == null) return;
 
-                    HUPPAAL.getProject().getQueries().forEach(query -> {
-                        if (query.isPeriodic()) query.run();
-                    });
+        // The engine would reject the model, so every query would fail
+        if (hasVerificationErrors) {
+            setReachabilityUnknown();
+            return;
+        }
 
-                    // List of threads to start
-                    List<Thread> threads = new ArrayList<>();
+        try {
+            // Make sure that the model is generated
+            UPPAALDriverManager.getInstance().buildHUPPAALDocument();
+        } catch (final BackendException e) {
+            // Something went wrong with creating the document, so the engine would not be able to tell us anything
+            e.printStackTrace();
+            setReachabilityUnknown();
+            return;
+        } catch (final Exception ignored) {
+            // The main component is null. Ignore.
+            return;
+        }
 
-                    // Submit all background reachability queries
-                    HUPPAAL.getProject().getComponents().forEach(component -> {
-                        // Check if we should consider this component
-                        if (!component.isIncludeInPeriodicCheck()) {
-                            component.getLocationsWithInitialAndFinal().forEach(location -> location.setReachability(Location.Reachability.EXCLUDED));
-                        } else {
-                            component.getLocationsWithInitialAndFinal().forEach(location -> {
-                                final String locationReachableQuery = UPPAALDriverManager.getInstance().getLocationReachableQuery(location, component);
-                                final Thread verifyThread = UPPAALDriverManager.getInstance().runQuery(
-                                        locationReachableQuery,
-                                        (result -> {
-                                            if (result) {
-                                                location.setReachability(Location.Reachability.REACHABLE);
-                                            } else {
-                                                location.setReachability(Location.Reachability.UNREACHABLE);
-                                            }
-                                            Debug.removeThread(Thread.currentThread());
-                                        }),
-                                        (e) -> {
-                                            location.setReachability(Location.Reachability.UNKNOWN);
-                                            Debug.removeThread(Thread.currentThread());
-                                        },
-                                        2000
-                                );
-
-                                verifyThread.setName(locationReachableQuery + " (" + verifyThread.getName() + ")");
-                                Debug.addThread(verifyThread);
-                                threads.add(verifyThread);
-                            });
-                        }
-                    });
+        HUPPAAL.getProject().getQueries().forEach(query -> {
+            if (query.isPeriodic()) query.run();
+        });
 
-                    threads.forEach((verifyThread) -> reachabilityService.submit(verifyThread::start));
+        // List of threads to start
+        List<Thread> threads = new ArrayList<>();
 
-                } catch (final BackendException e) {
-                    // Something went wrong with creating the document
-                    e.printStackTrace();
-                } catch (final Exception ignored) {
-                    // The main component is null. Ignore.
-                }
+        // Submit all background reachability queries
+        HUPPAAL.getProject().getComponents().forEach(component -> {
+            // Check if we should consider this component
+            if (!component.isIncludeInPeriodicCheck()) {
+                component.getLocationsWithInitialAndFinal().forEach(location -> location.setReachability(Location.Reachability.EXCLUDED));
+            } else {
+                // The locations reached without the engine (null if the main component never enters the component)
+                final Set<Location> componentReachableLocations = reachableLocations.get(component);
+
+                component.getLocationsWithInitialAndFinal().forEach(location -> {
+                    // No edges lead to the location, so there is no need to ask the engine
+                    if (componentReachableLocations != null && !componentReachableLocations.contains(location)) {
+                        location.setReachability(Location.Reachability.UNREACHABLE);
+                        return;
+                    }
+
+                    final String locationReachableQuery = UPPAALDriverManager.getInstance().getLocationReachableQuery(location, component);
+                    final Thread verifyThread = UPPAALDriverManager.getInstance().runQuery(
+                            locationReachableQuery,
+                            (result -> {
+                                if (result) {
+                                    location.setReachability(Location.Reachability.REACHABLE);
+                                } else {
+                                    location.setReachability(Location.Reachability.UNREACHABLE);
+                                }
+                                Debug.removeThread(Thread.currentThread());
+                            }),
+                            (e) -> {
+                                location.setReachability(Location.Reachability.UNKNOWN);
+                                Debug.removeThread(Thread.currentThread());
+                            },
+                            2000
+                    );
+
+                    verifyThread.setName(locationReachableQuery + " (" + verifyThread.getName() + ")");
+                    Debug.addThread(verifyThread);
+                    threads.add(verifyThread);
+                });
             }
-        }).start();
+        });
+
+        threads.forEach((verifyThread) -> reachabilityService.submit(verifyThread::start));
+    }
+
+    /**
+     * Marks the locations as unknown (or excluded) without asking the engine
+     */
+    private static void setReachabilityUnknown() {
+        HUPPAAL.getProject().getComponents().forEach(component -> {
+            final Location.Reachability reachability = component.isIncludeInPeriodicCheck() ? Location.Reachability.UNKNOWN : Location.Reachability.EXCLUDED;
+            component.getLocationsWithInitialAndFinal().forEach(location -> location.setReachability(reachability));
+        });
+    }
+
+    /**
+     * The locations that the edges lead to from the initial location of the main component, for each component it
+     * enters, or null if there is no main component
+     */
+    private static Map<Component, Set<Location>> findStaticallyReachableLocations() {
+        final Component mainComponent = HUPPAAL.getProject().getMainComponent();
+        if (mainComponent == null) return null;
+
+        return StaticReachability.findReachableLocations(mainComponent);
     }
 
     private void initializeStatusBar() {
@@ -384,8 +453,7 @@ public class HUPPAALController implements Initializable {
             if(newMain == null) {
                 CodeAnalysis.addMessage(null, noMainComponentErrorMessage);
             } else {
-                HUPPAALController.runReachabilityAnalysis();
-                ComponentController.setLastChanged();
+                HUPPAALController.runReachabilityAnalysisNow();
                 CodeAnalysis.removeMessage(null, noMainComponentErrorMessage);
             }
         });
@@ -410,13 +478,12 @@ public class HUPPAALController implements Initializable {
             //Set the project directory to the temporary location to handle save correctly later (will not save anything to the directory)
             HUPPAAL.projectDirectory.set(HUPPAAL.temporaryProjectDirectory);
 
-            //Clear the errors, warning, and loaded project
-            CodeAnalysis.getBackendErrors().clear();
-            CodeAnalysis.getErrors().clear();
-            CodeAnalysis.getWarnings().clear();
+            //Clear the errors and loaded project (the warnings and errors of the components are removed together with the components)
+            CodeAnalysis.clearBackendErrors();
             HUPPAAL.getProject().getQueries().clear();
             HUPPAAL.getProject().getComponents().clear();
             HUPPAAL.getProject().setMainComponent(null);
+            ProjectJournal.startTracking(HUPPAAL.projectDirectory.get(), false);
         });
 
         menuBarFileOpenProject.setAccelerator(new KeyCodeCombination(KeyCode.O, KeyCombination.SHORTCUT_DOWN));
@@ -445,6 +512,26 @@ public class HUPPAALController implements Initializable {
             }
         });
 
+        menuBarFileOpenProjectArchive.setOnAction(event -> {
+            // Dialog title
+            final FileChooser archivePicker = new FileChooser();
+            archivePicker.setTitle("Open project archive");
+            archivePicker.getExtensionFilters().add(
+                    new FileChooser.ExtensionFilter("Project archive", "*" + ProjectArchive.EXTENSION)
+            );
+
+            // Prompt the user to find a file (will halt the UI thread)
+            final File file = archivePicker.showOpenDialog(root.getScene().getWindow());
+            if(file != null) {
+                try {
+                    HUPPAAL.projectDirectory.set(file.getAbsolutePath());
+                    HUPPAAL.initializeProjectFolder();
+                } catch (final IOException e) {
+                    e.printStackTrace();
+                }
+            }
+        });
+
         menuBarFileSave.setAccelerator(new KeyCodeCombination(KeyCode.S, KeyCombination.SHORTCUT_DOWN));
         menuBarFileSave.setOnAction(event -> {
             //Check if the current project is an unsaved new project
@@ -464,13 +551,14 @@ public class HUPPAALController implements Initializable {
 
             //Open dialog at project location if it exists and is not an unsaved new project (added to avoid exception if the current project directory has been deleted during execution)
             File currentProject = new File(HUPPAAL.projectDirectory.getValue());
-            if(currentProject.exists() && !HUPPAAL.projectDirectory.getValue().equals(HUPPAAL.temporaryProjectDirectory)){
+            if(currentProject.isDirectory() && !HUPPAAL.projectDirectory.getValue().equals(HUPPAAL.temporaryProjectDirectory)){
                 filePicker.setInitialDirectory(currentProject);
             }
 
             // Prompt the user to find a location and give a project name (will halt the UI thread)
             final File file = filePicker.showSaveDialog(root.getScene().getWindow());
             if(file != null) {
+                // A name ending in the archive extension saves the project as a single project archive file
                 HUPPAAL.projectDirectory.set(file.getAbsolutePath());
                 HUPPAAL.save();
             }
@@ -500,7 +588,8 @@ public class HUPPAALController implements Initializable {
             );
 
             // If the file does not exist, we must be running it from a development environment, use a default location
-            locationPicker.setInitialDirectory(new File(HUPPAAL.projectDirectory.getValue()));
+            final File projectLocation = new File(HUPPAAL.projectDirectory.getValue());
+            locationPicker.setInitialDirectory(projectLocation.isDirectory() ? projectLocation : projectLocation.getParentFile());
 
             // Prompt the user to find a file (will halt the UI thread)
             final File file = locationPicker.showSaveDialog(root.getScene().getWindow());
@@ -3,7 +3,6 @@ package dk.cs.aau.huppaal.controllers;
 import dk.cs.aau.huppaal.HUPPAAL;
 import dk.cs.aau.huppaal.abstractions.*;
 import dk.cs.aau.huppaal.backend.UPPAALDriverManager;
-import dk.cs.aau.huppaal.code_analysis.CodeAnalysis;
 import dk.cs.aau.huppaal.code_analysis.Nearable;
 import dk.cs.aau.huppaal.presentations.ComponentPresentation;
 import dk.cs.aau.huppaal.presentations.DropDownMenu;
@@ -21,7 +20,6 @@ import com.jfoenix.controls.JFXPopup;
 import javafx.beans.property.*;
 import javafx.beans.value.ObservableDoubleValue;
 import javafx.collections.ListChangeListener;
-import javafx.fxml.FXML;
 import javafx.fxml.Initializable;
 import javafx.scene.Cursor;
 import javafx.scene.Group;
@@ -44,7 +42,6 @@ import static dk.cs.aau.huppaal.presentations.CanvasPresentation.GRID_SIZE;
 
 public class LocationController implements Initializable, SelectHelper.ItemSelectable, Nudgeable {
 
-    private static final Map<Location, Boolean> invalidNameError = new HashMap<>();
 
     private final ObjectProperty<Location> location = new SimpleObjectProperty<>();
     private final ObjectProperty<Component> component = new SimpleObjectProperty<>();
@@ -227,30 +224,6 @@ public class LocationController implements Initializable, SelectHelper.ItemSelec
         }
     }
 
-    public void initializeInvalidNameError() {
-        final Location location = getLocation();
-        if (invalidNameError.containsKey(location)) return;
-        invalidNameError.put(location, true);
-
-        final CodeAnalysis.Message invalidNickName = new CodeAnalysis.Message("Nicknames for locations must be alpha-numeric", CodeAnalysis.MessageType.ERROR, location);
-
-        final Consumer<String> updateNickNameCheck = (nickname) -> {
-            if (!nickname.matches("[A-Za-z0-9_-]*$")) {
-                // Invalidate the list (will update the UI with the new name)
-                invalidNickName.getNearables().remove(location);
-                invalidNickName.getNearables().add(location);
-                CodeAnalysis.addMessage(getComponent(), invalidNickName);
-            } else {
-                CodeAnalysis.removeMessage(getComponent(), invalidNickName);
-            }
-        };
-
-        location.nicknameProperty().addListener((obs, oldNickName, newNickName) -> {
-            updateNickNameCheck.accept(newNickName);
-        });
-        updateNickNameCheck.accept(location.getNickname());
-    }
-
     public Location getLocation() {
         return location.get();
     }
@@ -286,18 +259,7 @@ public class LocationController implements Initializable, SelectHelper.ItemSelec
         return component;
     }
 
-    @FXML
-    private void locationEntered() {
-        ((LocationPresentation) root).animateLocationEntered();
-    }
-
-    @FXML
-    private void locationExited() {
-        ((LocationPresentation) root).animateLocationExited();
-    }
-
-    @FXML
-    private void mouseEntered() {
+    public void mouseEntered() {
         final LocationPresentation locationPresentation = (LocationPresentation) this.root;
 
         if(!locationPresentation.isInteractable()) return;
@@ -346,8 +308,7 @@ public class LocationController implements Initializable, SelectHelper.ItemSelec
         }));
     }
 
-    @FXML
-    private void mouseExited() {
+    public void mouseExited() {
         final LocationPresentation locationPresentation = (LocationPresentation) this.root;
         if(!locationPresentation.isInteractable()) return;
 
@@ -5,7 +5,6 @@ import dk.cs.aau.huppaal.abstractions.Component;
 import dk.cs.aau.huppaal.abstractions.Edge;
 import dk.cs.aau.huppaal.abstractions.Jork;
 import dk.cs.aau.huppaal.abstractions.SubComponent;
-import dk.cs.aau.huppaal.code_analysis.CodeAnalysis;
 import dk.cs.aau.huppaal.code_analysis.Nearable;
 import dk.cs.aau.huppaal.presentations.CanvasPresentation;
 import dk.cs.aau.huppaal.presentations.ComponentPresentation;
@@ -21,7 +20,6 @@ import dk.cs.aau.huppaal.utility.keyboard.NudgeDirection;
 import dk.cs.aau.huppaal.utility.keyboard.Nudgeable;
 import com.jfoenix.controls.JFXPopup;
 import com.jfoenix.controls.JFXTextField;
-import javafx.beans.InvalidationListener;
 import javafx.beans.property.DoubleProperty;
 import javafx.beans.property.ObjectProperty;
 import javafx.beans.property.SimpleDoubleProperty;
@@ -41,15 +39,11 @@ import javafx.scene.shape.Line;
 import javafx.scene.shape.Rectangle;
 
 import java.net.URL;
-import java.util.HashMap;
 import java.util.List;
-import java.util.Map;
 import java.util.ResourceBundle;
-import java.util.function.Consumer;
 
 public class SubComponentController implements Initializable, SelectHelper.ItemSelectable, Nudgeable {
 
-    private static final Map<SubComponent, Boolean> initializedInconsistentEdgeError = new HashMap<>();
 
     private final ObjectProperty<SubComponent> subComponent = new SimpleObjectProperty<>(null);
     private final ObjectProperty<Component> parentComponent = new SimpleObjectProperty<>(null);
@@ -118,11 +112,9 @@ public class SubComponentController implements Initializable, SelectHelper.ItemS
                     UndoRedoStack.push(() -> { // Perform
                         getSubComponent().setComponent(c);
                         HUPPAALController.runReachabilityAnalysis();
-                        ComponentController.setLastChanged();
                     }, () -> { // Undo
                         getSubComponent().setComponent(oldComponent);
                         HUPPAALController.runReachabilityAnalysis();
-                        ComponentController.setLastChanged();
                     }, "Updated component for  subcomponent '" + getSubComponent().toString() + "' to component '" + c.getName() + "'", "edit");
                 });
             }
@@ -170,108 +162,6 @@ public class SubComponentController implements Initializable, SelectHelper.ItemS
         });
     }
 
-    public void initializeInconsistentEdgeError() {
-        if (initializedInconsistentEdgeError.containsKey(getSubComponent())) return; // Already initialized
-        initializedInconsistentEdgeError.put(getSubComponent(), true); // Set initialized
-
-        final CodeAnalysis.Message onlyOneTypeOfStarters = new CodeAnalysis.Message("Subcomponents can not be started both in parallel and sequentially", CodeAnalysis.MessageType.ERROR, getSubComponent());
-        final CodeAnalysis.Message onlyOneFork = new CodeAnalysis.Message("Subcomponents can only be started by once, and only by a single fork", CodeAnalysis.MessageType.ERROR, getSubComponent());
-
-        final CodeAnalysis.Message onlyOneTypeOfFinishers = new CodeAnalysis.Message("Subcomponents can not end in both a join and locations", CodeAnalysis.MessageType.ERROR, getSubComponent());
-        final CodeAnalysis.Message onlyOneJoin = new CodeAnalysis.Message("Subcomponents can only be joined once, and only by a single join", CodeAnalysis.MessageType.ERROR, getSubComponent());
-
-
-        final Consumer<SubComponent> checkForInconsistentIncoming = (subComponent) -> {
-            if (subComponent != null) { // The subComponent is not null
-
-                // Get all incoming edges for the sub component
-                final List<Edge> incomingEdges = getParentComponent().getIncomingEdges(subComponent);
-
-                // Count the amount of forks to this sub component
-                int forks = 0;
-                for (final Edge edge : incomingEdges) {
-                    if (edge.getSourceJork() != null && edge.getSourceJork().getType().equals(Jork.Type.FORK)) {
-                        forks++;
-                    }
-                }
-
-                // If the component is started by multiple forks
-                if (forks > 1) {
-                    // Add the message to the UI
-                    CodeAnalysis.addMessage(getParentComponent(), onlyOneFork);
-                } else {
-                    // Remove the message from the UI
-                    CodeAnalysis.removeMessage(getParentComponent(), onlyOneFork);
-                }
-
-                // If there are inconsistent edges (eg from fork and a location)
-                if (incomingEdges.size() > forks && forks != 0) {
-                    // Add the message to the UI
-                    CodeAnalysis.addMessage(getParentComponent(), onlyOneTypeOfStarters);
-                } else {
-                    // Remove the message from the UI
-                    CodeAnalysis.removeMessage(getParentComponent(), onlyOneTypeOfStarters);
-                }
-
-            } else {
-                // Remove the messages
-                CodeAnalysis.removeMessage(getParentComponent(), onlyOneTypeOfStarters);
-                CodeAnalysis.removeMessage(getParentComponent(), onlyOneFork);
-            }
-        };
-
-        final Consumer<SubComponent> checkForInconsistentOutgoingEdges = (subComponent) -> {
-            if (subComponent != null) { // The subComponent is not null
-
-                // Get all outgoing edges for the sub component
-                final List<Edge> outGoingEdges = getParentComponent().getOutGoingEdges(subComponent);
-
-                // Count the amount of joins to this sub component
-                int joins = 0;
-                for (final Edge edge : outGoingEdges) {
-                    if (edge.getTargetJork() != null && edge.getTargetJork().getType().equals(Jork.Type.JOIN)) {
-                        joins++;
-                    }
-                }
-
-                // If the component is started by multiple joins
-                if (joins > 1) {
-                    // Add the message to the UI
-                    CodeAnalysis.addMessage(getParentComponent(), onlyOneJoin);
-                } else {
-                    // Remove the message from the UI
-                    CodeAnalysis.removeMessage(getParentComponent(), onlyOneJoin);
-                }
-
-                // If there are inconsistent edges (eg to join and a location)
-                if (outGoingEdges.size() > joins && joins != 0) {
-                    // Add the message to the UI
-                    CodeAnalysis.addMessage(getParentComponent(), onlyOneTypeOfFinishers);
-                } else {
-                    // Remove the message from the UI
-                    CodeAnalysis.removeMessage(getParentComponent(), onlyOneTypeOfFinishers);
-                }
-
-            } else {
-                // Remove the messages
-                CodeAnalysis.removeMessage(getParentComponent(), onlyOneTypeOfFinishers);
-                CodeAnalysis.removeMessage(getParentComponent(), onlyOneJoin);
-            }
-        };
-
-        final Consumer<SubComponent> checkIfErrorIsPresent = (subComponent) -> {
-            checkForInconsistentIncoming.accept(subComponent);
-            checkForInconsistentOutgoingEdges.accept(subComponent);
-        };
-
-        // When the list of edges are updated
-        final InvalidationListener listener = observable -> checkIfErrorIsPresent.accept(getSubComponent());
-        getParentComponent().getEdges().addListener(listener);
-
-        // Check if the error is present right now
-        checkIfErrorIsPresent.accept(getSubComponent());
-    }
-
     private void makeDraggable() {
 
         root.addEventHandler(MouseEvent.MOUSE_PRESSED, event -> {
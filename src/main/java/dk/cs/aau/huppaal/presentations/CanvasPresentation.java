@@ -2,31 +2,42 @@ package dk.cs.aau.huppaal.presentations;
 
 import dk.cs.aau.huppaal.controllers.CanvasController;
 import dk.cs.aau.huppaal.utility.UndoRedoStack;
+import dk.cs.aau.huppaal.utility.colors.Color;
 import dk.cs.aau.huppaal.utility.helpers.CanvasDragHelper;
+import dk.cs.aau.huppaal.utility.helpers.LevelOfDetailHelper;
 import dk.cs.aau.huppaal.utility.helpers.MouseTrackable;
 import dk.cs.aau.huppaal.utility.helpers.ZoomHelper;
 import dk.cs.aau.huppaal.utility.keyboard.Keybind;
 import dk.cs.aau.huppaal.utility.keyboard.KeyboardTracker;
 import dk.cs.aau.huppaal.utility.mouse.MouseTracker;
+import javafx.beans.InvalidationListener;
 import javafx.beans.property.DoubleProperty;
+import javafx.beans.property.ObjectProperty;
+import javafx.beans.property.ReadOnlyObjectProperty;
 import javafx.beans.property.SimpleDoubleProperty;
+import javafx.beans.property.SimpleObjectProperty;
 import javafx.fxml.FXMLLoader;
 import javafx.fxml.JavaFXBuilderFactory;
-import javafx.scene.Parent;
+import javafx.geometry.BoundingBox;
+import javafx.geometry.Bounds;
+import javafx.geometry.Point2D;
+import javafx.scene.canvas.Canvas;
+import javafx.scene.canvas.GraphicsContext;
 import javafx.scene.input.*;
 import javafx.scene.layout.Pane;
-import javafx.scene.shape.Line;
-import javafx.stage.Screen;
+import javafx.scene.transform.Scale;
 
 import java.io.IOException;
 import java.net.URL;
-import java.util.ArrayList;
 
 public class CanvasPresentation extends Pane implements MouseTrackable {
 
     public static final int GRID_SIZE = 10;
     public static MouseTracker mouseTracker;
 
+    // The part of the canvas that is shown on the screen (in the coordinates of the canvas)
+    private static final ObjectProperty<Bounds> visibleArea = new SimpleObjectProperty<>(null);
+
     private final DoubleProperty x = new SimpleDoubleProperty(0);
     private final DoubleProperty y = new SimpleDoubleProperty(0);
 
@@ -57,6 +68,9 @@ public class CanvasPresentation extends Pane implements MouseTrackable {
 
             initializeGrid();
 
+            // Draw less of the model when zoomed out
+            scaleXProperty().addListener((obs, oldScale, newScale) -> LevelOfDetailHelper.setScale(newScale.doubleValue()));
+
             /*
 
             // Center on the component
@@ -81,11 +95,17 @@ public class CanvasPresentation extends Pane implements MouseTrackable {
         getChildren().add(grid);
         grid.toBack();
 
-        //When the translation coordinates are changed, make sure that it is handled for the grid as well
-        this.translateXProperty().addListener(((observable, oldValue, newValue) -> grid.handleTranslateX(oldValue.doubleValue(), newValue.doubleValue(), this.scaleXProperty().doubleValue())));
-        this.translateYProperty().addListener(((observable, oldValue, newValue) -> grid.handleTranslateY(oldValue.doubleValue(), newValue.doubleValue(), this.scaleYProperty().doubleValue())));
-
-        ZoomHelper.setGrid(grid);
+        // Redraw the visible part of the grid whenever the canvas is moved, zoomed or resized
+        final InvalidationListener redraw = observable -> {
+            grid.draw(this);
+            visibleArea.set(parentToLocal(new BoundingBox(getLayoutX(), getLayoutY(), getWidth(), getHeight())));
+        };
+        translateXProperty().addListener(redraw);
+        translateYProperty().addListener(redraw);
+        scaleXProperty().addListener(redraw);
+        scaleYProperty().addListener(redraw);
+        widthProperty().addListener(redraw);
+        heightProperty().addListener(redraw);
     }
 
     @Override
@@ -108,6 +128,10 @@ public class CanvasPresentation extends Pane implements MouseTrackable {
         return yProperty().get();
     }
 
+    public static ReadOnlyObjectProperty<Bounds> visibleAreaProperty() {
+        return visibleArea;
+    }
+
     public CanvasController getController() {
         return controller;
     }
@@ -117,73 +141,62 @@ public class CanvasPresentation extends Pane implements MouseTrackable {
         return mouseTracker;
     }
 
-    public static class Grid extends Parent {
+    /**
+     * The grid behind the components, with a line half a grid size from every multiple of the grid size.
+     * Only the part of the grid that is visible on the screen is drawn, and it is drawn in screen pixels (such that the
+     * lines stay one pixel wide at every zoom level)
+     */
+    public static class Grid extends Canvas {
 
-        private final ArrayList<Line> horizontalLines = new ArrayList<>();
-        private final ArrayList<Line> verticalLines = new ArrayList<>();
+        private static final javafx.scene.paint.Color LINE_COLOR = Color.GREY.getColor(Color.Intensity.I300);
+
+        private final int gridSize;
+
+        // Undoes the zoom of the canvas, such that the grid is drawn in screen pixels
+        private final Scale unzoom = new Scale(1, 1, 0, 0);
 
         public Grid(final int gridSize) {
-            //The screen size in GridSlices multiplied by 3 to ensure that the screen is still covered when zoomed out
-            int screenWidthInGridSlices = (int) (Screen.getPrimary().getBounds().getWidth() - (Screen.getPrimary().getBounds().getWidth() % gridSize)) * 3;
-            int screenHeightInGridSlices = (int) (Screen.getPrimary().getBounds().getHeight() - (Screen.getPrimary().getBounds().getHeight() % gridSize)) * 3;
-
-            setTranslateX(gridSize * 0.5);
-            setTranslateY(gridSize * 0.5);
-
-            // When the scene changes (goes from null to something)
-            sceneProperty().addListener((observable, oldScene, newScene) -> {
-                // When the width of this scene is being updated
-                newScene.widthProperty().addListener((observable1, oldWidth, newWidth) -> {
-                    // Remove old lines
-                    while (!verticalLines.isEmpty()) {
-                        final Line removeLine = verticalLines.get(0);
-                        getChildren().remove(removeLine);
-                        verticalLines.remove(removeLine);
-                    }
-
-                    // Add new lines to cover the screen, even when zoomed out
-                    int i = -screenWidthInGridSlices;
-                    while (i * gridSize - gridSize < screenWidthInGridSlices) {
-                        Line line = new Line(i * gridSize, -screenHeightInGridSlices, i * gridSize, screenHeightInGridSlices);
-                        line.getStyleClass().add("grid-line");
-
-                        verticalLines.add(line);
-                        i++;
-                    }
-                    verticalLines.forEach(line -> getChildren().add(line));
-                });
-
-                // When the height of this scene is being updated
-                newScene.heightProperty().addListener((observable1, oldHeight, newHeight) -> {
-                    // Remove old lines
-                    while (!horizontalLines.isEmpty()) {
-                        final Line removeLine = horizontalLines.get(0);
-                        getChildren().remove(removeLine);
-                        horizontalLines.remove(removeLine);
-                    }
-
-                    // Add new lines to cover the screen, even when zoomed out
-                    int i = -screenHeightInGridSlices;
-                    while (i * gridSize - gridSize < screenHeightInGridSlices) {
-                        Line line = new Line(-screenWidthInGridSlices, i * gridSize, screenWidthInGridSlices, i * gridSize);
-                        line.getStyleClass().add("grid-line");
-
-                        horizontalLines.add(line);
-                        i++;
-                    }
-                    horizontalLines.forEach(line -> getChildren().add(line));
-                });
-            });
-        }
+            this.gridSize = gridSize;
+            getTransforms().add(unzoom);
 
-        public void handleTranslateX(double oldValue, double newValue, double scale) {
-            //Move the grid in the opposite direction of the canvas drag, to keep its location on screen
-            this.setTranslateX(this.getTranslateX() + (newValue - oldValue) / -scale);
+            // The grid follows the visible area, it should not affect the size of the canvas
+            setManaged(false);
         }
 
-        public void handleTranslateY(double oldValue, double newValue, double scale) {
-            //Move the grid in the opposite direction of the canvas drag, to keep its location on screen
-            this.setTranslateY(this.getTranslateY() + (newValue - oldValue) / -scale);
+        /**
+         * Covers the area of the screen that the canvas is shown in, and draws the grid lines within it
+         */
+        private void draw(final CanvasPresentation canvas) {
+            final double scale = canvas.getScaleX();
+            final Point2D topLeft = canvas.parentToLocal(canvas.getLayoutX(), canvas.getLayoutY());
+
+            setLayoutX(topLeft.getX());
+            setLayoutY(topLeft.getY());
+            unzoom.setX(1 / scale);
+            unzoom.setY(1 / scale);
+            setWidth(canvas.getWidth());
+            setHeight(canvas.getHeight());
+
+            final GraphicsContext context = getGraphicsContext2D();
+            context.clearRect(0, 0, getWidth(), getHeight());
+            context.setStroke(LINE_COLOR);
+            context.setLineWidth(1);
+
+            final double spacing = gridSize * scale;
+
+            // The first line to the right of and below the top left corner (in screen pixels from the corner)
+            final double firstX = (Math.ceil((topLeft.getX() - gridSize * 0.5) / gridSize) * gridSize + gridSize * 0.5 - topLeft.getX()) * scale;
+            final double firstY = (Math.ceil((topLeft.getY() - gridSize * 0.5) / gridSize) * gridSize + gridSize * 0.5 - topLeft.getY()) * scale;
+
+            // Lines are drawn through the middle of the pixels to keep them sharp
+            for (double x = firstX; x < getWidth(); x += spacing) {
+                final double pixelX = Math.round(x) + 0.5;
+                context.strokeLine(pixelX, 0, pixelX, getHeight());
+            }
+            for (double y = firstY; y < getHeight(); y += spacing) {
+                final double pixelY = Math.round(y) + 0.5;
+                context.strokeLine(0, pixelY, getWidth(), pixelY);
+            }
         }
     }
 }
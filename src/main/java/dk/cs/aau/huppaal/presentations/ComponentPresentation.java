@@ -2,6 +2,8 @@ package dk.cs.aau.huppaal.presentations;
 
 import dk.cs.aau.huppaal.abstractions.Component;
 import dk.cs.aau.huppaal.abstractions.Location;
+import dk.cs.aau.huppaal.code_analysis.declarations.Declarations;
+import dk.cs.aau.huppaal.code_analysis.declarations.Token;
 import dk.cs.aau.huppaal.controllers.CanvasController;
 import dk.cs.aau.huppaal.controllers.ComponentController;
 import dk.cs.aau.huppaal.utility.UndoRedoStack;
@@ -37,7 +39,6 @@ import java.util.Collections;
 import java.util.List;
 import java.util.function.BiConsumer;
 import java.util.function.Supplier;
-import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
 import static dk.cs.aau.huppaal.presentations.CanvasPresentation.GRID_SIZE;
@@ -56,12 +57,6 @@ public class ComponentPresentation extends StackPane implements MouseTrackable,
     private static final int GROUP_ATTRIBUTE_NAME = 1;
     private static final int GROUP_EQUAL_SYMBOL = 2;
     private static final int GROUP_ATTRIBUTE_VALUE = 3;
-    private static final String uppaalKeywords = "clock|chan|urgent|broadcast";
-    private static final String cKeywords = "auto|bool|break|case|char|const|continue|default|do|double|else|enum|extern|float|for|goto|if|int|long|register|return|short|signed|sizeof|static|struct|switch|typedef|union|unsigned|void|volatile|while";
-    private static final Pattern UPPAAL = Pattern.compile(""
-            + "(?<uppaalKeywords>" + uppaalKeywords + ")"
-            + "|(?<cKeuwords>" + cKeywords + ")"
-            + "|(?<comment>//.*|(\"(?:\\\\[^\"]|\\\\\"|.)*?\")|(?s)/\\*.*?\\*/)");
 
     private final ComponentController controller;
     private final List<BiConsumer<Color, Color.Intensity>> updateColorDelegates = new ArrayList<>();
@@ -121,9 +116,7 @@ public class ComponentPresentation extends StackPane implements MouseTrackable,
                 onUpdateSize.run();
             });
 
-            controller.declaration.textProperty().addListener((obs, oldText, newText) -> {
-                controller.declaration.setStyleSpans(0, computeHighlighting(newText));
-            });
+            new DeclarationsHighlighter(controller.declaration, component::getParsedDeclarations);
 
         } catch (final IOException ioe) {
             throw new IllegalStateException(ioe);
@@ -239,26 +232,46 @@ public class ComponentPresentation extends StackPane implements MouseTrackable,
         disappearAnimation.play();
     }
 
-    public static StyleSpans<Collection<String>> computeHighlighting(final String text) {
-        final Matcher matcher = UPPAAL.matcher(text);
-        int lastKwEnd = 0;
+    /**
+     * The styles of the characters from (inclusive) to (exclusive) of the declarations
+     */
+    public static StyleSpans<Collection<String>> computeHighlighting(final Declarations declarations, final int from, final int to) {
+        final List<Token> tokens = declarations.getTokens();
         final StyleSpansBuilder<Collection<String>> spansBuilder = new StyleSpansBuilder<>();
-        while (matcher.find()) {
-
-            spansBuilder.add(Collections.emptyList(), matcher.start() - lastKwEnd);
+        int lastTokenEnd = from;
+
+        // Find the first token that ends inside of the range
+        int low = 0, high = tokens.size();
+        while (low < high) {
+            final int middle = (low + high) >>> 1;
+            if (tokens.get(middle).getEnd() <= from) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
 
-            if (matcher.group(1) != null) {
-                spansBuilder.add(Collections.singleton("uppaal-keyword"), matcher.end(1) - matcher.start(1));
-            } else if (matcher.group(2) != null) {
-                spansBuilder.add(Collections.singleton("c-keyword"), matcher.end(2) - matcher.start(2));
-            } else if (matcher.group(3) != null) {
-                spansBuilder.add(Collections.singleton("comment"), matcher.end(3) - matcher.start(3));
+        for (int i = low; i < tokens.size() && tokens.get(i).getStart() < to; i++) {
+            final Token token = tokens.get(i);
+            final String style;
+            if (token.getType() == Token.Type.UPPAAL_KEYWORD) {
+                style = "uppaal-keyword";
+            } else if (token.getType() == Token.Type.C_KEYWORD) {
+                style = "c-keyword";
+            } else if (token.getType() == Token.Type.COMMENT || token.getType() == Token.Type.STRING) {
+                style = "comment";
+            } else {
+                continue;
             }
 
-            lastKwEnd = matcher.end();
+            final int start = Math.max(token.getStart(), from);
+            final int end = Math.min(token.getEnd(), to);
+            spansBuilder.add(Collections.emptyList(), start - lastTokenEnd);
+            spansBuilder.add(Collections.singleton(style), end - start);
+            lastTokenEnd = end;
         }
 
-        spansBuilder.add(Collections.emptyList(), text.length() - lastKwEnd);
+        spansBuilder.add(Collections.emptyList(), to - lastTokenEnd);
         return spansBuilder.create();
     }
 
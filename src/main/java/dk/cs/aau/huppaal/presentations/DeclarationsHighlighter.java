@@ -0,0 +1,79 @@
+package dk.cs.aau.huppaal.presentations;
+
+import dk.cs.aau.huppaal.code_analysis.declarations.Declarations;
+import javafx.application.Platform;
+import javafx.scene.control.IndexRange;
+import org.fxmisc.richtext.StyleClassedTextArea;
+import org.fxmisc.richtext.model.StyleSpans;
+
+import java.util.Collection;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * Highlights the declarations in a text area.
+ * The highlighting is computed on a background thread, and only for the region whose tokens changed since the
+ * text area was last highlighted. If the text changes while the highlighting is computed, it is discarded.
+ */
+public class DeclarationsHighlighter {
+
+    private static final ExecutorService executor = Executors.newSingleThreadExecutor(runnable -> {
+        final Thread thread = new Thread(runnable, "Declarations highlighting");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private final StyleClassedTextArea textArea;
+    private final Supplier<Declarations> declarations;
+
+    private final AtomicLong generation = new AtomicLong(0);
+    private Future<?> pendingHighlighting = null;
+
+    // The declarations as they are currently highlighted in the text area (null if nothing is highlighted yet)
+    private volatile Declarations highlighted = null;
+
+    /**
+     * @param declarations supplies the parsed declarations of the current text of the text area
+     */
+    public DeclarationsHighlighter(final StyleClassedTextArea textArea, final Supplier<Declarations> declarations) {
+        this.textArea = textArea;
+        this.declarations = declarations;
+
+        textArea.textProperty().addListener((observable, oldText, newText) -> highlight(newText));
+        highlight(textArea.getText());
+    }
+
+    private void highlight(final String text) {
+        final long highlightGeneration = generation.incrementAndGet();
+
+        // The text has changed, so the highlighting being computed is stale
+        if (pendingHighlighting != null) {
+            pendingHighlighting.cancel(false);
+        }
+
+        pendingHighlighting = executor.submit(() -> {
+            if (generation.get() != highlightGeneration) return;
+
+            Declarations next = declarations.get();
+            if (!next.getText().equals(text)) {
+                next = highlighted != null ? highlighted.edit(text) : Declarations.of(text);
+            }
+
+            final IndexRange range = highlighted != null ? next.getChangedRange(highlighted) : new IndexRange(0, text.length());
+            final StyleSpans<Collection<String>> styleSpans = ComponentPresentation.computeHighlighting(next, range.getStart(), range.getEnd());
+
+            final Declarations highlightedDeclarations = next;
+            Platform.runLater(() -> {
+                if (generation.get() != highlightGeneration) return;
+
+                if (range.getLength() > 0) {
+                    textArea.setStyleSpans(range.getStart(), styleSpans);
+                }
+                highlighted = highlightedDeclarations;
+            });
+        });
+    }
+}
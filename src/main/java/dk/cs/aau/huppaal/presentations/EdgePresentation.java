@@ -5,13 +5,8 @@ import dk.cs.aau.huppaal.abstractions.Edge;
 import dk.cs.aau.huppaal.controllers.EdgeController;
 import javafx.beans.property.ObjectProperty;
 import javafx.beans.property.SimpleObjectProperty;
-import javafx.fxml.FXMLLoader;
-import javafx.fxml.JavaFXBuilderFactory;
 import javafx.scene.Group;
 
-import java.io.IOException;
-import java.net.URL;
-
 public class EdgePresentation extends Group {
 
     private final EdgeController controller;
@@ -20,32 +15,24 @@ public class EdgePresentation extends Group {
     private final ObjectProperty<Component> component = new SimpleObjectProperty<>();
 
     public EdgePresentation(final Edge edge, final Component component) {
-        final URL url = this.getClass().getResource("EdgePresentation.fxml");
-
-        final FXMLLoader fxmlLoader = new FXMLLoader();
-        fxmlLoader.setLocation(url);
-        fxmlLoader.setBuilderFactory(new JavaFXBuilderFactory());
-
-        try {
-            fxmlLoader.setRoot(this);
-            fxmlLoader.load(url.openStream());
-
-            controller = fxmlLoader.getController();
+        // Built in code rather than from FXML (the edge is only a group of links, parsing FXML for each is slow)
+        controller = new EdgeController();
+        controller.edgeRoot = new Group();
+        getChildren().add(controller.edgeRoot);
 
-            controller.setEdge(edge);
-            this.edge.bind(controller.edgeProperty());
+        setMouseTransparent(true);
+        setOnMousePressed(controller::edgePressed);
+        setOnDragDetected(controller::edgeDragged);
+        setOnMouseEntered(event -> controller.edgeEntered());
+        setOnMouseExited(event -> controller.edgeExited());
 
-            controller.setComponent(component);
-            this.component.bind(controller.componentProperty());
+        controller.initialize(null, null);
 
-            controller.initializeEdgeErrorFromTargetLocation();
-            controller.initializeEdgeErrorToInitialLocation();
-            controller.initializeEdgeToForkError();
-            controller.initializeEdgeFromJoinError();
+        controller.setEdge(edge);
+        this.edge.bind(controller.edgeProperty());
 
-        } catch (final IOException ioe) {
-            throw new IllegalStateException(ioe);
-        }
+        controller.setComponent(component);
+        this.component.bind(controller.componentProperty());
     }
 
 }
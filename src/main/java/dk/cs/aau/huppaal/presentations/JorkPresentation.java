@@ -19,8 +19,8 @@ import static dk.cs.aau.huppaal.presentations.CanvasPresentation.GRID_SIZE;
 
 public class JorkPresentation extends Group implements SelectHelper.Selectable {
 
-    public static final double JORK_WIDTH = GRID_SIZE * 6;
-    public static final double JORK_HEIGHT = GRID_SIZE;
+    public static final double JORK_WIDTH = Jork.WIDTH;
+    public static final double JORK_HEIGHT = Jork.HEIGHT;
     public static final double JORK_Y_TRANSLATE = 5;
     public static final double CORNER_SIZE = GRID_SIZE * 1.5;
 
@@ -108,4 +108,8 @@ public class JorkPresentation extends Group implements SelectHelper.Selectable {
         // Set the color
         initializeColor();
     }
+
+    public JorkController getController() {
+        return controller;
+    }
 }
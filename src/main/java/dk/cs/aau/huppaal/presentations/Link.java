@@ -2,6 +2,7 @@ package dk.cs.aau.huppaal.presentations;
 
 import dk.cs.aau.huppaal.Debug;
 import dk.cs.aau.huppaal.utility.colors.Color;
+import dk.cs.aau.huppaal.utility.helpers.LevelOfDetailHelper;
 import dk.cs.aau.huppaal.utility.helpers.SelectHelper;
 import javafx.beans.property.DoubleProperty;
 import javafx.beans.property.SimpleDoubleProperty;
@@ -50,6 +51,9 @@ public class Link extends Group implements SelectHelper.Selectable {
         // Style the hidden line
         hiddenHoverLine.setStrokeWidth(HOVER_LINE_STROKE_WIDTH);
 
+        // When zoomed far out the edge is only a plain line
+        hiddenHoverLine.visibleProperty().bind(LevelOfDetailHelper.detailsShownProperty());
+
         // Debug visuals
         hiddenHoverLine.setStroke(Debug.hoverableAreaColor.getColor(Debug.hoverableAreaColorIntensity));
         hiddenHoverLine.opacityProperty().bind(Debug.hoverableAreaOpacity);
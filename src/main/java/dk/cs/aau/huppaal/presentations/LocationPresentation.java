@@ -6,15 +6,13 @@ import dk.cs.aau.huppaal.controllers.CanvasController;
 import dk.cs.aau.huppaal.controllers.LocationController;
 import dk.cs.aau.huppaal.utility.colors.Color;
 import dk.cs.aau.huppaal.utility.helpers.BindingHelper;
+import dk.cs.aau.huppaal.utility.helpers.LevelOfDetailHelper;
 import dk.cs.aau.huppaal.utility.helpers.MouseTrackable;
 import dk.cs.aau.huppaal.utility.helpers.SelectHelper;
 import dk.cs.aau.huppaal.utility.mouse.MouseTracker;
 import javafx.animation.*;
 import javafx.beans.NamedArg;
-import javafx.beans.binding.DoubleBinding;
 import javafx.beans.property.*;
-import javafx.fxml.FXMLLoader;
-import javafx.fxml.JavaFXBuilderFactory;
 import javafx.scene.Group;
 import javafx.scene.control.Label;
 import javafx.scene.effect.DropShadow;
@@ -22,36 +20,36 @@ import javafx.scene.layout.StackPane;
 import javafx.scene.shape.*;
 import javafx.util.Duration;
 
-import java.io.IOException;
-import java.net.URL;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Objects;
 import java.util.function.BiConsumer;
 import java.util.function.Consumer;
 import java.util.function.Function;
+import java.util.stream.Stream;
 
 import static javafx.util.Duration.millis;
 
 public class LocationPresentation extends Group implements MouseTrackable, SelectHelper.Selectable {
 
-    public static final double RADIUS = 15;
+    public static final double RADIUS = Location.RADIUS;
     public static final double INITIAL_RADIUS = RADIUS / 4 * 3;
     private static int id = 0;
     private final LocationController controller;
     private final MouseTracker mouseTracker = new MouseTracker(this);
-    private final Timeline initialAnimation = new Timeline();
-    private final Timeline hoverAnimationEntered = new Timeline();
-    private final Timeline hoverAnimationExited = new Timeline();
-    private final Timeline hiddenAreaAnimationEntered = new Timeline();
-    private final Timeline hiddenAreaAnimationExited = new Timeline();
-    private final Timeline scaleShakeIndicatorBackgroundAnimation = new Timeline();
-    private final Timeline shakeContentAnimation = new Timeline();
+    private static final Interpolator INTERPOLATOR = Interpolator.SPLINE(0.645, 0.045, 0.355, 1);
+    // The animations are created the first time they are played (most locations are never hovered, shaken or warned)
+    private Timeline initialAnimation = null;
+    private Timeline hoverAnimationEntered = null;
+    private Timeline hoverAnimationExited = null;
+    private Timeline scaleShakeIndicatorBackgroundAnimation = null;
+    private Timeline shakeContentAnimation = null;
+    private Timeline shakeDeleteAnimation = null;
     private final List<BiConsumer<Color, Color.Intensity>> updateColorDelegates = new ArrayList<>();
-    private final DoubleProperty animation = new SimpleDoubleProperty(0);
-    private final DoubleBinding reverseAnimation = new SimpleDoubleProperty(1).subtract(animation);
+    // How far the not committed shapes are morphed from a circle (0) to an octagon (1)
+    private double morph = 0;
     private final boolean interactable;
     private BooleanProperty isPlaced = new SimpleBooleanProperty(true);
-    private Timeline shakeDeleteAnimation = new Timeline();
 
     public LocationPresentation(@NamedArg("initial") final String initial) {
         this(initialHelpDialogLocation(initial), null, false);
@@ -63,41 +61,97 @@ public class LocationPresentation extends Group implements MouseTrackable, Selec
 
     public LocationPresentation(final Location location, final Component component, final boolean interactable) {
         this.interactable = interactable;
-        final URL url = this.getClass().getResource("LocationPresentation.fxml");
 
-        final FXMLLoader fxmlLoader = new FXMLLoader();
-        fxmlLoader.setLocation(url);
-        fxmlLoader.setBuilderFactory(new JavaFXBuilderFactory());
+        controller = new LocationController();
+        initializeChildren();
+        controller.initialize(null, null);
 
-        try {
-            fxmlLoader.setRoot(this);
-            fxmlLoader.load(url.openStream());
+        // Bind the component with the one of the controller
+        controller.setComponent(component);
 
-            controller = fxmlLoader.getController();
-
-            // Bind the component with the one of the controller
-            controller.setComponent(component);
+        // Bind the location with the one of the controller
+        controller.setLocation(location);
 
-            // Bind the location with the one of the controller
-            controller.setLocation(location);
+        initializeIdLabel();
+        initializeTypeGraphics();
+        initializeLocationShapes();
+        initializeTags();
+        initializeCircle();
+        initializeReachabilityStyle();
+        initializeLevelOfDetail();
+    }
+
+    private void initializeChildren() {
+        // Built in code rather than from FXML (a component can have thousands of locations, parsing FXML for each is slow)
+        controller.root = this;
+
+        // This circle makes the dropdown menu crisp
+        final Circle dropDownMenuCircle = new Circle(20);
+        dropDownMenuCircle.setMouseTransparent(true);
+        dropDownMenuCircle.setOpacity(0);
+
+        controller.nameTagLine = TagPresentation.createTagLine();
+        controller.nicknameTag = new TagPresentation();
+        controller.nicknameTag.setTranslateX(30);
+        controller.nicknameTag.setTranslateY(-10);
+
+        controller.invariantTagLine = TagPresentation.createTagLine();
+        controller.invariantTag = new TagPresentation();
+        controller.invariantTag.setTranslateX(30);
+        controller.invariantTag.setTranslateY(10);
+
+        final Group tags = new Group(dropDownMenuCircle, controller.nameTagLine, controller.nicknameTag,
+                controller.invariantTagLine, controller.invariantTag);
+
+        controller.reachabilityStatus = new Circle();
+        controller.reachabilityStatus.setStrokeType(StrokeType.OUTSIDE);
+
+        // Circular location aware
+        controller.circle = new Circle();
+        controller.circle.setStrokeType(StrokeType.INSIDE);
+        controller.circle.setOpacity(0);
+
+        controller.circleShakeIndicator = new Circle(10, javafx.scene.paint.Color.WHITE);
+        controller.circleShakeIndicator.setMouseTransparent(true);
+        controller.circleShakeIndicator.setOpacity(0);
+
+        // The transformable location shape
+        controller.notCommittedShape = new Path();
+        controller.notCommittedShape.setStrokeType(StrokeType.INSIDE);
+        controller.committedShape = new Rectangle();
+        controller.committedShape.setStrokeType(StrokeType.INSIDE);
+
+        final Line crossLine1 = new Line(8, -8, -8, 8);
+        final Line crossLine2 = new Line(-8, -8, 8, 8);
+        crossLine1.setStyle("-fx-stroke: white;");
+        crossLine2.setStyle("-fx-stroke: white;");
+        controller.finalIndicator = new StackPane(crossLine1, crossLine2);
+        controller.finalIndicator.setMouseTransparent(true);
+        controller.finalIndicator.setTranslateX(-8);
+        controller.finalIndicator.setTranslateY(-8);
+
+        // The initial indicator
+        controller.notCommittedInitialIndicator = new Path();
+        controller.committedInitialIndicator = new Rectangle();
+        for (final Shape initialIndicator : new Shape[]{controller.notCommittedInitialIndicator, controller.committedInitialIndicator}) {
+            initialIndicator.setStrokeType(StrokeType.INSIDE);
+            initialIndicator.setStyle("-fx-stroke: -white; -fx-fill: transparent;");
+            initialIndicator.setMouseTransparent(true);
+        }
 
-            controller.initializeInvalidNameError();
+        controller.idLabel = new Label();
+        controller.idLabel.getStyleClass().add("sub-caption");
+        controller.idLabel.setMouseTransparent(true);
 
-            initializeIdLabel();
-            initializeTypeGraphics();
-            initializeLocationShapes();
-            initializeTags();
-            initializeInitialAnimation();
-            initializeHoverAnimationEntered();
-            initializeHoverAnimationExited();
-            initializeDeleteShakeAnimation();
-            initializeShakeAnimation();
-            initializeCircle();
-            initializeReachabilityStyle();
+        controller.shakeContent = new Group(controller.finalIndicator, controller.notCommittedInitialIndicator,
+                controller.committedInitialIndicator, controller.idLabel);
+        controller.scaleContent = new Group(controller.reachabilityStatus, controller.circle,
+                controller.circleShakeIndicator, controller.notCommittedShape, controller.committedShape,
+                controller.shakeContent);
+        controller.scaleContent.setOnMouseEntered(event -> controller.mouseEntered());
+        controller.scaleContent.setOnMouseExited(event -> controller.mouseExited());
 
-        } catch (final IOException ioe) {
-            throw new IllegalStateException(ioe);
-        }
+        getChildren().addAll(tags, controller.scaleContent);
     }
 
     private static Location initialHelpDialogLocation(final String initial) {
@@ -145,7 +199,7 @@ public class LocationPresentation extends Group implements MouseTrackable, Selec
         final Consumer<Location.Reachability> updateReachability = (reachability) -> {
             if(reachability == null) return;
 
-            final Interpolator interpolator = Interpolator.SPLINE(0.645, 0.045, 0.355, 1);
+            final Interpolator interpolator = INTERPOLATOR;
 
             // Shrink previous indicator
             final Timeline shrinkAnimation = new Timeline();
@@ -178,7 +232,17 @@ public class LocationPresentation extends Group implements MouseTrackable, Selec
             updateReachability.accept(newReachability);
         });
 
-        updateReachability.accept(controller.getLocation().getReachability());
+        // Show the current reachability right away (animating it would create two timelines for every location)
+        final Location.Reachability reachability = controller.getLocation().getReachability();
+        if (reachability != null) {
+            controller.reachabilityStatus.setStroke(getColor.apply(reachability));
+            controller.reachabilityStatus.setStrokeWidth(getRadius.apply(reachability));
+        }
+    }
+
+    private void initializeLevelOfDetail() {
+        // When zoomed far out only the shape of the location is drawn (not its label and type indicators)
+        controller.shakeContent.visibleProperty().bind(LevelOfDetailHelper.detailsShownProperty());
     }
 
     private void initializeIdLabel() {
@@ -268,8 +332,8 @@ public class LocationPresentation extends Group implements MouseTrackable, Selec
             });
 
             // Update the visibility according to if the location have been placed
-            controller.nicknameTag.visibleProperty().bind(isPlaced);
-            controller.invariantTag.visibleProperty().bind(isPlaced);
+            controller.nicknameTag.visibleProperty().bind(isPlaced.and(LevelOfDetailHelper.tagsShownProperty()));
+            controller.invariantTag.visibleProperty().bind(isPlaced.and(LevelOfDetailHelper.tagsShownProperty()));
 
             location.nicknameProperty().addListener((obs, oldNickname, newNickname) -> updateVisibilityFromNickName.accept(newNickname));
             updateVisibilityFromNickName.accept(location.getNickname());
@@ -310,41 +374,48 @@ public class LocationPresentation extends Group implements MouseTrackable, Selec
 
     }
 
-    private void initializeHoverAnimationEntered() {
-        final Interpolator interpolator = Interpolator.SPLINE(0.645, 0.045, 0.355, 1);
+    private Timeline getHoverAnimationEntered() {
+        if (hoverAnimationEntered != null) return hoverAnimationEntered;
 
-        final KeyValue scale1x = new KeyValue(controller.scaleContent.scaleXProperty(), 1, interpolator);
-        final KeyValue scale2x = new KeyValue(controller.scaleContent.scaleXProperty(), 1.1, interpolator);
+        final KeyValue scale1x = new KeyValue(controller.scaleContent.scaleXProperty(), 1, INTERPOLATOR);
+        final KeyValue scale2x = new KeyValue(controller.scaleContent.scaleXProperty(), 1.1, INTERPOLATOR);
 
         final KeyFrame kf1 = new KeyFrame(Duration.millis(0), scale1x);
         final KeyFrame kf2 = new KeyFrame(Duration.millis(100), scale2x);
 
-        hoverAnimationEntered.getKeyFrames().addAll(kf1, kf2);
+        hoverAnimationEntered = new Timeline(kf1, kf2);
+        return hoverAnimationEntered;
     }
 
-    private void initializeHoverAnimationExited() {
-        final Interpolator interpolator = Interpolator.SPLINE(0.645, 0.045, 0.355, 1);
+    private Timeline getHoverAnimationExited() {
+        if (hoverAnimationExited != null) return hoverAnimationExited;
 
-        final KeyValue scale2x = new KeyValue(controller.scaleContent.scaleXProperty(), 1.1, interpolator);
-        final KeyValue scale1x = new KeyValue(controller.scaleContent.scaleXProperty(), 1, interpolator);
+        final KeyValue scale2x = new KeyValue(controller.scaleContent.scaleXProperty(), 1.1, INTERPOLATOR);
+        final KeyValue scale1x = new KeyValue(controller.scaleContent.scaleXProperty(), 1, INTERPOLATOR);
 
         final KeyFrame kf1 = new KeyFrame(Duration.millis(0), scale2x);
         final KeyFrame kf2 = new KeyFrame(Duration.millis(100), scale1x);
 
-        hoverAnimationExited.getKeyFrames().addAll(kf1, kf2);
+        hoverAnimationExited = new Timeline(kf1, kf2);
+        return hoverAnimationExited;
     }
 
-    private void initializeInitialAnimation() {
-        final Interpolator interpolator = Interpolator.SPLINE(0.645, 0.045, 0.355, 1);
-        final KeyValue scale0x = new KeyValue(controller.scaleContent.scaleXProperty(), 0, interpolator);
-        final KeyValue scale2x = new KeyValue(controller.scaleContent.scaleXProperty(), 1.1, interpolator);
-        final KeyValue scale1x = new KeyValue(controller.scaleContent.scaleXProperty(), 1, interpolator);
+    private Timeline getInitialAnimation() {
+        if (initialAnimation != null) return initialAnimation;
+
+        final KeyValue scale0x = new KeyValue(controller.scaleContent.scaleXProperty(), 0, INTERPOLATOR);
+        final KeyValue scale2x = new KeyValue(controller.scaleContent.scaleXProperty(), 1.1, INTERPOLATOR);
+        final KeyValue scale1x = new KeyValue(controller.scaleContent.scaleXProperty(), 1, INTERPOLATOR);
 
         final KeyFrame kf1 = new KeyFrame(Duration.millis(0), scale0x);
         final KeyFrame kf2 = new KeyFrame(Duration.millis(200), scale2x);
         final KeyFrame kf3 = new KeyFrame(Duration.millis(250), scale1x);
 
-        initialAnimation.getKeyFrames().addAll(kf1, kf2, kf3);
+        initialAnimation = new Timeline(kf1, kf2, kf3);
+
+        // Only played once, when the location is added
+        initialAnimation.setOnFinished(event -> initialAnimation = null);
+        return initialAnimation;
     }
 
     private void initializeCircle() {
@@ -376,8 +447,8 @@ public class LocationPresentation extends Group implements MouseTrackable, Selec
 
         final Rectangle committedShape = controller.committedShape;
 
-        // Bind sizes for shape that transforms between urgent and normal
-        initializeLocationShapes(notCommittedShape, RADIUS);
+        // Size of the shape that transforms between urgent and normal
+        setLocationShape(notCommittedShape, RADIUS, morph);
 
         // Bind sized for committed shape
         committedShape.setWidth(RADIUS * 2);
@@ -389,33 +460,29 @@ public class LocationPresentation extends Group implements MouseTrackable, Selec
 
 
         BiConsumer<Location.Urgency, Location.Urgency> updateUrgencies = (oldUrgency, newUrgency) -> {
-            final Transition toUrgent = new Transition() {
-                {
-                    setCycleDuration(Duration.millis(200));
-                }
-
-                @Override
-                protected void interpolate(final double frac) {
-                    animation.set(frac);
-                }
-            };
-
-            final Transition toNormal = new Transition() {
-                {
-                    setCycleDuration(Duration.millis(200));
-                }
-
-                @Override
-                protected void interpolate(final double frac) {
-                    animation.set(1-frac);
-                }
-            };
-
             if(oldUrgency.equals(Location.Urgency.NORMAL) && !newUrgency.equals(Location.Urgency.NORMAL)) {
-                toUrgent.play();
-
-            } else if(newUrgency.equals(Location.Urgency.NORMAL)) {
-                toNormal.play();
+                new Transition() {
+                    {
+                        setCycleDuration(Duration.millis(200));
+                    }
+
+                    @Override
+                    protected void interpolate(final double frac) {
+                        setMorph(frac);
+                    }
+                }.play();
+
+            } else if(!oldUrgency.equals(Location.Urgency.NORMAL) && newUrgency.equals(Location.Urgency.NORMAL)) {
+                new Transition() {
+                    {
+                        setCycleDuration(Duration.millis(200));
+                    }
+
+                    @Override
+                    protected void interpolate(final double frac) {
+                        setMorph(1 - frac);
+                    }
+                }.play();
             }
 
             if(newUrgency.equals(Location.Urgency.COMMITTED)) {
@@ -431,7 +498,11 @@ public class LocationPresentation extends Group implements MouseTrackable, Selec
             updateUrgencies.accept(oldUrgency, newUrgency);
         });
 
-        updateUrgencies.accept(Location.Urgency.NORMAL, location.getUrgency());
+        // Start in the shape of the current urgency (without animating every location in the component)
+        if (!location.getUrgency().equals(Location.Urgency.NORMAL)) {
+            setMorph(1);
+        }
+        updateUrgencies.accept(location.getUrgency(), location.getUrgency());
 
         // Update the colors
         final ObjectProperty<Color> color = location.colorProperty();
@@ -460,8 +531,8 @@ public class LocationPresentation extends Group implements MouseTrackable, Selec
 
         final Path notCommittedInitialIndicator = controller.notCommittedInitialIndicator;
 
-        // Bind visibility and size of not committed shape
-        initializeLocationShapes(notCommittedInitialIndicator, INITIAL_RADIUS);
+        // Bind visibility and set the size of not committed shape
+        setLocationShape(notCommittedInitialIndicator, INITIAL_RADIUS, morph);
         notCommittedInitialIndicator.visibleProperty().bind(location.typeProperty().isEqualTo(Location.Type.INITIAL).and(location.urgencyProperty().isNotEqualTo(Location.Urgency.COMMITTED)));
 
         final Rectangle committedInitialIndicator = controller.committedInitialIndicator;
@@ -484,39 +555,28 @@ public class LocationPresentation extends Group implements MouseTrackable, Selec
     }
 
     public void animateIn() {
-        initialAnimation.play();
+        getInitialAnimation().play();
     }
 
     public void animateHoverEntered() {
+        if (isShakeWarningRunning() || !interactable) return;
 
-        if (shakeContentAnimation.getStatus().equals(Animation.Status.RUNNING) || !interactable) return;
-
-        hoverAnimationEntered.play();
+        getHoverAnimationEntered().play();
     }
 
     public void animateHoverExited() {
-        if (shakeContentAnimation.getStatus().equals(Animation.Status.RUNNING) || !interactable) return;
-
-        hoverAnimationExited.play();
-    }
+        if (isShakeWarningRunning() || !interactable) return;
 
-    public void animateLocationEntered() {
-        hiddenAreaAnimationExited.stop();
-        hiddenAreaAnimationEntered.play();
+        getHoverAnimationExited().play();
     }
 
-    public void animateLocationExited() {
-        hiddenAreaAnimationEntered.stop();
-        hiddenAreaAnimationExited.play();
-    }
-
-    private void initializeDeleteShakeAnimation() {
-        final Interpolator interpolator = Interpolator.SPLINE(0.645, 0.045, 0.355, 1);
+    private Timeline getShakeDeleteAnimation() {
+        if (shakeDeleteAnimation != null) return shakeDeleteAnimation;
 
         final double startX = controller.scaleContent.getLayoutX();
-        final KeyValue kv1 = new KeyValue(controller.scaleContent.layoutXProperty(), startX - 3, interpolator);
-        final KeyValue kv2 = new KeyValue(controller.scaleContent.layoutXProperty(), startX + 3, interpolator);
-        final KeyValue kv3 = new KeyValue(controller.scaleContent.layoutXProperty(), startX, interpolator);
+        final KeyValue kv1 = new KeyValue(controller.scaleContent.layoutXProperty(), startX - 3, INTERPOLATOR);
+        final KeyValue kv2 = new KeyValue(controller.scaleContent.layoutXProperty(), startX + 3, INTERPOLATOR);
+        final KeyValue kv3 = new KeyValue(controller.scaleContent.layoutXProperty(), startX, INTERPOLATOR);
 
         final KeyFrame kf1 = new KeyFrame(millis(50), kv1);
         final KeyFrame kf2 = new KeyFrame(millis(100), kv2);
@@ -524,11 +584,12 @@ public class LocationPresentation extends Group implements MouseTrackable, Selec
         final KeyFrame kf4 = new KeyFrame(millis(200), kv2);
         final KeyFrame kf5 = new KeyFrame(millis(250), kv3);
 
-        shakeDeleteAnimation.getKeyFrames().addAll(kf1, kf2, kf3, kf4, kf5);
+        shakeDeleteAnimation = new Timeline(kf1, kf2, kf3, kf4, kf5);
+        return shakeDeleteAnimation;
     }
 
     public void shake() {
-        shakeDeleteAnimation.play();
+        getShakeDeleteAnimation().play();
     }
 
     @Override
@@ -569,15 +630,13 @@ public class LocationPresentation extends Group implements MouseTrackable, Selec
     }
 
     private void initializeShakeAnimation() {
-        final Interpolator interpolator = Interpolator.SPLINE(0.645, 0.045, 0.355, 1);
-
-        final KeyValue scale0x = new KeyValue(controller.scaleContent.scaleXProperty(), 1, interpolator);
-        final KeyValue radius0 = new KeyValue(controller.circleShakeIndicator.radiusProperty(), 0, interpolator);
-        final KeyValue opacity0 = new KeyValue(controller.circleShakeIndicator.opacityProperty(), 0, interpolator);
+        final KeyValue scale0x = new KeyValue(controller.scaleContent.scaleXProperty(), 1, INTERPOLATOR);
+        final KeyValue radius0 = new KeyValue(controller.circleShakeIndicator.radiusProperty(), 0, INTERPOLATOR);
+        final KeyValue opacity0 = new KeyValue(controller.circleShakeIndicator.opacityProperty(), 0, INTERPOLATOR);
 
-        final KeyValue scale1x = new KeyValue(controller.scaleContent.scaleXProperty(), 1.3, interpolator);
-        final KeyValue radius1 = new KeyValue(controller.circleShakeIndicator.radiusProperty(), controller.circle.getRadius() * 0.85, interpolator);
-        final KeyValue opacity1 = new KeyValue(controller.circleShakeIndicator.opacityProperty(), 0.2, interpolator);
+        final KeyValue scale1x = new KeyValue(controller.scaleContent.scaleXProperty(), 1.3, INTERPOLATOR);
+        final KeyValue radius1 = new KeyValue(controller.circleShakeIndicator.radiusProperty(), controller.circle.getRadius() * 0.85, INTERPOLATOR);
+        final KeyValue opacity1 = new KeyValue(controller.circleShakeIndicator.opacityProperty(), 0.2, INTERPOLATOR);
 
         final KeyFrame kf1 = new KeyFrame(Duration.millis(0), scale0x, radius0, opacity0);
         final KeyFrame kf2 = new KeyFrame(Duration.millis(2500), scale1x, radius1, opacity1);
@@ -585,11 +644,11 @@ public class LocationPresentation extends Group implements MouseTrackable, Selec
         final KeyFrame kf4 = new KeyFrame(Duration.millis(3500), scale0x);
         final KeyFrame kfEnd = new KeyFrame(Duration.millis(8000), (KeyValue) null);
 
-        scaleShakeIndicatorBackgroundAnimation.getKeyFrames().addAll(kf1, kf2, kf3, kf4, kfEnd);
+        scaleShakeIndicatorBackgroundAnimation = new Timeline(kf1, kf2, kf3, kf4, kfEnd);
 
-        final KeyValue noShakeX = new KeyValue(controller.shakeContent.translateXProperty(), 0, interpolator);
-        final KeyValue shakeLeftX = new KeyValue(controller.shakeContent.translateXProperty(), -1, interpolator);
-        final KeyValue shakeRightX = new KeyValue(controller.shakeContent.translateXProperty(), 1, interpolator);
+        final KeyValue noShakeX = new KeyValue(controller.shakeContent.translateXProperty(), 0, INTERPOLATOR);
+        final KeyValue shakeLeftX = new KeyValue(controller.shakeContent.translateXProperty(), -1, INTERPOLATOR);
+        final KeyValue shakeRightX = new KeyValue(controller.shakeContent.translateXProperty(), 1, INTERPOLATOR);
 
         final KeyFrame[] shakeFrames = {
                 new KeyFrame(Duration.millis(0), noShakeX),
@@ -616,17 +675,35 @@ public class LocationPresentation extends Group implements MouseTrackable, Selec
                 new KeyFrame(Duration.millis(8000), (KeyValue) null)
         };
 
-        shakeContentAnimation.getKeyFrames().addAll(shakeFrames);
+        shakeContentAnimation = new Timeline(shakeFrames);
 
         shakeContentAnimation.setCycleCount(1000);
         scaleShakeIndicatorBackgroundAnimation.setCycleCount(1000);
     }
 
+    private boolean isShakeWarningRunning() {
+        return shakeContentAnimation != null && shakeContentAnimation.getStatus().equals(Animation.Status.RUNNING);
+    }
+
+    /**
+     * The number of timelines the location currently holds (they are created when they are first played)
+     */
+    int getAnimationCount() {
+        return (int) Stream.of(initialAnimation, hoverAnimationEntered, hoverAnimationExited,
+                scaleShakeIndicatorBackgroundAnimation, shakeContentAnimation, shakeDeleteAnimation)
+                .filter(Objects::nonNull)
+                .count();
+    }
+
     public void animateShakeWarning(final boolean start) {
         if (start) {
+            if (shakeContentAnimation == null) {
+                initializeShakeAnimation();
+            }
+
             scaleShakeIndicatorBackgroundAnimation.play();
             shakeContentAnimation.play();
-        } else {
+        } else if (shakeContentAnimation != null) {
             controller.scaleContent.scaleXProperty().set(1);
             scaleShakeIndicatorBackgroundAnimation.playFromStart();
             scaleShakeIndicatorBackgroundAnimation.stop();
@@ -634,6 +711,10 @@ public class LocationPresentation extends Group implements MouseTrackable, Selec
             controller.circleShakeIndicator.setOpacity(0);
             shakeContentAnimation.playFromStart();
             shakeContentAnimation.stop();
+
+            // The warning animations are long, do not keep them around once the warning is gone
+            scaleShakeIndicatorBackgroundAnimation = null;
+            shakeContentAnimation = null;
         }
     }
 
@@ -655,79 +736,60 @@ public class LocationPresentation extends Group implements MouseTrackable, Selec
         return controller;
     }
 
-    private void initializeLocationShapes(final Path locationShape, final double radius) {
-        final double c = 0.551915024494;
-        final double circleToOctagonLineRatio = 0.35;
-
-        final MoveTo moveTo = new MoveTo();
-        moveTo.xProperty().bind(animation.multiply(circleToOctagonLineRatio * radius));
-        moveTo.yProperty().set(radius);
-
-        final CubicCurveTo cc1 = new CubicCurveTo();
-        cc1.controlX1Property().bind(reverseAnimation.multiply(c * radius).add(animation.multiply(circleToOctagonLineRatio * radius)));
-        cc1.controlY1Property().bind(reverseAnimation.multiply(radius).add(animation.multiply(radius)));
-        cc1.controlX2Property().bind(reverseAnimation.multiply(radius).add(animation.multiply(radius)));
-        cc1.controlY2Property().bind(reverseAnimation.multiply(c * radius).add(animation.multiply(circleToOctagonLineRatio * radius)));
-        cc1.setX(radius);
-        cc1.yProperty().bind(animation.multiply(circleToOctagonLineRatio * radius));
-
-
-        final LineTo lineTo1 = new LineTo();
-        lineTo1.xProperty().bind(cc1.xProperty());
-        lineTo1.yProperty().bind(cc1.yProperty().multiply(-1));
-
-        final CubicCurveTo cc2 = new CubicCurveTo();
-        cc2.controlX1Property().bind(cc1.controlX2Property());
-        cc2.controlY1Property().bind(cc1.controlY2Property().multiply(-1));
-        cc2.controlX2Property().bind(cc1.controlX1Property());
-        cc2.controlY2Property().bind(cc1.controlY1Property().multiply(-1));
-        cc2.xProperty().bind(moveTo.xProperty());
-        cc2.yProperty().bind(moveTo.yProperty().multiply(-1));
-
-
-        final LineTo lineTo2 = new LineTo();
-        lineTo2.xProperty().bind(cc2.xProperty().multiply(-1));
-        lineTo2.yProperty().bind(cc2.yProperty());
-
-        final CubicCurveTo cc3 = new CubicCurveTo();
-        cc3.controlX1Property().bind(cc2.controlX2Property().multiply(-1));
-        cc3.controlY1Property().bind(cc2.controlY2Property());
-        cc3.controlX2Property().bind(cc2.controlX1Property().multiply(-1));
-        cc3.controlY2Property().bind(cc2.controlY1Property());
-        cc3.xProperty().bind(lineTo1.xProperty().multiply(-1));
-        cc3.yProperty().bind(lineTo1.yProperty());
-
-
-        final LineTo lineTo3 = new LineTo();
-        lineTo3.xProperty().bind(cc3.xProperty());
-        lineTo3.yProperty().bind(cc3.yProperty().multiply(-1));
-
-        final CubicCurveTo cc4 = new CubicCurveTo();
-        cc4.controlX1Property().bind(cc3.controlX2Property());
-        cc4.controlY1Property().bind(cc3.controlY2Property().multiply(-1));
-        cc4.controlX2Property().bind(cc3.controlX1Property());
-        cc4.controlY2Property().bind(cc3.controlY1Property().multiply(-1));
-        cc4.xProperty().bind(lineTo2.xProperty());
-        cc4.yProperty().bind(lineTo2.yProperty().multiply(-1));
+    private void setMorph(final double morph) {
+        this.morph = morph;
 
+        setLocationShape(controller.notCommittedShape, RADIUS, morph);
+        setLocationShape(controller.notCommittedInitialIndicator, INITIAL_RADIUS, morph);
+    }
 
-        final LineTo lineTo4 = new LineTo();
-        lineTo4.xProperty().bind(moveTo.xProperty());
-        lineTo4.yProperty().bind(moveTo.yProperty());
+    /**
+     * Sets the elements of the path to a shape between a circle (morph 0) and an octagon (morph 1)
+     */
+    private static void setLocationShape(final Path locationShape, final double radius, final double morph) {
+        final double c = 0.551915024494;
+        final double circleToOctagonLineRatio = 0.35;
 
+        final List<PathElement> elements = locationShape.getElements();
+        if (elements.isEmpty()) {
+            elements.addAll(
+                    new MoveTo(), new CubicCurveTo(),
+                    new LineTo(), new CubicCurveTo(),
+                    new LineTo(), new CubicCurveTo(),
+                    new LineTo(), new CubicCurveTo(),
+                    new LineTo()
+            );
+        }
 
-        locationShape.getElements().add(moveTo);
-        locationShape.getElements().add(cc1);
+        // The end of the straight lines and the control points of the curves (the rest of the path is symmetric)
+        final double line = morph * circleToOctagonLineRatio * radius;
+        final double control = (1 - morph) * c * radius + line;
 
-        locationShape.getElements().add(lineTo1);
-        locationShape.getElements().add(cc2);
+        final MoveTo moveTo = (MoveTo) elements.get(0);
+        moveTo.setX(line);
+        moveTo.setY(radius);
 
-        locationShape.getElements().add(lineTo2);
-        locationShape.getElements().add(cc3);
+        setCurve((CubicCurveTo) elements.get(1), control, radius, radius, control, radius, line);
+        setLine((LineTo) elements.get(2), radius, -line);
+        setCurve((CubicCurveTo) elements.get(3), radius, -control, control, -radius, line, -radius);
+        setLine((LineTo) elements.get(4), -line, -radius);
+        setCurve((CubicCurveTo) elements.get(5), -control, -radius, -radius, -control, -radius, -line);
+        setLine((LineTo) elements.get(6), -radius, line);
+        setCurve((CubicCurveTo) elements.get(7), -radius, control, -control, radius, -line, radius);
+        setLine((LineTo) elements.get(8), line, radius);
+    }
 
-        locationShape.getElements().add(lineTo3);
-        locationShape.getElements().add(cc4);
+    private static void setCurve(final CubicCurveTo curve, final double controlX1, final double controlY1, final double controlX2, final double controlY2, final double x, final double y) {
+        curve.setControlX1(controlX1);
+        curve.setControlY1(controlY1);
+        curve.setControlX2(controlX2);
+        curve.setControlY2(controlY2);
+        curve.setX(x);
+        curve.setY(y);
+    }
 
-        locationShape.getElements().add(lineTo4);
+    private static void setLine(final LineTo lineTo, final double x, final double y) {
+        lineTo.setX(x);
+        lineTo.setY(y);
     }
 }
@@ -11,44 +11,47 @@ import dk.cs.aau.huppaal.controllers.CanvasController;
 import dk.cs.aau.huppaal.utility.helpers.SelectHelper;
 import javafx.beans.InvalidationListener;
 import javafx.collections.FXCollections;
-import javafx.fxml.FXMLLoader;
-import javafx.fxml.JavaFXBuilderFactory;
 import javafx.scene.Cursor;
 import javafx.scene.control.Label;
 import javafx.scene.layout.HBox;
 import javafx.scene.layout.Region;
 
-import java.io.IOException;
-import java.net.URL;
-
 public class MessagePresentation extends HBox {
 
     private final CodeAnalysis.Message message;
 
+    private final Label messageLabel = new Label();
+    private final Label nearLabel = new Label();
+    private final HBox nearLabels = new HBox();
+
     public MessagePresentation(final CodeAnalysis.Message message) {
         this.message = message;
 
-        final URL location = this.getClass().getResource("MessagePresentation.fxml");
+        // Initialize
+        initializeChildren();
+        initializeMessage();
+        initializeNearLabel();
+    }
+
+    private void initializeChildren() {
+        // Built in code rather than from FXML, a large model can have thousands of messages
+        setStyle("-fx-padding: 3;");
+
+        messageLabel.setId("messageLabel");
+        messageLabel.getStyleClass().add("body2");
 
-        final FXMLLoader fxmlLoader = new FXMLLoader();
-        fxmlLoader.setLocation(location);
-        fxmlLoader.setBuilderFactory(new JavaFXBuilderFactory());
+        final Region spacer = new Region();
+        spacer.setMinWidth(8);
 
-        try {
-            fxmlLoader.setRoot(this);
-            fxmlLoader.load(location.openStream());
+        nearLabel.setId("nearLabel");
+        nearLabel.getStyleClass().add("body1");
 
-            // Initialize
-            initializeMessage();
-            initializeNearLabel();
+        nearLabels.setId("nearLabels");
 
-        } catch (final IOException ioe) {
-            throw new IllegalStateException(ioe);
-        }
+        getChildren().addAll(messageLabel, spacer, nearLabel, nearLabels);
     }
 
     private void initializeMessage() {
-        final Label messageLabel = (Label) lookup("#messageLabel");
         messageLabel.textProperty().bind(message.messageProperty());
     }
 
@@ -56,7 +59,6 @@ public class MessagePresentation extends HBox {
         final InvalidationListener listener = observable -> {
             String nearString = "Near: ";
 
-            final HBox nearLabels = (HBox) lookup("#nearLabels");
             nearLabels.getChildren().clear(); // Remove all children currently in the container
 
             if (message.getNearables().size() == 0) {
@@ -126,7 +128,6 @@ public class MessagePresentation extends HBox {
                 }
             }
 
-            final Label nearLabel = (Label) lookup("#nearLabel");
             nearLabel.setText(nearString);
         };
 
@@ -6,19 +6,19 @@ import dk.cs.aau.huppaal.abstractions.Nail;
 import dk.cs.aau.huppaal.controllers.NailController;
 import dk.cs.aau.huppaal.utility.colors.Color;
 import dk.cs.aau.huppaal.utility.helpers.BindingHelper;
+import dk.cs.aau.huppaal.utility.helpers.LevelOfDetailHelper;
 import dk.cs.aau.huppaal.utility.helpers.SelectHelper;
 import javafx.animation.Interpolator;
 import javafx.animation.KeyFrame;
 import javafx.animation.KeyValue;
 import javafx.animation.Timeline;
-import javafx.fxml.FXMLLoader;
-import javafx.fxml.JavaFXBuilderFactory;
+import javafx.beans.property.BooleanProperty;
+import javafx.beans.property.SimpleBooleanProperty;
 import javafx.scene.Group;
 import javafx.scene.control.Label;
+import javafx.scene.shape.Circle;
 import javafx.scene.shape.Line;
 
-import java.io.IOException;
-import java.net.URL;
 import java.util.function.Consumer;
 
 import static javafx.util.Duration.millis;
@@ -32,35 +32,47 @@ public class NailPresentation extends Group implements SelectHelper.Selectable {
     private final Timeline shakeAnimation = new Timeline();
 
     public NailPresentation(final Nail nail, final Edge edge,final Component component) {
-        final URL url = this.getClass().getResource("NailPresentation.fxml");
+        controller = new NailController();
+        initializeChildren();
+        controller.initialize(null, null);
 
-        final FXMLLoader fxmlLoader = new FXMLLoader();
-        fxmlLoader.setLocation(url);
-        fxmlLoader.setBuilderFactory(new JavaFXBuilderFactory());
+        // Bind the component with the one of the controller
+        controller.setComponent(component);
 
-        try {
-            fxmlLoader.setRoot(this);
-            fxmlLoader.load(url.openStream());
+        // Bind the edge with the one of the controller
+        controller.setEdge(edge);
 
-            controller = fxmlLoader.getController();
+        // Bind the nail with the one of the controller
+        controller.setNail(nail);
 
-            // Bind the component with the one of the controller
-            controller.setComponent(component);
+        initializeNailCircleColor();
+        initializePropertyTag();
+        initializeRadius();
+        initializeShakeAnimation();
 
-            // Bind the edge with the one of the controller
-            controller.setEdge(edge);
+        // When zoomed far out edges are drawn without their nails
+        visibleProperty().bind(LevelOfDetailHelper.detailsShownProperty());
+    }
 
-            // Bind the nail with the one of the controller
-            controller.setNail(nail);
+    private void initializeChildren() {
+        // Built in code rather than from FXML (every edge has nails, parsing FXML for each is slow)
+        controller.root = this;
 
-            initializeNailCircleColor();
-            initializePropertyTag();
-            initializeRadius();
-            initializeShakeAnimation();
+        controller.propertyTagLine = TagPresentation.createTagLine();
+        controller.propertyTag = new TagPresentation();
+        controller.propertyTag.setTranslateX(10);
+        controller.propertyTag.setTranslateY(-10);
 
-        } catch (final IOException ioe) {
-            throw new IllegalStateException(ioe);
-        }
+        controller.dragCircle = new Circle(12.5);
+        controller.dragCircle.setOpacity(0);
+        controller.nailCircle = new Circle();
+
+        controller.propertyLabel = new Label();
+        controller.propertyLabel.getStyleClass().add("sub-caption-mono");
+        controller.propertyLabel.setTextFill(javafx.scene.paint.Color.WHITE);
+
+        controller.dragGroup = new Group(controller.dragCircle, controller.nailCircle, controller.propertyLabel);
+        getChildren().addAll(controller.propertyTagLine, controller.propertyTag, controller.dragGroup);
     }
 
     private void initializeRadius() {
@@ -91,16 +103,20 @@ public class NailPresentation extends Group implements SelectHelper.Selectable {
         // Bind the color of the tag to the color of the component
         propertyTag.bindToColor(controller.getComponent().colorProperty(), controller.getComponent().colorIntensityProperty());
 
+        // Only property nails have a tag, and only when zoomed in far enough
+        final BooleanProperty isPropertyNail = new SimpleBooleanProperty(false);
+        propertyTag.visibleProperty().bind(isPropertyNail.and(LevelOfDetailHelper.tagsShownProperty()));
+
         // Updates visibility and placeholder of the tag depending on the type of nail
         final Consumer<Edge.PropertyType> updatePropertyType = (propertyType) -> {
 
             // If it is not a property nail hide the tag otherwise show it and write proper placeholder
             if(propertyType.equals(Edge.PropertyType.NONE)) {
-                propertyTag.setVisible(false);
+                isPropertyNail.set(false);
             } else {
 
                 // Show the property tag since the nail is a property nail
-                propertyTag.setVisible(true);
+                isPropertyNail.set(true);
 
                 // Set and bind the location of the property tag
                 if((controller.getNail().getPropertyX() != 0) && (controller.getNail().getPropertyY() != 0)) {
@@ -222,4 +238,8 @@ public class NailPresentation extends Group implements SelectHelper.Selectable {
         controller.nailCircle.setStroke(color.getColor(intensity.next(2)));
 
     }
+
+    public NailController getController() {
+        return controller;
+    }
 }
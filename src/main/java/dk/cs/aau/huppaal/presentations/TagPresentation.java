@@ -12,19 +12,18 @@ import javafx.beans.property.ObjectProperty;
 import javafx.beans.property.SimpleObjectProperty;
 import javafx.beans.property.StringProperty;
 import javafx.beans.value.ObservableBooleanValue;
-import javafx.fxml.FXMLLoader;
-import javafx.fxml.JavaFXBuilderFactory;
 import javafx.geometry.Insets;
+import javafx.geometry.Pos;
 import javafx.scene.Cursor;
 import javafx.scene.Node;
 import javafx.scene.control.Label;
 import javafx.scene.layout.StackPane;
+import javafx.scene.shape.Line;
 import javafx.scene.shape.LineTo;
 import javafx.scene.shape.MoveTo;
 import javafx.scene.shape.Path;
+import javafx.scene.shape.StrokeType;
 
-import java.io.IOException;
-import java.net.URL;
 import java.util.function.BiConsumer;
 
 import static dk.cs.aau.huppaal.presentations.CanvasPresentation.GRID_SIZE;
@@ -38,6 +37,10 @@ public class TagPresentation extends StackPane {
     private final ObjectProperty<Component> component = new SimpleObjectProperty<>(null);
     private final ObjectProperty<LocationAware> locationAware = new SimpleObjectProperty<>(null);
 
+    private final Path shape = new Path();
+    private final Label label = new Label();
+    private final JFXTextField textField = new JFXTextField();
+
     private LineTo l2;
     private LineTo l3;
     private double previousX;
@@ -48,24 +51,40 @@ public class TagPresentation extends StackPane {
     private static double TAG_HEIGHT = 1.6 * GRID_SIZE;
 
     public TagPresentation() {
-        final URL location = this.getClass().getResource("TagPresentation.fxml");
+        initializeChildren();
+        initializeShape();
+        initializeLabel();
+        initializeMouseTransparency();
+        initializeTextFocusHandler();
+    }
 
-        final FXMLLoader fxmlLoader = new FXMLLoader();
-        fxmlLoader.setLocation(location);
-        fxmlLoader.setBuilderFactory(new JavaFXBuilderFactory());
+    /**
+     * The dashed line drawn from an element to its tag
+     */
+    public static Line createTagLine() {
+        final Line line = new Line();
+        line.setStrokeDashOffset(2);
+        line.getStrokeDashArray().addAll(3d, 3d);
+        line.setStroke(javafx.scene.paint.Color.web("#666"));
+        line.setMouseTransparent(true);
+        return line;
+    }
 
-        try {
-            fxmlLoader.setRoot(this);
-            fxmlLoader.load(location.openStream());
+    private void initializeChildren() {
+        // Built in code rather than from FXML, every location and nail has tags (parsing FXML for each is slow)
+        shape.setId("shape");
+        shape.setStrokeType(StrokeType.INSIDE);
 
-            initializeShape();
-            initializeLabel();
-            initializeMouseTransparency();
-            initializeTextFocusHandler();
+        label.setId("label");
+        label.getStyleClass().add("sub-caption");
+        label.setVisible(false);
 
-        } catch (final IOException ioe) {
-            throw new IllegalStateException(ioe);
-        }
+        textField.setId("textField");
+        textField.getStyleClass().add("sub-caption");
+        textField.setMouseTransparent(true);
+
+        getChildren().addAll(shape, label, textField);
+        getChildren().forEach(child -> StackPane.setAlignment(child, Pos.CENTER_LEFT));
     }
 
     private void initializeTextFocusHandler() {
@@ -84,8 +103,6 @@ public class TagPresentation extends StackPane {
     }
 
     private void initializeTextAid() {
-        final JFXTextField textField = (JFXTextField) lookup("#textField");
-
         textField.textProperty().addListener((obs, oldText, newText) -> {
             if (newText.contains(" ")) {
                 final String updatedString = newText.replace(" ", "_");
@@ -95,10 +112,6 @@ public class TagPresentation extends StackPane {
     }
 
     private void initializeLabel() {
-        final Label label = (Label) lookup("#label");
-        final JFXTextField textField = (JFXTextField) lookup("#textField");
-        final Path shape = (Path) lookup("#shape");
-
         final Insets insets = new Insets(0,2,0,2);
         textField.setPadding(insets);
         label.setPadding(insets);
@@ -150,8 +163,6 @@ public class TagPresentation extends StackPane {
         final int WIDTH = 5000;
         final double HEIGHT = TAG_HEIGHT;
 
-        final Path shape = (Path) lookup("#shape");
-
         final MoveTo start = new MoveTo(0, 0);
 
         l2 = new LineTo(WIDTH, 0);
@@ -164,7 +175,6 @@ public class TagPresentation extends StackPane {
         shape.setFill(backgroundColor.getColor(backgroundColorIntensity));
         shape.setStroke(backgroundColor.getColor(backgroundColorIntensity.next(4)));
 
-        final JFXTextField textField = (JFXTextField) lookup("#textField");
         shape.setCursor(Cursor.OPEN_HAND);
 
         shape.setOnMousePressed(event -> {
@@ -175,10 +185,10 @@ public class TagPresentation extends StackPane {
         shape.setOnMouseDragged(event -> {
             event.consume();
 
-            final double newX = CanvasPresentation.mouseTracker.gridXProperty().subtract(getComponent().xProperty()).subtract(getLocationAware().xProperty()).doubleValue() - getMinWidth() / 2;
+            final double newX = CanvasPresentation.mouseTracker.getGridX() - getComponent().getX() - getLocationAware().getX() - getMinWidth() / 2;
             setTranslateX(newX);
 
-            final double newY = CanvasPresentation.mouseTracker.gridYProperty().subtract(getComponent().yProperty()).subtract(getLocationAware().yProperty()).doubleValue() - getHeight() / 2;
+            final double newY = CanvasPresentation.mouseTracker.getGridY() - getComponent().getY() - getLocationAware().getY() - getHeight() / 2;
             setTranslateY(newY - 2);
 
             // Tell the mouse release action that we can store an update
@@ -259,13 +269,10 @@ public class TagPresentation extends StackPane {
 
     public void bindToColor(final ObjectProperty<Color> color, final ObjectProperty<Color.Intensity> intensity, final boolean doColorBackground) {
         final BiConsumer<Color, Color.Intensity> recolor = (newColor, newIntensity) -> {
-
-            final JFXTextField textField = (JFXTextField) lookup("#textField");
             textField.setUnFocusColor(TRANSPARENT);
             textField.setFocusColor(newColor.getColor(newIntensity));
 
             if (doColorBackground) {
-                final Path shape = (Path) lookup("#shape");
                 shape.setFill(newColor.getColor(newIntensity.next(-1)));
                 shape.setStroke(newColor.getColor(newIntensity.next(-1).next(2)));
 
@@ -284,15 +291,12 @@ public class TagPresentation extends StackPane {
     }
 
     public void setAndBindString(final StringProperty string) {
-        final JFXTextField textField = (JFXTextField) lookup("#textField");
-
         textField.textProperty().unbind();
         textField.setText(string.get());
         string.bind(textField.textProperty());
     }
 
     public void setPlaceholder(final String placeholder) {
-        final JFXTextField textField = (JFXTextField) lookup("#textField");
         textField.setPromptText(placeholder);
     }
 
@@ -301,12 +305,10 @@ public class TagPresentation extends StackPane {
     }
 
     public void requestTextFieldFocus() {
-        final JFXTextField textField = (JFXTextField) lookup("#textField");
         Platform.runLater(textField::requestFocus);
     }
 
     public ObservableBooleanValue textFieldFocusProperty() {
-        final JFXTextField textField = (JFXTextField) lookup("#textField");
         return textField.focusedProperty();
     }
 
@@ -0,0 +1,90 @@
+package dk.cs.aau.huppaal.utility;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Runs tasks once the changes that triggered them have settled.
+ * Scheduling a task postpones it until nothing has been scheduled for the same key for the quiet period, and replaces
+ * any task that is already waiting for that key. Tasks run on a single background thread of the scheduler.
+ *
+ * @param <K> the type of the keys that changes are coalesced by
+ */
+public class DebouncedScheduler<K> {
+
+    private final ScheduledThreadPoolExecutor executor;
+
+    // The task waiting for each key (guarded by this)
+    private final Map<K, PendingTask> pendingTasks = new HashMap<>();
+
+    public DebouncedScheduler(final String name) {
+        executor = new ScheduledThreadPoolExecutor(1, runnable -> {
+            final Thread thread = new Thread(runnable, name);
+            thread.setDaemon(true);
+            return thread;
+        });
+        executor.setRemoveOnCancelPolicy(true);
+    }
+
+    /**
+     * Runs the task when nothing else has been scheduled for the key for the quiet period (in ms)
+     */
+    public synchronized void schedule(final K key, final long quietPeriod, final Runnable task) {
+        final PendingTask previousTask = pendingTasks.remove(key);
+        if (previousTask != null) {
+            previousTask.future.cancel(false);
+        }
+
+        final PendingTask pendingTask = new PendingTask(task);
+        pendingTask.future = executor.schedule(() -> run(key, pendingTask), quietPeriod, TimeUnit.MILLISECONDS);
+        pendingTasks.put(key, pendingTask);
+    }
+
+    /**
+     * Runs the task waiting for the key (if any) right away instead of when its quiet period is over
+     */
+    public synchronized void flush(final K key) {
+        final PendingTask pendingTask = pendingTasks.get(key);
+        if (pendingTask == null) return;
+
+        pendingTask.future.cancel(false);
+        executor.execute(() -> run(key, pendingTask));
+    }
+
+    /**
+     * Forgets the task waiting for the key (if any)
+     */
+    public synchronized void cancel(final K key) {
+        final PendingTask pendingTask = pendingTasks.remove(key);
+        if (pendingTask != null) {
+            pendingTask.future.cancel(false);
+        }
+    }
+
+    private void run(final K key, final PendingTask pendingTask) {
+        synchronized (this) {
+            // The task has been replaced, cancelled or already run by a flush
+            if (pendingTasks.get(key) != pendingTask) return;
+            pendingTasks.remove(key);
+        }
+
+        try {
+            pendingTask.task.run();
+        } catch (final RuntimeException e) {
+            e.printStackTrace();
+        }
+    }
+
+    private static class PendingTask {
+
+        private final Runnable task;
+        private ScheduledFuture<?> future;
+
+        private PendingTask(final Runnable task) {
+            this.task = task;
+        }
+    }
+}
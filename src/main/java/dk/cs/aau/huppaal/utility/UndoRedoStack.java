@@ -2,7 +2,9 @@ package dk.cs.aau.huppaal.utility;
 
 import javafx.beans.property.SimpleBooleanProperty;
 
+import java.util.ArrayList;
 import java.util.EmptyStackException;
+import java.util.List;
 import java.util.Stack;
 import java.util.function.BiConsumer;
 
@@ -17,10 +19,17 @@ public class UndoRedoStack {
     private static BiConsumer<Stack<Command>, Stack<Command>> debugRunnable = (c1, c2) -> {
     };
 
+    // Notified after every change to the stacks (push, undo, redo and forget)
+    private static final List<Runnable> changeListeners = new ArrayList<>();
+
     public static void setDebugRunnable(final BiConsumer<Stack<Command>, Stack<Command>> debugRunnable) {
         UndoRedoStack.debugRunnable = debugRunnable;
     }
 
+    public static void addChangeListener(final Runnable listener) {
+        changeListeners.add(listener);
+    }
+
     public static Command push(final Runnable perform, final Runnable undo, final String description, final String icon) {
         final Command item = new Command(perform, undo, description, icon);
 
@@ -87,6 +96,7 @@ public class UndoRedoStack {
         }
 
         debugRunnable.accept(undoStack, redoStack);
+        changeListeners.forEach(Runnable::run);
     }
 
     public static boolean canUndo() {
@@ -7,12 +7,18 @@ import dk.cs.aau.huppaal.presentations.CanvasPresentation;
 import dk.cs.aau.huppaal.presentations.Link;
 import dk.cs.aau.huppaal.presentations.TagPresentation;
 import dk.cs.aau.huppaal.utility.mouse.MouseTracker;
+import javafx.animation.AnimationTimer;
+import javafx.beans.InvalidationListener;
+import javafx.beans.Observable;
+import javafx.beans.WeakInvalidationListener;
 import javafx.beans.binding.DoubleBinding;
 import javafx.beans.value.ObservableDoubleValue;
 import javafx.scene.input.MouseEvent;
 import javafx.scene.shape.Circle;
 import javafx.scene.shape.Line;
 
+import java.util.*;
+
 public class BindingHelper {
 
     public static void bind(final Line subject, final TagPresentation target) {
@@ -30,15 +36,16 @@ public class BindingHelper {
     }
 
     public static void bind(final Link lineSubject, final ArrowHead arrowHeadSubject, final Circular source, final Circular target) {
-        BindingHelper.bind(lineSubject, source, target);
-        BindingHelper.bind(arrowHeadSubject, source, target);
-        BindingHelper.bind(lineSubject, arrowHeadSubject);
+        LinkGeometry.attach(lineSubject, arrowHeadSubject, source, target, null, null);
     }
 
+    /**
+     * Binds the link (and arrow head) from the source to the mouse
+     * @param x the x coordinate the mouse is relative to (e.g. that of the component)
+     * @param y the y coordinate the mouse is relative to
+     */
     public static void bind(final Link lineSubject, final ArrowHead arrowHeadSubject, final Circular source, final ObservableDoubleValue x, final ObservableDoubleValue y) {
-        BindingHelper.bind(lineSubject, source, x, y);
-        BindingHelper.bind(arrowHeadSubject, source, x, y);
-        BindingHelper.bind(lineSubject, arrowHeadSubject);
+        LinkGeometry.attach(lineSubject, arrowHeadSubject, source, null, x, y);
     }
 
     public static void bind(final Link subject, final Circle source, final Circle target) {
@@ -64,25 +71,11 @@ public class BindingHelper {
     }
 
     public static void bind(final Link subject, final Circular source, final ObservableDoubleValue x, final ObservableDoubleValue y) {
-        // Calculate the bindings (so that the line will be based on the circle circumference instead of in its center)
-        final LineBinding lineBinding = LineBinding.getCircularBindings(source, CanvasPresentation.mouseTracker, x, y);
-
-        // Bind the subjects properties accordingly to our calculations
-        subject.startXProperty().bind(lineBinding.startX);
-        subject.startYProperty().bind(lineBinding.startY);
-        subject.endXProperty().bind(lineBinding.endX);
-        subject.endYProperty().bind(lineBinding.endY);
+        LinkGeometry.attach(subject, null, source, null, x, y);
     }
 
     public static void bind(final Link subject, final Circular source, final Circular target) {
-        // Calculate the bindings (so that the line will be based on the circle circumference instead of in its center)
-        final LineBinding lineBinding = LineBinding.getCircularBindings(source, target);
-
-        // Bind the subjects properties accordingly to our calculations
-        subject.startXProperty().bind(lineBinding.startX);
-        subject.startYProperty().bind(lineBinding.startY);
-        subject.endXProperty().bind(lineBinding.endX);
-        subject.endYProperty().bind(lineBinding.endY);
+        LinkGeometry.attach(subject, null, source, target, null, null);
     }
 
     public static void place(final Circle subject, final MouseEvent target) {
@@ -101,80 +94,6 @@ public class BindingHelper {
         handshakeLine.endYProperty().bind(bindings.endY);
     }
 
-    public static void bind(final ArrowHead subject, final Circular source, final Circular target) {
-        // Calculate the bindings (so that the line will be based on the circle circumference instead of in its center)
-        final LineBinding lineBinding = LineBinding.getCircleBindings(source, target);
-
-        ObservableDoubleValue startX = lineBinding.startX;
-        ObservableDoubleValue startY = lineBinding.startY;
-        ObservableDoubleValue endX = lineBinding.endX;
-        ObservableDoubleValue endY = lineBinding.endY;
-
-        subject.xProperty().bind(endX);
-        subject.yProperty().bind(endY);
-
-        DoubleBinding rotationBinding = new DoubleBinding() {
-            {
-                super.bind(startX, startY, endX, endY);
-                super.bind(source.scaleProperty());
-            }
-
-            @Override
-            protected double computeValue() {
-                double angle = Math.atan2(startY.get() - endY.get(), startX.get() - endX.get());
-                return Math.toDegrees(angle) + 90;
-            }
-        };
-
-
-        subject.rotateProperty().bind(rotationBinding);
-    }
-
-    public static void bind(final ArrowHead subject, final Circular source, final ObservableDoubleValue x, final ObservableDoubleValue y) {
-        // Calculate the bindings (so that the line will be based on the circle circumference instead of in its center)
-        final LineBinding lineBinding = LineBinding.getCircularBindings(source, CanvasPresentation.mouseTracker, x, y);
-
-        ObservableDoubleValue startX = lineBinding.startX;
-        ObservableDoubleValue startY = lineBinding.startY;
-        ObservableDoubleValue endX = lineBinding.endX;
-        ObservableDoubleValue endY = lineBinding.endY;
-
-        subject.xProperty().bind(endX);
-        subject.yProperty().bind(endY);
-
-        DoubleBinding rotationBinding = new DoubleBinding() {
-            {
-                super.bind(startX, startY, endX, endY);
-            }
-
-            @Override
-            protected double computeValue() {
-                double angle = Math.atan2(startY.get() - endY.get(), startX.get() - endX.get());
-                return Math.toDegrees(angle) + 90;
-            }
-        };
-
-
-        subject.rotateProperty().bind(rotationBinding);
-    }
-
-    public static void bind(final Link subject, final ArrowHead target) {
-        final Circle arrowHeadField = new Circle();
-        arrowHeadField.centerXProperty().bind(target.xProperty());
-        arrowHeadField.centerYProperty().bind(target.yProperty());
-        arrowHeadField.setRadius(target.getHeadHeight());
-
-        final LineBinding lineBinding = LineBinding.getCircleBindings(arrowHeadField, new Point(subject.startXProperty(), subject.startYProperty()));
-
-        if (target.shouldBindToTip()) {
-            subject.endXProperty().bind(target.xProperty());
-            subject.endYProperty().bind(target.yProperty());
-        } else {
-            subject.endXProperty().bind(lineBinding.startX);
-            subject.endYProperty().bind(lineBinding.startY);
-        }
-    }
-
     private static class LineBinding {
         final ObservableDoubleValue startX;
         final ObservableDoubleValue startY;
@@ -213,42 +132,6 @@ public class BindingHelper {
             );
         }
 
-        private static <T extends Circular> LineBinding getCircleBindings(final T source, final T target) {
-            return new BindingHelper.LineBinding(
-                    calculateXBinding(source, new Point(target)),
-                    calculateYBinding(source, new Point(target)),
-                    calculateXBinding(target, new Point(source)),
-                    calculateYBinding(target, new Point(source))
-            );
-        }
-
-        private static LineBinding getCircularBindings(final Circular source, final MouseTracker target, final ObservableDoubleValue x, final ObservableDoubleValue y) {
-            final ObservableDoubleValue mouseX = target.gridXProperty().subtract(x);
-            final ObservableDoubleValue mouseY = target.gridYProperty().subtract(y);
-
-            final Point point = new Point(mouseX, mouseY);
-
-            return new BindingHelper.LineBinding(
-                    calculateXBinding(source, point),
-                    calculateYBinding(source, point),
-                    mouseX,
-                    mouseY
-            );
-        }
-
-        private static LineBinding getCircularBindings(final Circular source, final Circular target) {
-            final Point sourcePoint = new Point(source.xProperty(), source.yProperty());
-            final Point targetPoint = new Point(target.xProperty(), target.yProperty());
-
-            return new BindingHelper.LineBinding(
-                    calculateXBinding(source, targetPoint),
-                    calculateYBinding(source, targetPoint),
-                    calculateXBinding(target, sourcePoint),
-                    calculateYBinding(target, sourcePoint)
-            );
-
-        }
-
         private static LineBinding getCircleBindings(final Circle source, final Point target) {
             return new BindingHelper.LineBinding(
                     calculateXBinding(source, target),
@@ -289,54 +172,168 @@ public class BindingHelper {
                 }
             };
         }
+    }
 
-        private static <T extends Circular> ObservableDoubleValue calculateXBinding(final T source, final Point target) {
-            return new DoubleBinding() {
-                {
-                    super.bind(source.xProperty(), source.yProperty());
-                    super.bind(target.xProperty(), target.yProperty());
-                    super.bind(source.radiusProperty());
-                    super.bind(source.scaleProperty());
-                }
+    /**
+     * The geometry of a link (and its arrow head) from a circular to another circular or to the mouse.
+     * The geometry is not bound coordinate by coordinate, instead it is marked dirty when one of its ends changes and
+     * is then recomputed once in the next pulse (computing the angle of the link only once). When an element with many
+     * edges is dragged, every link is therefore only laid out once per frame
+     */
+    private static class LinkGeometry {
+        private static final Set<LinkGeometry> dirtyGeometries = new LinkedHashSet<>();
+        private static AnimationTimer layoutPass = null;
+
+        private final Link link;
+        private final ArrowHead arrowHead;
+        private final Circular source;
+        private final Circular target;
+        // If there is no target, the link ends at the mouse (relative to these coordinates)
+        private final ObservableDoubleValue mouseOffsetX;
+        private final ObservableDoubleValue mouseOffsetY;
+
+        private final List<Observable> dependencies = new ArrayList<>();
+        private final InvalidationListener invalidationListener = observable -> invalidate();
+        // The ends of the link outlive it, they must not keep it from being garbage collected
+        private final WeakInvalidationListener weakInvalidationListener = new WeakInvalidationListener(invalidationListener);
+        private boolean dirty = false;
+
+        private LinkGeometry(final Link link, final ArrowHead arrowHead, final Circular source, final Circular target, final ObservableDoubleValue mouseOffsetX, final ObservableDoubleValue mouseOffsetY) {
+            this.link = link;
+            this.arrowHead = arrowHead;
+            this.source = source;
+            this.target = target;
+            this.mouseOffsetX = mouseOffsetX;
+            this.mouseOffsetY = mouseOffsetY;
+
+            dependencies.addAll(Arrays.asList(source.xProperty(), source.yProperty(), source.radiusProperty(), source.scaleProperty()));
+            if (target != null) {
+                dependencies.addAll(Arrays.asList(target.xProperty(), target.yProperty(), target.radiusProperty(), target.scaleProperty()));
+            } else {
+                dependencies.addAll(Arrays.asList(CanvasPresentation.mouseTracker.gridXProperty(), CanvasPresentation.mouseTracker.gridYProperty(), mouseOffsetX, mouseOffsetY));
+            }
+        }
 
-                @Override
-                protected double computeValue() {
-                    final double angle = Math.atan2(source.yProperty().get() - target.yProperty().get(), source.xProperty().get() - target.xProperty().get()) - Math.toRadians(180);
-                    return source.xProperty().get() + source.radiusProperty().get() * source.scaleProperty().get() * Math.cos(angle);
-                }
-            };
+        /**
+         * Lays out the link (replacing what it was bound to before) and keeps it laid out as its ends change
+         */
+        private static void attach(final Link link, final ArrowHead arrowHead, final Circular source, final Circular target, final ObservableDoubleValue mouseOffsetX, final ObservableDoubleValue mouseOffsetY) {
+            final Object previousGeometry = link.getProperties().get(LinkGeometry.class);
+            if (previousGeometry != null) {
+                ((LinkGeometry) previousGeometry).detach();
+            }
+
+            final LinkGeometry geometry = new LinkGeometry(link, arrowHead, source, target, mouseOffsetX, mouseOffsetY);
+            link.getProperties().put(LinkGeometry.class, geometry);
+
+            link.startXProperty().unbind();
+            link.startYProperty().unbind();
+            link.endXProperty().unbind();
+            link.endYProperty().unbind();
+
+            // An arrow head is moved between links when nails are added or removed, only its latest link places it
+            if (arrowHead != null) {
+                arrowHead.getProperties().put(LinkGeometry.class, geometry);
+                arrowHead.xProperty().unbind();
+                arrowHead.yProperty().unbind();
+                arrowHead.rotateProperty().unbind();
+            }
+
+            geometry.dependencies.forEach(dependency -> dependency.addListener(geometry.weakInvalidationListener));
+            geometry.update();
         }
 
-        private static <T extends Circular> ObservableDoubleValue calculateYBinding(final T source, final Point target) {
-            return new DoubleBinding() {
-                {
-                    super.bind(source.xProperty(), source.yProperty());
-                    super.bind(target.xProperty(), target.yProperty());
-                    super.bind(source.radiusProperty());
-                    super.bind(source.scaleProperty());
-                }
+        private void detach() {
+            dependencies.forEach(dependency -> dependency.removeListener(weakInvalidationListener));
+            dirtyGeometries.remove(this);
+            dirty = false;
+        }
 
-                @Override
-                protected double computeValue() {
-                    final double angle = Math.atan2(source.yProperty().get() - target.yProperty().get(), source.xProperty().get() - target.xProperty().get()) - Math.toRadians(180);
-                    return source.yProperty().get() + source.radiusProperty().get() * source.scaleProperty().get() * Math.sin(angle);
-                }
-            };
+        private void invalidate() {
+            if (dirty) return;
+
+            dirty = true;
+            dirtyGeometries.add(this);
+
+            if (layoutPass == null) {
+                layoutPass = new AnimationTimer() {
+                    @Override
+                    public void handle(final long now) {
+                        layoutDirtyGeometries();
+                    }
+                };
+            }
+            layoutPass.start();
         }
-    }
 
-    private static class Point {
-        private final ObservableDoubleValue x, y;
+        private static void layoutDirtyGeometries() {
+            layoutPass.stop();
 
-        Point(final Circular circular) {
-            this.x = circular.xProperty();
-            this.y = circular.yProperty();
+            final List<LinkGeometry> geometries = new ArrayList<>(dirtyGeometries);
+            dirtyGeometries.clear();
+            geometries.forEach(LinkGeometry::update);
         }
 
-        Point(final ObservableDoubleValue x, final ObservableDoubleValue y) {
-            this.x = x;
-            this.y = y;
+        /**
+         * Computes the geometry (reading the ends also makes the listeners report their next change)
+         */
+        private void update() {
+            dirty = false;
+
+            final double sourceX = source.getX();
+            final double sourceY = source.getY();
+            final double sourceRadius = source.radiusProperty().get() * source.scaleProperty().get();
+
+            final double targetX, targetY, targetRadius;
+            if (target != null) {
+                targetX = target.getX();
+                targetY = target.getY();
+                targetRadius = target.radiusProperty().get() * target.scaleProperty().get();
+            } else {
+                targetX = CanvasPresentation.mouseTracker.getGridX() - mouseOffsetX.get();
+                targetY = CanvasPresentation.mouseTracker.getGridY() - mouseOffsetY.get();
+                targetRadius = 0;
+            }
+
+            // The link starts and ends on the circumference of its ends (instead of in their centers)
+            final double angle = Math.atan2(sourceY - targetY, sourceX - targetX) - Math.PI;
+            final double cos = Math.cos(angle);
+            final double sin = Math.sin(angle);
+
+            final double startX = sourceX + sourceRadius * cos;
+            final double startY = sourceY + sourceRadius * sin;
+            final double endX = targetX - targetRadius * cos;
+            final double endY = targetY - targetRadius * sin;
+
+            link.setStartX(startX);
+            link.setStartY(startY);
+
+            if (arrowHead == null || arrowHead.getProperties().get(LinkGeometry.class) != this) {
+                link.setEndX(endX);
+                link.setEndY(endY);
+                return;
+            }
+
+            // If the ends overlap the link is drawn backwards
+            final double direction = (endX - startX) * cos + (endY - startY) * sin < 0 ? -1 : 1;
+
+            arrowHead.xProperty().set(endX);
+            arrowHead.yProperty().set(endY);
+            arrowHead.setRotate(Math.toDegrees(angle) + (direction > 0 ? 270 : 90));
+
+            if (arrowHead.shouldBindToTip()) {
+                link.setEndX(endX);
+                link.setEndY(endY);
+            } else {
+                // End the link at the base of the arrow head
+                link.setEndX(endX - arrowHead.getHeadHeight() * direction * cos);
+                link.setEndY(endY - arrowHead.getHeadHeight() * direction * sin);
+            }
         }
+    }
+
+    private static class Point {
+        private final ObservableDoubleValue x, y;
 
         Point(final Circle circle) {
             this.x = circle.centerXProperty();
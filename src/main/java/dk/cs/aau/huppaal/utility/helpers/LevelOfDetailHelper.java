@@ -0,0 +1,44 @@
+package dk.cs.aau.huppaal.utility.helpers;
+
+import javafx.beans.property.ReadOnlyBooleanProperty;
+import javafx.beans.property.SimpleBooleanProperty;
+
+/**
+ * How much of the model is drawn at the current zoom level.
+ * Below the reduced detail scale tags are hidden, below the minimal detail scale locations are drawn as plain shapes
+ * and edges as plain lines (without nails, arrow heads or hover areas).
+ * Presentations should bind to the properties (bindings only keep weak references to them)
+ */
+public class LevelOfDetailHelper {
+
+    // Fixed scales (a zoom of 70 % and 50 %), they are not a setting
+    private static final double REDUCED_DETAIL_SCALE = 0.7;
+    private static final double MINIMAL_DETAIL_SCALE = 0.5;
+
+    private static final SimpleBooleanProperty tagsShown = new SimpleBooleanProperty(true);
+    private static final SimpleBooleanProperty detailsShown = new SimpleBooleanProperty(true);
+
+    /**
+     * Call when the zoom level of the canvas changes
+     */
+    public static void setScale(final double scale) {
+        // The properties only notify their listeners when they change, not on every step of a zoom
+        tagsShown.set(scale >= REDUCED_DETAIL_SCALE);
+        detailsShown.set(scale >= MINIMAL_DETAIL_SCALE);
+    }
+
+    /**
+     * True if tags (nicknames, invariants and the properties of edges) are shown
+     */
+    public static ReadOnlyBooleanProperty tagsShownProperty() {
+        return tagsShown;
+    }
+
+    /**
+     * True if locations are drawn with their labels and indicators, and edges with their nails, arrow heads and
+     * hover areas
+     */
+    public static ReadOnlyBooleanProperty detailsShownProperty() {
+        return detailsShown;
+    }
+}
@@ -6,6 +6,8 @@ import dk.cs.aau.huppaal.utility.colors.Color;
 import javafx.collections.FXCollections;
 import javafx.collections.ObservableList;
 
+import java.util.*;
+
 public class SelectHelper {
 
     public static final Color SELECT_COLOR = Color.ORANGE;
@@ -14,6 +16,9 @@ public class SelectHelper {
 
     private static final ObservableList<ItemSelectable> selectedElements = FXCollections.observableArrayList();
 
+    // The same elements as in the list, such that checking if an element is selected does not search the list
+    private static final Set<ItemSelectable> selectedElementSet = new HashSet<>();
+
     public static ObservableList<Nearable> elementsToBeSelected = FXCollections.observableArrayList();
 
     public static void select(final ItemSelectable selectable) {
@@ -21,7 +26,7 @@ public class SelectHelper {
         CanvasController.leaveTextAreas();
 
         // Check if the element is already selected
-        if (selectedElements.contains(selectable)) return;
+        if (isSelected(selectable)) return;
 
         // Clear the list
         clearSelectedElements();
@@ -31,12 +36,31 @@ public class SelectHelper {
 
     public static void addToSelection(final ItemSelectable selectable) {
         // Check if the element is already selected
-        if (selectedElements.contains(selectable)) return;
+        if (!selectedElementSet.add(selectable)) return;
 
         selectable.select();
         selectedElements.add(selectable);
     }
 
+    /**
+     * Adds the elements to the selection, the listeners of the selection are notified once for all of them
+     */
+    public static void addToSelection(final Collection<? extends ItemSelectable> selectables) {
+        final List<ItemSelectable> newlySelected = new ArrayList<>();
+        for (final ItemSelectable selectable : selectables) {
+            if (!selectedElementSet.add(selectable)) continue;
+
+            selectable.select();
+            newlySelected.add(selectable);
+        }
+
+        selectedElements.addAll(newlySelected);
+    }
+
+    public static boolean isSelected(final ItemSelectable selectable) {
+        return selectedElementSet.contains(selectable);
+    }
+
     public static void select(final Nearable nearable) {
         elementsToBeSelected.add(nearable);
     }
@@ -45,15 +69,19 @@ public class SelectHelper {
         selectable.deselect();
 
         // deselect the element
-        selectedElements.remove(selectable);
+        if (selectedElementSet.remove(selectable)) {
+            selectedElements.remove(selectable);
+        }
     }
 
     public static void clearSelectedElements() {
         elementsToBeSelected.clear();
 
-        while (selectedElements.size() > 0) {
-            deselect(selectedElements.get(0));
-        }
+        if (selectedElements.isEmpty()) return;
+
+        selectedElements.forEach(Selectable::deselect);
+        selectedElementSet.clear();
+        selectedElements.clear();
     }
 
     public static ObservableList<ItemSelectable> getSelectedElements() {
@@ -0,0 +1,155 @@
+package dk.cs.aau.huppaal.utility.helpers;
+
+import javafx.beans.InvalidationListener;
+import javafx.geometry.BoundingBox;
+import javafx.geometry.Bounds;
+import javafx.scene.Node;
+import javafx.scene.layout.Pane;
+
+import java.util.*;
+import java.util.function.Function;
+
+/**
+ * Keeps only the presentations that are (nearly) visible in a container.
+ * Presentations are created the first time their element comes within the visible area, and are afterwards detached
+ * from and reattached to the container as the visible area moves (they are kept, so their state survives panning).
+ *
+ * Culling bounds the number of nodes in the scene graph, not memory: a presentation is only released when its element
+ * is removed. Presentations can not be released when they leave the visible area, since the model is bound to them
+ * (e.g. the position of a location and of its tags) and they listen to global state such as the selection.
+ * Once the whole component has been panned over, every presentation exists.
+ *
+ * @param <T> the type of the model elements
+ */
+public class ViewportCuller<T> {
+
+    // How far outside of the visible area presentations are kept in the container
+    private static final double MARGIN = 200;
+
+    private final Pane container;
+    private final Function<T, Node> createPresentation;
+    private final Function<T, Bounds> modelBounds;
+
+    private final Set<T> elements = new LinkedHashSet<>();
+    private final Map<T, Node> presentations = new HashMap<>();
+
+    // The visible area in the coordinates of the container (null if the container is not shown)
+    private Bounds visibleArea = null;
+
+    /**
+     * Culls presentations that are created as soon as their element is added
+     */
+    public ViewportCuller(final Pane container, final Function<T, Node> createPresentation) {
+        this(container, createPresentation, null);
+    }
+
+    /**
+     * @param createPresentation creates the presentation of an element
+     * @param modelBounds the bounds of an element (in the coordinates of the container) before it has a presentation
+     */
+    public ViewportCuller(final Pane container, final Function<T, Node> createPresentation, final Function<T, Bounds> modelBounds) {
+        this.container = container;
+        this.createPresentation = createPresentation;
+        this.modelBounds = modelBounds;
+    }
+
+    /**
+     * Adds the element, its presentation is created once it becomes visible
+     */
+    public void add(final T element) {
+        elements.add(element);
+
+        if (modelBounds == null || isVisible(modelBounds.apply(element))) {
+            materialize(element);
+        }
+    }
+
+    /**
+     * Adds the element and creates its presentation right away (e.g. when the user has just added it)
+     */
+    public Node materialize(final T element) {
+        elements.add(element);
+
+        final Node existingPresentation = presentations.get(element);
+        if (existingPresentation != null) return existingPresentation;
+
+        final Node presentation = createPresentation.apply(element);
+        presentations.put(element, presentation);
+        container.getChildren().add(presentation);
+        addReattachListener(element, presentation);
+
+        return presentation;
+    }
+
+    /**
+     * The presentation of the element, or null if it has not been visible yet
+     */
+    public Node getPresentation(final T element) {
+        return presentations.get(element);
+    }
+
+    public void remove(final T element) {
+        elements.remove(element);
+
+        final Node presentation = presentations.remove(element);
+        if (presentation != null) {
+            container.getChildren().remove(presentation);
+        }
+    }
+
+    /**
+     * Updates which presentations are in the container
+     * @param area the visible area in the coordinates of the container, or null if nothing is visible
+     */
+    public void setVisibleArea(final Bounds area) {
+        visibleArea = area == null ? null : new BoundingBox(
+                area.getMinX() - MARGIN,
+                area.getMinY() - MARGIN,
+                area.getWidth() + MARGIN * 2,
+                area.getHeight() + MARGIN * 2
+        );
+
+        final Set<Node> detach = new HashSet<>();
+        final List<Node> attach = new ArrayList<>();
+
+        for (final T element : elements) {
+            final Node presentation = presentations.get(element);
+
+            if (presentation == null) {
+                if (isVisible(modelBounds.apply(element))) {
+                    final Node newPresentation = createPresentation.apply(element);
+                    presentations.put(element, newPresentation);
+                    attach.add(newPresentation);
+                    addReattachListener(element, newPresentation);
+                }
+            } else if (isVisible(presentation.getBoundsInParent())) {
+                if (presentation.getParent() == null) {
+                    attach.add(presentation);
+                }
+            } else if (presentation.getParent() == container) {
+                detach.add(presentation);
+            }
+        }
+
+        // Change the children in as few steps as possible, every change makes the container lay out again
+        if (!detach.isEmpty()) {
+            container.getChildren().removeAll(detach);
+        }
+        if (!attach.isEmpty()) {
+            container.getChildren().addAll(attach);
+        }
+    }
+
+    private void addReattachListener(final T element, final Node presentation) {
+        // A detached presentation moved by the model (e.g. by undo) is attached again when it moves into view
+        presentation.boundsInParentProperty().addListener((InvalidationListener) observable -> {
+            if (presentation.getParent() == null && presentations.get(element) == presentation && isVisible(presentation.getBoundsInParent())) {
+                container.getChildren().add(presentation);
+            }
+        });
+    }
+
+    private boolean isVisible(final Bounds bounds) {
+        return visibleArea != null && bounds.intersects(visibleArea);
+    }
+}
@@ -5,16 +5,11 @@ import dk.cs.aau.huppaal.presentations.CanvasPresentation;
 
 public class ZoomHelper {
     private static CanvasPresentation canvasPresentation;
-    private static CanvasPresentation.Grid grid;
 
     public static void setCanvas(CanvasPresentation newCanvasPresentation) {
         canvasPresentation = newCanvasPresentation;
     }
 
-    public static void setGrid(CanvasPresentation.Grid newGrid) {
-        grid = newGrid;
-    }
-
     public static void zoomIn() {
         double newScale = canvasPresentation.getScaleX();
         double delta = 1.2;
@@ -61,8 +56,5 @@ public class ZoomHelper {
 
         canvasPresentation.setTranslateX(xOffset - (xOffset % gridSize) + gridSize * 0.5);
         canvasPresentation.setTranslateY(yOffset - (yOffset % gridSize) + gridSize * 0.5);
-
-        grid.setTranslateX(gridSize * 0.5);
-        grid.setTranslateY(gridSize * 0.5);
     }
 }
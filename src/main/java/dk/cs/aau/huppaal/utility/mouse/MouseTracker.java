@@ -8,21 +8,22 @@ import javafx.event.EventHandler;
 import javafx.scene.Node;
 import javafx.scene.input.MouseEvent;
 
-import java.util.ArrayList;
+import java.util.Arrays;
 
 public class MouseTracker {
 
     private final DoubleProperty xProperty = new SimpleDoubleProperty(0);
     private final DoubleProperty yProperty = new SimpleDoubleProperty(0);
-    private final ArrayList<EventHandler<MouseEvent>> onMouseMovedEventHandlers = new ArrayList<>();
-    private final ArrayList<EventHandler<MouseEvent>> onMouseClickedEventHandlers = new ArrayList<>();
-    private final ArrayList<EventHandler<MouseEvent>> onMouseEnteredEventHandlers = new ArrayList<>();
-    private final ArrayList<EventHandler<MouseEvent>> onMouseExitedEventHandlers = new ArrayList<>();
-    private final ArrayList<EventHandler<MouseEvent>> onMouseDraggedEventHandlers = new ArrayList<>();
-    private final ArrayList<EventHandler<MouseEvent>> onMousePressedEventHandlers = new ArrayList<>();
-    private final ArrayList<EventHandler<MouseEvent>> onMouseReleasedEventHandlers = new ArrayList<>();
+    private final Handlers onMouseMovedEventHandlers = new Handlers();
+    private final Handlers onMouseClickedEventHandlers = new Handlers();
+    private final Handlers onMouseEnteredEventHandlers = new Handlers();
+    private final Handlers onMouseExitedEventHandlers = new Handlers();
+    private final Handlers onMouseDraggedEventHandlers = new Handlers();
+    private final Handlers onMousePressedEventHandlers = new Handlers();
+    private final Handlers onMouseReleasedEventHandlers = new Handlers();
     private boolean isActive = true;
 
+    // The snapped coordinates are only computed when they are read after the mouse has moved
     private final DoubleBinding gridX = new DoubleBinding() {
         {
             super.bind(xProperty());
@@ -30,7 +31,7 @@ public class MouseTracker {
 
         @Override
         protected double computeValue() {
-            return xProperty().get() - (xProperty().get() % CanvasPresentation.GRID_SIZE) + CanvasPresentation.GRID_SIZE * 0.5;
+            return snapToGrid(xProperty().get());
         }
     };
     private final DoubleBinding gridY = new DoubleBinding() {
@@ -40,74 +41,69 @@ public class MouseTracker {
 
         @Override
         protected double computeValue() {
-            return yProperty().get() - (yProperty().get() % CanvasPresentation.GRID_SIZE) + CanvasPresentation.GRID_SIZE * 0.5;
+            return snapToGrid(yProperty().get());
         }
     };
 
-    private final EventHandler<MouseEvent> onMouseMovedEventHandler = event -> {
-        if (!isActive) return;
-        onMouseMovedEventHandlers.removeIf(handler -> handler == null);
-        for (EventHandler<MouseEvent> handler : onMouseMovedEventHandlers) {
-            handler.handle(event);
-        }
-    };
+    /**
+     * The handlers of one type of mouse event.
+     * The handlers are kept in an array that is replaced (not changed) when handlers are registered or unregistered,
+     * such that handling an event does not allocate anything and handlers may (un)register handlers while handling it
+     */
+    private class Handlers implements EventHandler<MouseEvent> {
+        private EventHandler<MouseEvent>[] handlers = newArray(0);
 
-    private final EventHandler<MouseEvent> onMouseClickedEventHandler = event -> {
-        if (!isActive) return;
-        onMouseClickedEventHandlers.removeIf(handler -> handler == null);
-        for (EventHandler<MouseEvent> handler : onMouseClickedEventHandlers) {
-            handler.handle(event);
-        }
-    };
+        @Override
+        public void handle(final MouseEvent event) {
+            if (!isActive) return;
 
-    private final EventHandler<MouseEvent> onMouseEnteredEventHandler = event -> {
-        if (!isActive) return;
-        onMouseEnteredEventHandlers.removeIf(handler -> handler == null);
-        for (EventHandler<MouseEvent> handler : onMouseEnteredEventHandlers) {
-            handler.handle(event);
+            final EventHandler<MouseEvent>[] snapshot = handlers;
+            for (final EventHandler<MouseEvent> handler : snapshot) {
+                handler.handle(event);
+            }
         }
-    };
 
-    private final EventHandler<MouseEvent> onMouseExitedEventHandler = event -> {
-        if (!isActive) return;
-        onMouseExitedEventHandlers.removeIf(handler -> handler == null);
-        for (EventHandler<MouseEvent> handler : onMouseExitedEventHandlers) {
-            handler.handle(event);
+        private boolean register(final EventHandler<MouseEvent> eventHandler) {
+            if (eventHandler == null) return false;
+
+            final EventHandler<MouseEvent>[] newHandlers = Arrays.copyOf(handlers, handlers.length + 1);
+            newHandlers[handlers.length] = eventHandler;
+            handlers = newHandlers;
+            return true;
         }
-    };
 
-    private final EventHandler<MouseEvent> onMouseDraggedEventHandler = event -> {
-        if (!isActive) return;
-        onMouseDraggedEventHandlers.removeIf(handler -> handler == null);
-        for (EventHandler<MouseEvent> handler : onMouseDraggedEventHandlers) {
-            handler.handle(event);
+        private boolean unregister(final EventHandler<MouseEvent> eventHandler) {
+            for (int i = 0; i < handlers.length; i++) {
+                if (!handlers[i].equals(eventHandler)) continue;
+
+                final EventHandler<MouseEvent>[] newHandlers = newArray(handlers.length - 1);
+                System.arraycopy(handlers, 0, newHandlers, 0, i);
+                System.arraycopy(handlers, i + 1, newHandlers, i, handlers.length - i - 1);
+                handlers = newHandlers;
+                return true;
+            }
+
+            return false;
         }
-    };
 
-    private final EventHandler<MouseEvent> onMousePressedEventHandler = event -> {
-        if (!isActive) return;
-        onMousePressedEventHandlers.removeIf(handler -> handler == null);
-        for (EventHandler<MouseEvent> handler : onMousePressedEventHandlers) {
-            handler.handle(event);
+        private void clear() {
+            handlers = newArray(0);
         }
-    };
 
-    private final EventHandler<MouseEvent> onMouseReleasedEventHandler = event -> {
-        if (!isActive) return;
-        onMouseReleasedEventHandlers.removeIf(handler -> handler == null);
-        for (EventHandler<MouseEvent> handler : onMouseReleasedEventHandlers) {
-            handler.handle(event);
+        @SuppressWarnings("unchecked")
+        private EventHandler<MouseEvent>[] newArray(final int length) {
+            return (EventHandler<MouseEvent>[]) new EventHandler[length];
         }
-    };
+    }
 
     public MouseTracker(final Node owner) {
-        owner.setOnMouseMoved(this.onMouseMovedEventHandler);
-        owner.setOnMouseClicked(this.onMouseClickedEventHandler);
-        owner.setOnMouseEntered(this.onMouseEnteredEventHandler);
-        owner.setOnMouseExited(this.onMouseExitedEventHandler);
-        owner.setOnMouseDragged(this.onMouseDraggedEventHandler);
-        owner.setOnMousePressed(this.onMousePressedEventHandler);
-        owner.setOnMouseReleased(this.onMouseReleasedEventHandler);
+        owner.setOnMouseMoved(this.onMouseMovedEventHandlers);
+        owner.setOnMouseClicked(this.onMouseClickedEventHandlers);
+        owner.setOnMouseEntered(this.onMouseEnteredEventHandlers);
+        owner.setOnMouseExited(this.onMouseExitedEventHandlers);
+        owner.setOnMouseDragged(this.onMouseDraggedEventHandlers);
+        owner.setOnMousePressed(this.onMousePressedEventHandlers);
+        owner.setOnMouseReleased(this.onMouseReleasedEventHandlers);
 
         // Register our own event handler to register mouse placement at all times
         owner.addEventFilter(MouseEvent.ANY, event -> {
@@ -129,101 +125,87 @@ public class MouseTracker {
     }
 
     public boolean registerOnMouseMovedEventHandler(final EventHandler<MouseEvent> eventHandler) {
-        return onMouseMovedEventHandlers.add(eventHandler);
+        return onMouseMovedEventHandlers.register(eventHandler);
     }
 
     public boolean unregisterOnMouseMovedEventHandler(final EventHandler<MouseEvent> eventHandler) {
-        if (!onMouseMovedEventHandlers.contains(eventHandler)) return false;
-        onMouseMovedEventHandlers.set(onMouseMovedEventHandlers.indexOf(eventHandler), null);
-        return true;
+        return onMouseMovedEventHandlers.unregister(eventHandler);
     }
 
     public void unregisterMouseMovedEventHandlers() {
-        onMouseMovedEventHandlers.forEach(this::unregisterOnMouseMovedEventHandler);
+        onMouseMovedEventHandlers.clear();
     }
 
     public boolean registerOnMouseClickedEventHandler(final EventHandler<MouseEvent> eventHandler) {
-        return onMouseClickedEventHandlers.add(eventHandler);
+        return onMouseClickedEventHandlers.register(eventHandler);
     }
 
     public boolean unregisterOnMouseClickedEventHandler(final EventHandler<MouseEvent> eventHandler) {
-        if (!onMouseClickedEventHandlers.contains(eventHandler)) return false;
-        onMouseClickedEventHandlers.set(onMouseClickedEventHandlers.indexOf(eventHandler), null);
-        return true;
+        return onMouseClickedEventHandlers.unregister(eventHandler);
     }
 
     public void unregisterMouseClickedEventHandlers() {
-        onMouseClickedEventHandlers.forEach(this::unregisterOnMouseClickedEventHandler);
+        onMouseClickedEventHandlers.clear();
     }
 
     public boolean registerOnMouseEnteredEventHandler(final EventHandler<MouseEvent> eventHandler) {
-        return onMouseEnteredEventHandlers.add(eventHandler);
+        return onMouseEnteredEventHandlers.register(eventHandler);
     }
 
     public boolean unregisterOnMouseEnteredEventHandler(final EventHandler<MouseEvent> eventHandler) {
-        if (!onMouseEnteredEventHandlers.contains(eventHandler)) return false;
-        onMouseEnteredEventHandlers.set(onMouseEnteredEventHandlers.indexOf(eventHandler), null);
-        return true;
+        return onMouseEnteredEventHandlers.unregister(eventHandler);
     }
 
     public void unregisterMouseEnteredEventHandlers() {
-        onMouseEnteredEventHandlers.forEach(this::unregisterOnMouseEnteredEventHandler);
+        onMouseEnteredEventHandlers.clear();
     }
 
     public boolean registerOnMouseExitedEventHandler(final EventHandler<MouseEvent> eventHandler) {
-        return onMouseExitedEventHandlers.add(eventHandler);
+        return onMouseExitedEventHandlers.register(eventHandler);
     }
 
     public boolean unregisterOnMouseExitedEventHandler(final EventHandler<MouseEvent> eventHandler) {
-        if (!onMouseExitedEventHandlers.contains(eventHandler)) return false;
-        onMouseExitedEventHandlers.set(onMouseExitedEventHandlers.indexOf(eventHandler), null);
-        return true;
+        return onMouseExitedEventHandlers.unregister(eventHandler);
     }
 
     public void unregisterMouseExitedEventHandlers() {
-        onMouseExitedEventHandlers.forEach(this::unregisterOnMouseExitedEventHandler);
+        onMouseExitedEventHandlers.clear();
     }
 
     public boolean registerOnMouseDraggedEventHandler(final EventHandler<MouseEvent> eventHandler) {
-        return onMouseDraggedEventHandlers.add(eventHandler);
+        return onMouseDraggedEventHandlers.register(eventHandler);
     }
 
     public boolean unregisterOnMouseDraggedEventHandler(final EventHandler<MouseEvent> eventHandler) {
-        if (!onMouseDraggedEventHandlers.contains(eventHandler)) return false;
-        onMouseDraggedEventHandlers.set(onMouseDraggedEventHandlers.indexOf(eventHandler), null);
-        return true;
+        return onMouseDraggedEventHandlers.unregister(eventHandler);
     }
 
     public void unregisterMouseDraggedEventHandlers() {
-        onMouseDraggedEventHandlers.forEach(this::unregisterOnMouseDraggedEventHandler);
+        onMouseDraggedEventHandlers.clear();
     }
 
     public boolean registerOnMousePressedEventHandler(final EventHandler<MouseEvent> eventHandler) {
-        return onMousePressedEventHandlers.add(eventHandler);
+        return onMousePressedEventHandlers.register(eventHandler);
     }
 
     public boolean unregisterOnMousePressedEventHandler(final EventHandler<MouseEvent> eventHandler) {
-        if (!onMousePressedEventHandlers.contains(eventHandler)) return false;
-        onMousePressedEventHandlers.set(onMousePressedEventHandlers.indexOf(eventHandler), null);
-        return true;
+        return onMousePressedEventHandlers.unregister(eventHandler);
     }
 
     public void unregisterMousePressedEventHandlers() {
-        onMousePressedEventHandlers.forEach(this::unregisterOnMousePressedEventHandler);
+        onMousePressedEventHandlers.clear();
     }
 
     public boolean registerOnMouseReleasedEventHandler(final EventHandler<MouseEvent> eventHandler) {
-        return onMouseReleasedEventHandlers.add(eventHandler);
+        return onMouseReleasedEventHandlers.register(eventHandler);
     }
 
     public boolean unregisterOnMouseReleasedEventHandler(final EventHandler<MouseEvent> eventHandler) {
-        if (!onMouseReleasedEventHandlers.contains(eventHandler)) return false;
-        onMouseReleasedEventHandlers.set(onMouseReleasedEventHandlers.indexOf(eventHandler), null);
-        return true;
+        return onMouseReleasedEventHandlers.unregister(eventHandler);
     }
 
     public void unregisterMouseReleasedEventHandlers() {
-        onMouseReleasedEventHandlers.forEach(this::unregisterOnMouseReleasedEventHandler);
+        onMouseReleasedEventHandlers.clear();
     }
 
     /**
@@ -255,4 +237,8 @@ public class MouseTracker {
     public DoubleBinding gridYProperty() {
         return gridY;
     }
+
+    private static double snapToGrid(final double coordinate) {
+        return coordinate - (coordinate % CanvasPresentation.GRID_SIZE) + CanvasPresentation.GRID_SIZE * 0.5;
+    }
 }
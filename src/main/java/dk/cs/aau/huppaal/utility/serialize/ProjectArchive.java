@@ -0,0 +1,228 @@
+package dk.cs.aau.huppaal.utility.serialize;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonParser;
+import com.google.gson.stream.JsonReader;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/**
+ * A project stored in a single file instead of a directory of json files.
+ * Every file of the json layout (one per component and the queries) is kept as a compressed entry
+ * that is only decoded when it is read, and the file is memory mapped such that opening it only reads the index.
+ *
+ * Layout (big endian):
+ *   magic (4 bytes), version (int), index offset (long),
+ *   the compressed entries,
+ *   the index: entry count (int) followed by name length (int), name (utf-8), offset (long), compressed length (int) and length (int) of each entry
+ */
+public class ProjectArchive {
+
+    public static final String EXTENSION = ".hup";
+
+    private static final byte[] MAGIC = {'H', 'U', 'P', 'A'};
+    private static final int VERSION = 1;
+    private static final int HEADER_SIZE = MAGIC.length + Integer.BYTES + Long.BYTES;
+
+    private static final Gson GSON = new Gson();
+
+    private final ByteBuffer buffer;
+    private final Map<String, Entry> entries = new LinkedHashMap<>();
+    private final Map<String, JsonElement> decodedEntries = new ConcurrentHashMap<>();
+
+    private ProjectArchive(final ByteBuffer buffer) throws IOException {
+        this.buffer = buffer;
+
+        try {
+            if (!Arrays.equals(bytesAt(0, MAGIC.length), MAGIC)) {
+                throw new IOException("Not a project archive");
+            }
+
+            final int version = buffer.getInt(MAGIC.length);
+            if (version != VERSION) {
+                throw new IOException("Unsupported project archive version " + version);
+            }
+
+            int position = Math.toIntExact(buffer.getLong(MAGIC.length + Integer.BYTES));
+            final int entryCount = buffer.getInt(position);
+            position += Integer.BYTES;
+
+            for (int i = 0; i < entryCount; i++) {
+                final byte[] name = bytesAt(position + Integer.BYTES, buffer.getInt(position));
+                position += Integer.BYTES + name.length;
+
+                final Entry entry = new Entry(buffer.getLong(position), buffer.getInt(position + Long.BYTES), buffer.getInt(position + Long.BYTES + Integer.BYTES));
+                position += Long.BYTES + 2 * Integer.BYTES;
+
+                entries.put(new String(name, StandardCharsets.UTF_8), entry);
+            }
+        } catch (final IndexOutOfBoundsException | ArithmeticException e) {
+            throw new IOException("The project archive is corrupt", e);
+        }
+    }
+
+    private byte[] bytesAt(final int position, final int length) {
+        final ByteBuffer view = buffer.duplicate();
+        view.position(position);
+
+        final byte[] result = new byte[length];
+        view.get(result);
+        return result;
+    }
+
+    public static boolean isArchive(final String path) {
+        return path != null && path.endsWith(EXTENSION);
+    }
+
+    public static ProjectArchive open(final Path file) throws IOException {
+        try (final FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            if (channel.size() < HEADER_SIZE) {
+                throw new IOException("Not a project archive");
+            }
+
+            // The mapping stays valid after the channel is closed
+            return new ProjectArchive(channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()));
+        }
+    }
+
+    /**
+     * The names of the entries, which are the file names they have in the json layout
+     */
+    public Set<String> getEntryNames() {
+        return Collections.unmodifiableSet(entries.keySet());
+    }
+
+    /**
+     * Decodes the entry the first time it is read. The returned element is shared, do not modify it
+     */
+    public JsonElement read(final String name) throws IOException {
+        final JsonElement decodedEntry = decodedEntries.get(name);
+        if (decodedEntry != null) return decodedEntry;
+
+        final Entry entry = entries.get(name);
+        if (entry == null) {
+            throw new FileNotFoundException(name + " is not in the project archive");
+        }
+
+        final ByteBuffer compressed = buffer.duplicate();
+        compressed.limit(Math.toIntExact(entry.offset + entry.compressedLength));
+        compressed.position(Math.toIntExact(entry.offset));
+
+        final byte[] content = new byte[entry.length];
+        final Inflater inflater = new Inflater();
+        try {
+            inflater.setInput(compressed);
+            int read = 0;
+            while (read < content.length && !inflater.finished()) {
+                final int inflated = inflater.inflate(content, read, content.length - read);
+                if (inflated == 0 && (inflater.needsInput() || inflater.needsDictionary())) break;
+                read += inflated;
+            }
+
+            if (read != content.length) {
+                throw new IOException("The entry " + name + " in the project archive is corrupt");
+            }
+        } catch (final DataFormatException e) {
+            throw new IOException("The entry " + name + " in the project archive is corrupt", e);
+        } finally {
+            inflater.end();
+        }
+
+        try (final JsonReader reader = new JsonReader(new InputStreamReader(new ByteArrayInputStream(content), StandardCharsets.UTF_8))) {
+            final JsonElement result = JsonParser.parseReader(reader);
+            decodedEntries.put(name, result);
+            return result;
+        }
+    }
+
+    /**
+     * Writes the entries (file names of the json layout mapped to their content) as an archive.
+     * The archive is written next to the target and moved in place when it is complete.
+     */
+    public static void write(final Path file, final Map<String, JsonElement> content) throws IOException {
+        final Path directory = file.toAbsolutePath().getParent();
+        Files.createDirectories(directory);
+        final Path temporaryFile = Files.createTempFile(directory, file.getFileName().toString(), ".tmp");
+
+        try {
+            long indexOffset = HEADER_SIZE;
+
+            try (final DataOutputStream output = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(temporaryFile)))) {
+                output.write(MAGIC);
+                output.writeInt(VERSION);
+                output.writeLong(0); // The index offset, filled in when the entries are written
+
+                final Map<String, Entry> writtenEntries = new LinkedHashMap<>();
+                final Deflater deflater = new Deflater();
+                final byte[] chunk = new byte[8192];
+
+                try {
+                    for (final Map.Entry<String, JsonElement> entry : content.entrySet()) {
+                        final byte[] bytes = GSON.toJson(entry.getValue()).getBytes(StandardCharsets.UTF_8);
+
+                        deflater.reset();
+                        deflater.setInput(bytes);
+                        deflater.finish();
+
+                        int compressedLength = 0;
+                        while (!deflater.finished()) {
+                            final int deflated = deflater.deflate(chunk);
+                            output.write(chunk, 0, deflated);
+                            compressedLength += deflated;
+                        }
+
+                        writtenEntries.put(entry.getKey(), new Entry(indexOffset, compressedLength, bytes.length));
+                        indexOffset += compressedLength;
+                    }
+                } finally {
+                    deflater.end();
+                }
+
+                output.writeInt(writtenEntries.size());
+                for (final Map.Entry<String, Entry> entry : writtenEntries.entrySet()) {
+                    final byte[] name = entry.getKey().getBytes(StandardCharsets.UTF_8);
+                    output.writeInt(name.length);
+                    output.write(name);
+                    output.writeLong(entry.getValue().offset);
+                    output.writeInt(entry.getValue().compressedLength);
+                    output.writeInt(entry.getValue().length);
+                }
+            }
+
+            // Point the header to the index
+            try (final FileChannel channel = FileChannel.open(temporaryFile, StandardOpenOption.WRITE)) {
+                channel.write(ByteBuffer.allocate(Long.BYTES).putLong(0, indexOffset), MAGIC.length + Integer.BYTES);
+            }
+
+            try {
+                Files.move(temporaryFile, file, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+            } catch (final AtomicMoveNotSupportedException e) {
+                Files.move(temporaryFile, file, StandardCopyOption.REPLACE_EXISTING);
+            }
+        } finally {
+            Files.deleteIfExists(temporaryFile);
+        }
+    }
+
+    private static class Entry {
+        private final long offset;
+        private final int compressedLength;
+        private final int length;
+
+        private Entry(final long offset, final int compressedLength, final int length) {
+            this.offset = offset;
+            this.compressedLength = compressedLength;
+            this.length = length;
+        }
+    }
+}
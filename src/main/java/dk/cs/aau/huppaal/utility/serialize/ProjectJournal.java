@@ -0,0 +1,566 @@
+package dk.cs.aau.huppaal.utility.serialize;
+
+import dk.cs.aau.huppaal.HUPPAAL;
+import dk.cs.aau.huppaal.abstractions.Component;
+import dk.cs.aau.huppaal.abstractions.SubComponent;
+import dk.cs.aau.huppaal.utility.UndoRedoStack;
+import com.google.gson.*;
+import javafx.animation.PauseTransition;
+import javafx.beans.value.ChangeListener;
+import javafx.collections.ListChangeListener;
+import javafx.util.Duration;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.channels.OverlappingFileLockException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.util.*;
+
+/**
+ * An append-only journal of the changes to the open project that have not been saved yet.
+ * Every project has its own journal, which is locked by the instance of H-UPPAAL that has the project open. If
+ * H-UPPAAL is not closed properly the journal is left behind, and the next time the project is opened the user is
+ * asked whether the journaled changes should be applied on top of the saved project.
+ *
+ * The first line of the journal is the path of the project, every following line is a change to a project file:
+ *   {"file": ..., "content": ...} the whole file (without content if the file has been removed)
+ *   {"file": ..., "properties": {...}} the properties of a component that have changed
+ *   {"file": ..., "list": ..., "from": i, "to": j, "elements": [...]} the elements i to j of a list of a component have been replaced
+ * Changes are journaled after every change to the undo/redo stack, and once other changes (e.g. to the declarations)
+ * have settled. When enough changes have been appended, the journal is compacted to the whole of every changed file.
+ */
+public class ProjectJournal {
+
+    private static final String PROJECT = "project";
+    private static final String FILE = "file";
+    private static final String CONTENT = "content";
+    private static final String PROPERTIES = "properties";
+    private static final String LIST = "list";
+    private static final String FROM = "from";
+    private static final String TO = "to";
+    private static final String ELEMENTS = "elements";
+
+    private static final String EXTENSION = ".journal";
+    private static final int COMPACTION_THRESHOLD = 200;
+    private static final Duration RECORD_DELAY = Duration.seconds(1);
+
+    private static final Gson GSON = new Gson();
+
+    private static Path journalDirectory = null;
+    private static PauseTransition delayedRecord = null;
+
+    // The journal of the open project (the writer is null if the journal is locked by another instance)
+    private static String projectPath = null;
+    private static Path journalFile = null;
+    private static FileChannel lockChannel = null;
+    private static Writer writer = null;
+    private static int recordsSinceCompaction = 0;
+
+    // The changes that were journaled by a run that was not closed properly
+    private static final List<JsonObject> unsavedRecords = new ArrayList<>();
+
+    // The project files that have changed since the project was last loaded or saved
+    private static final Set<String> changedFiles = new LinkedHashSet<>();
+
+    // The state of the project when it was last journaled
+    private static final Map<Component, JournaledComponent> journaledComponents = new HashMap<>();
+    private static long journaledQueriesRevision = 0;
+
+    /**
+     * Starts journaling the changes of the project, the journals are kept in the given directory
+     */
+    public static void initialize(final Path directory) {
+        journalDirectory = directory;
+
+        // Changes that are not pushed on the undo/redo stack are journaled once they have settled
+        delayedRecord = new PauseTransition(RECORD_DELAY);
+        delayedRecord.setOnFinished(event -> record());
+        final ChangeListener<Number> scheduleRecord = (observable, oldRevision, newRevision) -> delayedRecord.playFromStart();
+
+        HUPPAAL.getProject().getComponents().forEach(component -> component.revisionProperty().addListener(scheduleRecord));
+        HUPPAAL.getProject().getComponents().addListener((ListChangeListener<Component>) c -> {
+            while (c.next()) {
+                c.getRemoved().forEach(component -> component.revisionProperty().removeListener(scheduleRecord));
+                c.getAddedSubList().forEach(component -> component.revisionProperty().addListener(scheduleRecord));
+            }
+            delayedRecord.playFromStart();
+        });
+        HUPPAAL.getProject().queriesRevisionProperty().addListener(scheduleRecord);
+
+        UndoRedoStack.addChangeListener(ProjectJournal::record);
+    }
+
+    /**
+     * Finds a project with changes that were not saved before H-UPPAAL was last closed, and which is not open elsewhere
+     * @return the path of the project, or null if there is none
+     */
+    public static String findUnsavedProject() {
+        if (journalDirectory == null || !Files.isDirectory(journalDirectory)) return null;
+
+        final List<Path> journals = new ArrayList<>();
+        try (final DirectoryStream<Path> stream = Files.newDirectoryStream(journalDirectory, "*" + EXTENSION)) {
+            stream.forEach(journals::add);
+        } catch (final IOException e) {
+            e.printStackTrace();
+            return null;
+        }
+
+        for (final Path journal : journals) {
+            // Closing the channel releases the lock
+            try (final FileChannel channel = openLockChannel(journal)) {
+                if (tryLock(channel) == null) continue;
+
+                final List<JsonObject> records = new ArrayList<>();
+                final String path = read(journal, records);
+                if (path != null && !records.isEmpty()) {
+                    return path;
+                }
+            } catch (final IOException e) {
+                e.printStackTrace();
+            }
+        }
+
+        return null;
+    }
+
+    /**
+     * Switches to the journal of the given project, the journal of the previously open project is removed
+     * @return true if the journal contains changes that were not saved before H-UPPAAL was last closed
+     */
+    public static boolean open(final String path) {
+        if (journalDirectory == null) return false;
+
+        close();
+        projectPath = normalize(path);
+        journalFile = journalDirectory.resolve(Integer.toHexString(projectPath.hashCode()) + EXTENSION);
+
+        try {
+            Files.createDirectories(journalDirectory);
+            lockChannel = openLockChannel(journalFile);
+            if (tryLock(lockChannel) == null) {
+                lockChannel.close();
+                lockChannel = null;
+                HUPPAAL.showToast("The project is open in another instance of H-UPPAAL, unsaved changes will not be recoverable");
+                return false;
+            }
+
+            // Another project could have a journal with the same name
+            if (!projectPath.equals(read(journalFile, unsavedRecords))) {
+                unsavedRecords.clear();
+            }
+        } catch (final IOException e) {
+            e.printStackTrace();
+            unsavedRecords.clear();
+        }
+
+        return !unsavedRecords.isEmpty();
+    }
+
+    /**
+     * Applies the changes that were not saved before H-UPPAAL was last closed to the project files (keyed by file name)
+     */
+    public static void applyUnsavedChanges(final Map<String, JsonElement> projectFiles) {
+        unsavedRecords.forEach(record -> apply(record, projectFiles));
+    }
+
+    /**
+     * Starts journaling the changes made from the current state of the project.
+     * Call after the project has been loaded or saved
+     * @param keepUnsavedChanges if true the already journaled changes are kept (e.g. when they have just been recovered)
+     */
+    public static void startTracking(final String path, final boolean keepUnsavedChanges) {
+        if (journalDirectory == null) return;
+
+        if (!normalize(path).equals(projectPath)) {
+            open(path);
+        }
+
+        changedFiles.clear();
+        if (keepUnsavedChanges) {
+            unsavedRecords.forEach(record -> changedFiles.add(record.get(FILE).getAsString()));
+        }
+        unsavedRecords.clear();
+
+        journaledComponents.clear();
+        HUPPAAL.getProject().getComponents().forEach(component -> {
+            component.collectChangedParts();
+            journaledComponents.put(component, new JournaledComponent(component));
+        });
+        journaledQueriesRevision = HUPPAAL.getProject().getQueriesRevision();
+
+        compact();
+    }
+
+    /**
+     * Appends the changes made since the project was last journaled
+     */
+    public static void record() {
+        if (writer == null) return;
+
+        final List<Component> components = HUPPAAL.getProject().getComponents();
+        final List<JsonObject> records = new ArrayList<>();
+        final Set<String> removedFiles = new HashSet<>();
+
+        // Sub components are serialized by the name of their component, so a rename also changes the components using it
+        final Set<Component> renamedComponents = new HashSet<>();
+        components.forEach(component -> {
+            final JournaledComponent journaledComponent = journaledComponents.get(component);
+            if (journaledComponent != null && !HUPPAAL.componentFileName(component).equals(journaledComponent.fileName)) {
+                renamedComponents.add(component);
+            }
+        });
+
+        for (final Component component : components) {
+            final String fileName = HUPPAAL.componentFileName(component);
+            final JournaledComponent journaledComponent = journaledComponents.get(component);
+            final Set<Object> changedParts = component.collectChangedParts();
+
+            // New and renamed components are journaled as a whole
+            if (journaledComponent == null || renamedComponents.contains(component)) {
+                if (journaledComponent != null) {
+                    removedFiles.add(journaledComponent.fileName);
+                }
+                records.add(fileRecord(fileName, component.serialize()));
+                journaledComponents.put(component, new JournaledComponent(component));
+                continue;
+            }
+
+            if (journaledComponent.revision == component.getRevision() && !usesAny(component, renamedComponents)) continue;
+
+            if (changedParts.contains(component)) {
+                final JsonObject record = new JsonObject();
+                record.addProperty(FILE, fileName);
+                record.add(PROPERTIES, component.serializeProperties());
+                records.add(record);
+            }
+
+            component.getSerializedLists().forEach((key, elements) -> {
+                recordList(records, fileName, key, journaledComponent.lists.get(key), elements, changedParts, renamedComponents);
+            });
+
+            journaledComponents.put(component, new JournaledComponent(component));
+        }
+
+        // Components that have been deleted
+        final Set<Component> currentComponents = new HashSet<>(components);
+        journaledComponents.entrySet().removeIf(journaledComponent -> {
+            if (currentComponents.contains(journaledComponent.getKey())) return false;
+            removedFiles.add(journaledComponent.getValue().fileName);
+            return true;
+        });
+        components.forEach(component -> removedFiles.remove(HUPPAAL.componentFileName(component)));
+
+        // A file is removed before another component is written to it
+        final List<JsonObject> removals = new ArrayList<>();
+        removedFiles.forEach(fileName -> removals.add(fileRecord(fileName, JsonNull.INSTANCE)));
+        records.addAll(0, removals);
+
+        // The queries are few and small, so they are always journaled as a whole
+        if (HUPPAAL.getProject().getQueriesRevision() != journaledQueriesRevision) {
+            records.add(fileRecord(HUPPAAL.QUERIES_FILE_NAME, serializeQueries()));
+            journaledQueriesRevision = HUPPAAL.getProject().getQueriesRevision();
+        }
+
+        if (records.isEmpty()) return;
+
+        try {
+            for (final JsonObject record : records) {
+                writeRecord(writer, record);
+                changedFiles.add(record.get(FILE).getAsString());
+            }
+            writer.flush();
+        } catch (final IOException e) {
+            e.printStackTrace();
+        }
+
+        recordsSinceCompaction += records.size();
+        if (recordsSinceCompaction >= COMPACTION_THRESHOLD) {
+            compact();
+        }
+    }
+
+    /**
+     * Closes and removes the journal of the open project, call when the project is closed properly
+     */
+    public static void close() {
+        try {
+            if (writer != null) {
+                writer.close();
+                writer = null;
+            }
+
+            // Only the instance holding the lock may remove the journal (and its lock file)
+            if (lockChannel != null) {
+                Files.deleteIfExists(journalFile);
+                deleteLockFile(journalFile, lockChannel);
+                lockChannel = null;
+            }
+        } catch (final IOException e) {
+            e.printStackTrace();
+        }
+
+        projectPath = null;
+        journalFile = null;
+        unsavedRecords.clear();
+    }
+
+    /**
+     * Replaces the elements of a list of a component that have changed since it was last journaled
+     */
+    private static void recordList(final List<JsonObject> records, final String fileName, final String key,
+                                   final List<Object> journaledElements, final List<? extends Serializable> elements,
+                                   final Set<Object> changedParts, final Set<Component> renamedComponents) {
+        // The range in which elements have been added, removed or moved is replaced as a whole
+        final int sharedSize = Math.min(journaledElements.size(), elements.size());
+        int prefix = 0;
+        while (prefix < sharedSize && journaledElements.get(prefix) == elements.get(prefix)) {
+            prefix++;
+        }
+        int suffix = 0;
+        while (suffix < sharedSize - prefix
+                && journaledElements.get(journaledElements.size() - 1 - suffix) == elements.get(elements.size() - 1 - suffix)) {
+            suffix++;
+        }
+        if (prefix < journaledElements.size() - suffix || prefix < elements.size() - suffix) {
+            records.add(listRecord(fileName, key, prefix, journaledElements.size() - suffix, elements.subList(prefix, elements.size() - suffix)));
+        }
+
+        // The elements outside of that range are replaced in runs of changed elements (indices are after the replacement above)
+        int runStart = -1;
+        for (int i = 0; i <= elements.size(); i++) {
+            final boolean changed = i < elements.size()
+                    && (i < prefix || i >= elements.size() - suffix)
+                    && (changedParts.contains(elements.get(i)) || usesAny(elements.get(i), renamedComponents));
+
+            if (changed && runStart < 0) {
+                runStart = i;
+            } else if (!changed && runStart >= 0) {
+                records.add(listRecord(fileName, key, runStart, i, elements.subList(runStart, i)));
+                runStart = -1;
+            }
+        }
+    }
+
+    private static void apply(final JsonObject record, final Map<String, JsonElement> projectFiles) {
+        final String fileName = record.get(FILE).getAsString();
+
+        if (record.has(CONTENT)) {
+            projectFiles.put(fileName, record.get(CONTENT));
+            return;
+        }
+        if (!record.has(PROPERTIES) && !record.has(LIST)) {
+            projectFiles.remove(fileName);
+            return;
+        }
+
+        // The file could have been changed outside of H-UPPAAL, then the change cannot be applied
+        final JsonElement file = projectFiles.get(fileName);
+        if (file == null || !file.isJsonObject()) return;
+        final JsonObject component = file.getAsJsonObject();
+
+        if (record.has(PROPERTIES)) {
+            record.getAsJsonObject(PROPERTIES).entrySet().forEach(property -> component.add(property.getKey(), property.getValue()));
+            return;
+        }
+
+        final String key = record.get(LIST).getAsString();
+        final JsonArray oldElements = component.getAsJsonArray(key);
+        final int from = record.get(FROM).getAsInt();
+        final int to = record.get(TO).getAsInt();
+        if (oldElements == null || from > to || to > oldElements.size()) return;
+
+        final JsonArray newElements = new JsonArray();
+        for (int i = 0; i < from; i++) {
+            newElements.add(oldElements.get(i));
+        }
+        newElements.addAll(record.getAsJsonArray(ELEMENTS));
+        for (int i = to; i < oldElements.size(); i++) {
+            newElements.add(oldElements.get(i));
+        }
+        component.add(key, newElements);
+    }
+
+    private static boolean usesAny(final Component component, final Set<Component> components) {
+        if (components.isEmpty()) return false;
+
+        for (final SubComponent subComponent : component.getSubComponents()) {
+            if (components.contains(subComponent.getComponent())) return true;
+        }
+        return false;
+    }
+
+    private static boolean usesAny(final Object element, final Set<Component> components) {
+        return element instanceof SubComponent && components.contains(((SubComponent) element).getComponent());
+    }
+
+    /**
+     * Rewrites the journal such that it only contains the current content of each changed project file
+     */
+    private static void compact() {
+        if (lockChannel == null) return;
+
+        try {
+            if (writer != null) {
+                writer.close();
+                writer = null;
+            }
+
+            final Path temporaryFile = Files.createTempFile(journalFile.toAbsolutePath().getParent(), journalFile.getFileName().toString(), ".tmp");
+            try {
+                try (final Writer snapshotWriter = Files.newBufferedWriter(temporaryFile, StandardCharsets.UTF_8)) {
+                    final JsonObject header = new JsonObject();
+                    header.addProperty(PROJECT, projectPath);
+                    writeRecord(snapshotWriter, header);
+
+                    for (final String fileName : changedFiles) {
+                        writeRecord(snapshotWriter, fileRecord(fileName, serializeFile(fileName)));
+                    }
+                }
+
+                try {
+                    Files.move(temporaryFile, journalFile, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+                } catch (final AtomicMoveNotSupportedException e) {
+                    Files.move(temporaryFile, journalFile, StandardCopyOption.REPLACE_EXISTING);
+                }
+            } finally {
+                Files.deleteIfExists(temporaryFile);
+            }
+
+            writer = Files.newBufferedWriter(journalFile, StandardCharsets.UTF_8, StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+            recordsSinceCompaction = 0;
+        } catch (final IOException e) {
+            e.printStackTrace();
+        }
+    }
+
+    /**
+     * The current content of a project file, JsonNull if the file does not exist anymore
+     */
+    private static JsonElement serializeFile(final String fileName) {
+        if (fileName.equals(HUPPAAL.QUERIES_FILE_NAME)) {
+            return serializeQueries();
+        }
+
+        for (final Component component : HUPPAAL.getProject().getComponents()) {
+            if (HUPPAAL.componentFileName(component).equals(fileName)) {
+                return component.serialize();
+            }
+        }
+        return JsonNull.INSTANCE;
+    }
+
+    private static JsonArray serializeQueries() {
+        final JsonArray queries = new JsonArray();
+        HUPPAAL.getProject().getQueries().forEach(query -> queries.add(query.serialize()));
+        return queries;
+    }
+
+    private static JsonObject fileRecord(final String fileName, final JsonElement content) {
+        final JsonObject record = new JsonObject();
+        record.addProperty(FILE, fileName);
+        if (!content.isJsonNull()) {
+            record.add(CONTENT, content);
+        }
+        return record;
+    }
+
+    private static JsonObject listRecord(final String fileName, final String key, final int from, final int to, final List<? extends Serializable> elements) {
+        final JsonArray serializedElements = new JsonArray();
+        elements.forEach(element -> serializedElements.add(element.serialize()));
+
+        final JsonObject record = new JsonObject();
+        record.addProperty(FILE, fileName);
+        record.addProperty(LIST, key);
+        record.addProperty(FROM, from);
+        record.addProperty(TO, to);
+        record.add(ELEMENTS, serializedElements);
+        return record;
+    }
+
+    private static void writeRecord(final Writer writer, final JsonObject record) throws IOException {
+        // Compact json never contains line breaks, so every record is exactly one line
+        writer.write(GSON.toJson(record));
+        writer.write('\n');
+    }
+
+    /**
+     * Reads the records of a journal into the list
+     * @return the path of the project the journal belongs to, or null if the journal does not exist
+     */
+    private static String read(final Path file, final List<JsonObject> records) throws IOException {
+        if (!Files.exists(file)) return null;
+
+        String path = null;
+        try (final BufferedReader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                final JsonObject record = JsonParser.parseString(line).getAsJsonObject();
+
+                if (record.has(PROJECT)) {
+                    path = record.get(PROJECT).getAsString();
+                } else {
+                    records.add(record);
+                }
+            }
+        } catch (final JsonParseException | IllegalStateException e) {
+            // The last line was only partially written when H-UPPAAL was closed, everything before it is intact
+        }
+        return path;
+    }
+
+    private static FileChannel openLockChannel(final Path journal) throws IOException {
+        return FileChannel.open(lockFile(journal), StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+    }
+
+    private static Path lockFile(final Path journal) {
+        return journal.resolveSibling(journal.getFileName() + ".lock");
+    }
+
+    /**
+     * Deletes the lock file and releases the lock. The file is deleted while it is still locked where the file system
+     * allows it, such that another instance can not lock it in between
+     */
+    private static void deleteLockFile(final Path journal, final FileChannel channel) throws IOException {
+        try {
+            Files.deleteIfExists(lockFile(journal));
+            channel.close();
+        } catch (final IOException e) {
+            // Open files can not be deleted on some systems (e.g. Windows)
+            channel.close();
+            Files.deleteIfExists(lockFile(journal));
+        }
+    }
+
+    /**
+     * Locks the channel, or returns null if it is locked by another instance of H-UPPAAL (or by this one)
+     */
+    private static FileLock tryLock(final FileChannel channel) throws IOException {
+        try {
+            return channel.tryLock();
+        } catch (final OverlappingFileLockException e) {
+            return null;
+        }
+    }
+
+    private static String normalize(final String path) {
+        return Paths.get(path).toAbsolutePath().normalize().toString();
+    }
+
+    private static class JournaledComponent {
+        private final String fileName;
+        private final long revision;
+
+        // The elements of each list of the component (see Component.getSerializedLists)
+        private final Map<String, List<Object>> lists = new HashMap<>();
+
+        private JournaledComponent(final Component component) {
+            fileName = HUPPAAL.componentFileName(component);
+            revision = component.getRevision();
+            component.getSerializedLists().forEach((key, elements) -> lists.put(key, new ArrayList<>(elements)));
+        }
+    }
+}
@@ -0,0 +1,95 @@
+package dk.cs.aau.huppaal.code_analysis;
+
+import dk.cs.aau.huppaal.abstractions.Component;
+import dk.cs.aau.huppaal.abstractions.Edge;
+import dk.cs.aau.huppaal.abstractions.Location;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class AnalysisEngineTest {
+
+    // The engine asks a rule for its quiet period once for every check of the rule that it schedules
+    private static final AtomicInteger scheduledChecks = new AtomicInteger();
+
+    @BeforeAll
+    public static void registerRule() {
+        AnalysisEngine.registerRule(new EdgeRule() {
+            @Override
+            public List<CodeAnalysis.Message> check(final Component component, final Edge edge) {
+                return Collections.emptyList();
+            }
+
+            @Override
+            public long getQuietPeriod() {
+                scheduledChecks.incrementAndGet();
+                return 60 * 60 * 1000; // Never checked while the test runs
+            }
+        });
+    }
+
+    @Test
+    public void editingAnEdgeSchedulesOneCheck() {
+        assertEquals(1, checksScheduledByAnEdit(10));
+        assertEquals(1, checksScheduledByAnEdit(10000));
+    }
+
+    @Test
+    public void addingAnEdgeSchedulesOneCheck() {
+        assertEquals(1, checksScheduledByAddingAnEdge(10));
+        assertEquals(1, checksScheduledByAddingAnEdge(10000));
+    }
+
+    private static int checksScheduledByAnEdit(final int edges) {
+        final Component component = componentWithEdges(edges);
+        final Edge edge = component.getEdges().get(edges / 2);
+
+        AnalysisEngine.startAnalysing(component);
+        try {
+            scheduledChecks.set(0);
+            edge.setTargetLocation(addLocation(component));
+            return scheduledChecks.get();
+        } finally {
+            AnalysisEngine.stopAnalysing(component);
+        }
+    }
+
+    private static int checksScheduledByAddingAnEdge(final int edges) {
+        final Component component = componentWithEdges(edges);
+
+        AnalysisEngine.startAnalysing(component);
+        try {
+            scheduledChecks.set(0);
+            addEdge(component, component.getLocations().get(0));
+            return scheduledChecks.get();
+        } finally {
+            AnalysisEngine.stopAnalysing(component);
+        }
+    }
+
+    private static Component componentWithEdges(final int edges) {
+        final Component component = new Component("Test", false);
+        final Location location = addLocation(component);
+        for (int i = 0; i < edges; i++) {
+            addEdge(component, location);
+        }
+        return component;
+    }
+
+    private static Location addLocation(final Component component) {
+        final Location location = new Location();
+        component.addLocation(location);
+        return location;
+    }
+
+    private static void addEdge(final Component component, final Location location) {
+        final Edge edge = new Edge(location);
+        edge.setTargetLocation(location);
+        component.addEdge(edge);
+    }
+}
@@ -0,0 +1,89 @@
+package dk.cs.aau.huppaal.code_analysis.declarations;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class DeclarationLexerTest {
+
+    // Pieces of declarations that are likely to change how the text around them is lexed
+    private static final String[] FRAGMENTS = {"clock", "chan", "int", "x", "y1", "_z", "42", "3.14", "0x1f", " ", "  ",
+            "\n", "\t", ";", ",", "(", ")", "[", "]", "{", "}", "=", "==", "<", "<=", "<<", "->", "-", ">", ":=", "&&",
+            "|", "/", "*", "//", "/*", "*/", "\"", "\\", "#", "@", "broadcast chan c;", "int[0,5] i = 2;"};
+
+    @Test
+    public void lexesTokens() {
+        final String text = "clock x; // a clock\nint[0,5] i := 2;";
+        final List<Token> tokens = DeclarationLexer.lex(text);
+
+        assertEquals("[UPPAAL_KEYWORD[0, 5), IDENTIFIER[6, 7), PUNCTUATION[7, 8), COMMENT[9, 19), C_KEYWORD[20, 23), "
+                + "PUNCTUATION[23, 24), NUMBER[24, 25), PUNCTUATION[25, 26), NUMBER[26, 27), PUNCTUATION[27, 28), "
+                + "IDENTIFIER[29, 30), OPERATOR[31, 33), NUMBER[34, 35), PUNCTUATION[35, 36)]", tokens.toString());
+    }
+
+    @Test
+    public void lexesUnterminatedCommentsAndStringsToTheirEnd() {
+        assertEquals("[IDENTIFIER[0, 1), COMMENT[2, 9)]", DeclarationLexer.lex("a /* b; c").toString());
+        assertEquals("[STRING[0, 4), IDENTIFIER[5, 6)]", DeclarationLexer.lex("\"abc\nd").toString());
+    }
+
+    @Test
+    public void relexesLikeAFullLex() {
+        final Random random = new Random(42);
+
+        for (int sequence = 0; sequence < 200; sequence++) {
+            String text = randomText(random, random.nextInt(30));
+            List<Token> tokens = DeclarationLexer.lex(text);
+
+            for (int edit = 0; edit < 50; edit++) {
+                final String newText = randomEdit(random, text);
+                final List<Token> relexed = DeclarationLexer.relex(text, tokens, newText);
+
+                final String oldText = text;
+                assertEquals(DeclarationLexer.lex(newText).toString(), relexed.toString(),
+                        () -> "Relexing \"" + oldText + "\" edited to \"" + newText + "\"");
+
+                text = newText;
+                tokens = relexed;
+            }
+        }
+    }
+
+    @Test
+    public void relexReusesTheTokensAfterTheEdit() {
+        final String text = "clock x;\nint y;\nchan c;";
+        final List<Token> tokens = DeclarationLexer.lex(text);
+        final List<Token> relexed = DeclarationLexer.relex(text, tokens, "clock z;\nint y;\nchan c;");
+
+        // The edit did not move the tokens after it, so they are the old ones
+        assertEquals(tokens.size(), relexed.size());
+        for (int i = 2; i < tokens.size(); i++) {
+            assertSame(tokens.get(i), relexed.get(i));
+        }
+    }
+
+    private static String randomText(final Random random, final int fragments) {
+        final StringBuilder text = new StringBuilder();
+        for (int i = 0; i < fragments; i++) {
+            text.append(FRAGMENTS[random.nextInt(FRAGMENTS.length)]);
+        }
+        return text.toString();
+    }
+
+    private static String randomEdit(final Random random, final String text) {
+        final int start = random.nextInt(text.length() + 1);
+        final int end = start + random.nextInt(Math.min(text.length() - start, 8) + 1);
+
+        switch (random.nextInt(3)) {
+            case 0: // Insert
+                return text.substring(0, start) + randomText(random, 1 + random.nextInt(3)) + text.substring(start);
+            case 1: // Delete
+                return text.substring(0, start) + text.substring(end);
+            default: // Replace
+                return text.substring(0, start) + randomText(random, 1 + random.nextInt(2)) + text.substring(end);
+        }
+    }
+}
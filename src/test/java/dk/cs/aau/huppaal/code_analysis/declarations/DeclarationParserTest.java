@@ -0,0 +1,79 @@
+package dk.cs.aau.huppaal.code_analysis.declarations;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class DeclarationParserTest {
+
+    private static List<Symbol> parse(final String text) {
+        return DeclarationParser.parse(text, DeclarationLexer.lex(text));
+    }
+
+    @Test
+    public void parsesDeclarations() {
+        final List<Symbol> symbols = parse("clock x, y;\n"
+                + "const int N = 5;\n"
+                + "int[0,N] counter = 0;\n"
+                + "urgent broadcast chan go[N];\n"
+                + "bool done;\n"
+                + "// int commented;\n"
+                + "void reset(int i) { counter = i; }");
+
+        assertEquals("[CLOCK x, CLOCK y, INT N, INT counter, CHANNEL go, BOOL done, FUNCTION reset]", symbols.toString());
+        assertTrue(symbols.get(2).isConstant());
+        assertTrue(symbols.get(4).isUrgent());
+        assertTrue(symbols.get(4).isBroadcast());
+        assertTrue(symbols.get(4).isArray());
+        assertEquals("void", symbols.get(6).getType());
+    }
+
+    @Test
+    public void parsesTypedefsAndStructs() {
+        final List<Symbol> symbols = parse("typedef int[0,5] id_t;\n"
+                + "typedef struct { int a; bool b[2]; } pair_t;\n"
+                + "id_t id;\n"
+                + "pair_t pairs[3];\n"
+                + "struct { int x; } point;\n"
+                + "struct named { int x; } other;");
+
+        assertEquals("[TYPE id_t, TYPE pair_t, VARIABLE id, VARIABLE pairs, VARIABLE point, VARIABLE other]", symbols.toString());
+        assertEquals("id_t", symbols.get(2).getType());
+        assertTrue(symbols.get(3).isArray());
+
+        // The fields of the struct are not declared at the top level
+        assertTrue(symbols.stream().noneMatch(symbol -> symbol.getName().equals("a") || symbol.getName().equals("x")));
+    }
+
+    @Test
+    public void recoversFromAMissingSemicolon() {
+        assertEquals("[INT a, CLOCK x, CHANNEL c]", parse("int a = 1\nclock x;\nchan c;").toString());
+        assertEquals("[INT a, CLOCK x]", parse("int a\nclock x;").toString());
+        assertEquals("[CLOCK x, INT b]", parse("clock x\nint b;").toString());
+    }
+
+    @Test
+    public void skipsMalformedDeclarations() {
+        assertEquals("[CLOCK y]", parse("int 5 = 3;\nclock y;").toString());
+        assertEquals("[INT a, INT b]", parse("int a = (1 + ;\nint b;").toString());
+        assertEquals("[INT a, CLOCK y]", parse("int a[2;\nclock y;").toString());
+        assertEquals("[CLOCK y]", parse("= ; ) clock y;").toString());
+    }
+
+    @Test
+    public void stopsAtUnterminatedBraces() {
+        // The body of the function never ends, so everything after it is part of it
+        assertEquals("[FUNCTION f]", parse("void f() { int a;\nclock y;").toString());
+        assertEquals("[]", parse("typedef struct { int a;").toString());
+        assertEquals("[]", parse("{{{").toString());
+    }
+
+    @Test
+    public void keepsPositionsOfNames() {
+        final List<Symbol> symbols = parse("clock x;\nint  y;");
+        assertEquals(6, symbols.get(0).getPosition());
+        assertEquals(14, symbols.get(1).getPosition());
+    }
+}
@@ -0,0 +1,106 @@
+package dk.cs.aau.huppaal.code_analysis.declarations;
+
+import javafx.scene.control.IndexRange;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class DeclarationsTest {
+
+    private static final String[] FRAGMENTS = {"clock", "int", "x", "42", " ", "\n", ";", "{", "}", "=", "/", "*",
+            "//", "/*", "*/", "\"", "chan c;"};
+
+    @Test
+    public void editParsesTheNewText() {
+        final Declarations declarations = Declarations.of("clock x;").edit("clock x;\nchan c;");
+
+        assertEquals("[CLOCK x, CHANNEL c]", declarations.getSymbols().toString());
+        assertEquals(Symbol.Kind.CHANNEL, declarations.getSymbol("c").getKind());
+        assertNull(declarations.getSymbol("y"));
+    }
+
+    @Test
+    public void changedRangeCoversTheTokensThatChanged() {
+        final Declarations previous = Declarations.of("int a; int b; int c;");
+
+        // Opening a block comment changes every token after it
+        final Declarations next = previous.edit("int a; /*int b; int c;");
+        final IndexRange range = next.getChangedRange(previous);
+        assertEquals(7, range.getStart());
+        assertEquals(next.getText().length(), range.getEnd());
+
+        // Renaming a variable only changes its own token
+        final IndexRange renamed = previous.edit("int a; int bb; int c;").getChangedRange(previous);
+        assertEquals(11, renamed.getStart());
+        assertEquals(13, renamed.getEnd());
+    }
+
+    /**
+     * The highlighter only restyles the changed range, and keeps the styles of the rest of the text (which move with
+     * the text around them). Styles are given by the token types, so restyling the range with the token types of the
+     * new declarations must give the token types of a fresh lex everywhere
+     */
+    @Test
+    public void restylingTheChangedRangeMatchesAFullLex() {
+        final Random random = new Random(7);
+
+        for (int sequence = 0; sequence < 200; sequence++) {
+            Declarations declarations = Declarations.of(randomText(random, random.nextInt(20)));
+            Token.Type[] styles = typesOf(declarations.getText(), declarations.getTokens());
+
+            for (int edit = 0; edit < 30; edit++) {
+                final String oldText = declarations.getText();
+                final String newText = randomEdit(random, oldText);
+                final Declarations next = declarations.edit(newText);
+                final IndexRange range = next.getChangedRange(declarations);
+
+                // Move the old styles with the text, as the text area does
+                final int maxCommon = Math.min(oldText.length(), newText.length());
+                int prefix = 0;
+                while (prefix < maxCommon && oldText.charAt(prefix) == newText.charAt(prefix)) prefix++;
+                int suffix = 0;
+                while (suffix < maxCommon - prefix && oldText.charAt(oldText.length() - 1 - suffix) == newText.charAt(newText.length() - 1 - suffix)) suffix++;
+
+                final Token.Type[] movedStyles = new Token.Type[newText.length()];
+                System.arraycopy(styles, 0, movedStyles, 0, prefix);
+                System.arraycopy(styles, oldText.length() - suffix, movedStyles, newText.length() - suffix, suffix);
+
+                // Restyle the changed range
+                final Token.Type[] newStyles = typesOf(newText, next.getTokens());
+                System.arraycopy(newStyles, range.getStart(), movedStyles, range.getStart(), range.getLength());
+
+                assertEquals(Arrays.toString(typesOf(newText, DeclarationLexer.lex(newText))), Arrays.toString(movedStyles),
+                        () -> "Restyling \"" + oldText + "\" edited to \"" + newText + "\" in " + range);
+
+                declarations = next;
+                styles = movedStyles;
+            }
+        }
+    }
+
+    private static Token.Type[] typesOf(final String text, final List<Token> tokens) {
+        final Token.Type[] types = new Token.Type[text.length()];
+        for (final Token token : tokens) {
+            Arrays.fill(types, token.getStart(), token.getEnd(), token.getType());
+        }
+        return types;
+    }
+
+    private static String randomText(final Random random, final int fragments) {
+        final StringBuilder text = new StringBuilder();
+        for (int i = 0; i < fragments; i++) {
+            text.append(FRAGMENTS[random.nextInt(FRAGMENTS.length)]);
+        }
+        return text.toString();
+    }
+
+    private static String randomEdit(final Random random, final String text) {
+        final int start = random.nextInt(text.length() + 1);
+        final int end = start + random.nextInt(Math.min(text.length() - start, 6) + 1);
+        return text.substring(0, start) + randomText(random, random.nextInt(3)) + text.substring(end);
+    }
+}
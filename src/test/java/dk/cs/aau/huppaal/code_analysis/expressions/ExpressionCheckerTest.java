@@ -0,0 +1,91 @@
+package dk.cs.aau.huppaal.code_analysis.expressions;
+
+import dk.cs.aau.huppaal.code_analysis.declarations.Declarations;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ExpressionCheckerTest {
+
+    private static final Scope SCOPE = new Scope(Collections.singletonList(Declarations.of(
+            "clock x; hybrid clock h; chan c; broadcast chan b[3]; int n = 0; const int N = 3; bool done;\n" +
+            "double d; typedef int[0, N - 1] id_t; int a[N]; int f(int i) { return i; }")));
+
+    @Test
+    public void acceptsValidGuards() {
+        assertValid(ExpressionChecker::checkGuard, "");
+        assertValid(ExpressionChecker::checkGuard, "x >= 2 && n < N");
+        assertValid(ExpressionChecker::checkGuard, "!done || a[n] == f(n)");
+        assertValid(ExpressionChecker::checkGuard, "forall (i : id_t) a[i] > 0");
+        assertValid(ExpressionChecker::checkGuard, "abs(n - 2) < 1 && sqrt(d) > fabs(d) / 2.5");
+        assertValid(ExpressionChecker::checkGuard, "h > 1 // comment");
+    }
+
+    @Test
+    public void rejectsInvalidGuards() {
+        assertInvalid(ExpressionChecker::checkGuard, "y > 2", "'y' is not declared");
+        assertInvalid(ExpressionChecker::checkGuard, "n++ > 2", "Guards can not have side effects");
+        assertInvalid(ExpressionChecker::checkGuard, "x >= ", "Unexpected end");
+        assertInvalid(ExpressionChecker::checkGuard, "(x > 2", "Expected ')' at the end");
+        assertInvalid(ExpressionChecker::checkGuard, "c > 0", "The channel 'c' can only be used in synchronizations");
+        assertInvalid(ExpressionChecker::checkGuard, "n(2) > 0", "'n' is not a function");
+        assertInvalid(ExpressionChecker::checkGuard, "n[2] > 0", "'n' is not an array");
+    }
+
+    @Test
+    public void checksInvariants() {
+        assertValid(ExpressionChecker::checkInvariant, "x <= 5 && h' == 2");
+        assertInvalid(ExpressionChecker::checkInvariant, "x = 5", "Invariants can not have side effects");
+    }
+
+    @Test
+    public void checksUpdates() {
+        assertValid(ExpressionChecker::checkUpdate, "x = 0, n += 2, a[n] = f(n), done = true, d = pow(d, 2)");
+        assertValid(ExpressionChecker::checkUpdate, "n++, --n");
+        assertInvalid(ExpressionChecker::checkUpdate, "N = 2", "'N' is a constant and can not be assigned");
+        assertInvalid(ExpressionChecker::checkUpdate, "2 = n", "The left side of '=' must be a variable");
+        assertInvalid(ExpressionChecker::checkUpdate, "c = 1", "'c' can not be assigned");
+        assertInvalid(ExpressionChecker::checkUpdate, "n = 1 n = 2", "Unexpected 'n' at column 7");
+    }
+
+    @Test
+    public void checksSynchronizations() {
+        assertValid(ExpressionChecker::checkSync, "c!");
+        assertValid(ExpressionChecker::checkSync, "b[n]?");
+        assertInvalid(ExpressionChecker::checkSync, "n!", "'n' is not a channel");
+        assertInvalid(ExpressionChecker::checkSync, "c", "Expected '!' or '?' at the end");
+    }
+
+    @Test
+    public void selectionsAreVisibleInTheScope() {
+        final List<String> errors = new ArrayList<>();
+        final Scope scope = ExpressionChecker.checkSelect("i : id_t, j : int[0, 2]", SCOPE, errors);
+
+        assertEquals(Collections.emptyList(), errors);
+        ExpressionChecker.checkGuard("a[i] > j", scope, errors);
+        assertEquals(Collections.emptyList(), errors);
+
+        ExpressionChecker.checkSelect("i : n", SCOPE, errors);
+        assertEquals(Collections.singletonList("'n' is not a type"), errors);
+    }
+
+    private static void assertValid(final Check check, final String expression) {
+        final List<String> errors = new ArrayList<>();
+        check.check(expression, SCOPE, errors);
+        assertEquals(Collections.emptyList(), errors, expression);
+    }
+
+    private static void assertInvalid(final Check check, final String expression, final String error) {
+        final List<String> errors = new ArrayList<>();
+        check.check(expression, SCOPE, errors);
+        assertEquals(Collections.singletonList(error), errors, expression);
+    }
+
+    private interface Check {
+        void check(String expression, Scope scope, List<String> errors);
+    }
+}
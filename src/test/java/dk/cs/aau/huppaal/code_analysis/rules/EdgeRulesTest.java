@@ -0,0 +1,74 @@
+package dk.cs.aau.huppaal.code_analysis.rules;
+
+import dk.cs.aau.huppaal.abstractions.Component;
+import dk.cs.aau.huppaal.abstractions.Edge;
+import dk.cs.aau.huppaal.abstractions.Jork;
+import dk.cs.aau.huppaal.abstractions.Location;
+import dk.cs.aau.huppaal.code_analysis.EdgeRule;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class EdgeRulesTest {
+
+    private static final List<EdgeRule> RULES = Arrays.asList(new ForkEdgeRule(), new JoinEdgeRule(),
+            new IncomingEdgeToInitialLocationRule(), new OutgoingEdgeFromFinalLocationRule());
+
+    @Test
+    public void acceptsEdgesBetweenLocations() {
+        final Component component = new Component("Test", false);
+        final Location location = addLocation(component);
+
+        assertEquals(0, check(component, addEdge(component, location, location)));
+    }
+
+    @Test
+    public void reportsMalformedEdges() {
+        final Component component = new Component("Test", false);
+        final Location location = addLocation(component);
+
+        assertEquals(1, check(component, addEdge(component, location, component.getInitialLocation())));
+        assertEquals(1, check(component, addEdge(component, component.getFinalLocation(), location)));
+
+        final Edge fork = new Edge(new Jork(Jork.Type.FORK));
+        fork.setTargetLocation(location);
+        component.addEdge(fork);
+        assertEquals(1, check(component, fork));
+
+        final Edge join = addEdge(component, location, null);
+        join.setTargetJork(new Jork(Jork.Type.JOIN));
+        assertEquals(1, check(component, join));
+    }
+
+    @Test
+    public void unfinishedEdgesAreNotReported() {
+        final Component component = new Component("Test", false);
+
+        assertEquals(0, check(component, new Edge(new Jork(Jork.Type.FORK))));
+        assertEquals(0, check(component, new Edge(component.getFinalLocation())));
+    }
+
+    private static int check(final Component component, final Edge edge) {
+        int messages = 0;
+        for (final EdgeRule rule : RULES) {
+            messages += rule.check(component, edge).size();
+        }
+        return messages;
+    }
+
+    private static Location addLocation(final Component component) {
+        final Location location = new Location();
+        component.addLocation(location);
+        return location;
+    }
+
+    private static Edge addEdge(final Component component, final Location source, final Location target) {
+        final Edge edge = new Edge(source);
+        edge.setTargetLocation(target);
+        component.addEdge(edge);
+        return edge;
+    }
+}
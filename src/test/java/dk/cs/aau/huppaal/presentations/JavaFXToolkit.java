@@ -0,0 +1,59 @@
+package dk.cs.aau.huppaal.presentations;
+
+import javafx.application.Platform;
+import javafx.scene.Node;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.util.concurrent.Callable;
+import java.util.concurrent.FutureTask;
+
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+
+/**
+ * Starts the JavaFX toolkit for the tests of presentations, which can only be built once it runs
+ */
+class JavaFXToolkit {
+
+    private static Boolean started = null;
+
+    /**
+     * Starts the toolkit (once)
+     * @return false if the toolkit can not be started (e.g. when there is no display)
+     */
+    static synchronized boolean start() {
+        if (started == null) {
+            try {
+                Platform.startup(() -> {});
+                started = true;
+            } catch (final IllegalStateException e) {
+                // Already started
+                started = true;
+            } catch (final RuntimeException | LinkageError e) {
+                started = false;
+            }
+        }
+        return started;
+    }
+
+    /**
+     * Runs the task on the JavaFX thread and waits for it
+     */
+    static <T> T run(final Callable<T> task) throws Exception {
+        final FutureTask<T> futureTask = new FutureTask<>(task);
+        Platform.runLater(futureTask);
+        return futureTask.get();
+    }
+
+    /**
+     * Asserts that every node of the controller is built (they were loaded from FXML before the presentations built
+     * them in code)
+     */
+    static void assertNodesAreBuilt(final Object controller) throws IllegalAccessException {
+        for (final Field field : controller.getClass().getFields()) {
+            if (Node.class.isAssignableFrom(field.getType()) && !Modifier.isStatic(field.getModifiers())) {
+                assertNotNull(field.get(controller), () -> field.getName() + " is not built");
+            }
+        }
+    }
+}
@@ -0,0 +1,62 @@
+package dk.cs.aau.huppaal.presentations;
+
+import dk.cs.aau.huppaal.abstractions.Component;
+import dk.cs.aau.huppaal.abstractions.Location;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+public class LocationPresentationTest {
+
+    @BeforeAll
+    public static void startJavaFX() {
+        assumeTrue(JavaFXToolkit.start(), "JavaFX can not be started");
+    }
+
+    @Test
+    public void buildsTheNodesOfTheController() throws Exception {
+        final LocationPresentation presentation = JavaFXToolkit.run(() -> new LocationPresentation(new Location(), new Component("Test", false)));
+
+        assertSame(presentation, presentation.getController().root);
+        assertEquals(Location.RADIUS, presentation.getController().circle.getRadius());
+        assertTrue(presentation.getController().scaleContent.getChildren().contains(presentation.getController().shakeContent));
+    }
+
+    @Test
+    public void isBuiltWithoutFXML() throws Exception {
+        final LocationPresentation presentation = JavaFXToolkit.run(() -> new LocationPresentation(new Location(), new Component("Test", false)));
+
+        assertNull(LocationPresentation.class.getResource("LocationPresentation.fxml"));
+        JavaFXToolkit.assertNodesAreBuilt(presentation.getController());
+    }
+
+    /**
+     * A large component has many locations that are never hovered or shaken, so a location must not hold any
+     * timelines until they are played
+     */
+    @Test
+    public void createsTheAnimationsWhenTheyArePlayed() throws Exception {
+        final LocationPresentation presentation = JavaFXToolkit.run(() -> new LocationPresentation(new Location(), new Component("Test", false)));
+        assertEquals(0, presentation.getAnimationCount());
+
+        JavaFXToolkit.run(() -> {
+            presentation.animateHoverEntered();
+            return null;
+        });
+        assertEquals(1, presentation.getAnimationCount());
+
+        JavaFXToolkit.run(() -> {
+            presentation.animateShakeWarning(true);
+            return null;
+        });
+        assertEquals(3, presentation.getAnimationCount());
+
+        JavaFXToolkit.run(() -> {
+            presentation.animateShakeWarning(false);
+            return null;
+        });
+        assertEquals(1, presentation.getAnimationCount());
+    }
+}
@@ -0,0 +1,38 @@
+package dk.cs.aau.huppaal.presentations;
+
+import dk.cs.aau.huppaal.abstractions.Component;
+import dk.cs.aau.huppaal.abstractions.Edge;
+import dk.cs.aau.huppaal.abstractions.Nail;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+public class NailPresentationTest {
+
+    @BeforeAll
+    public static void startJavaFX() {
+        assumeTrue(JavaFXToolkit.start(), "JavaFX can not be started");
+    }
+
+    @Test
+    public void followsTheNail() throws Exception {
+        final Component component = new Component("Test", false);
+        final Nail nail = new Nail(40, 60);
+        final NailPresentation presentation = JavaFXToolkit.run(() -> new NailPresentation(nail, new Edge(component.getInitialLocation()), component));
+
+        assertEquals(40, presentation.getLayoutX());
+        assertEquals(60, presentation.getLayoutY());
+    }
+
+    @Test
+    public void isBuiltWithoutFXML() throws Exception {
+        final Component component = new Component("Test", false);
+        final Nail nail = new Nail(40, 60);
+        final NailPresentation presentation = JavaFXToolkit.run(() -> new NailPresentation(nail, new Edge(component.getInitialLocation()), component));
+
+        assertNull(NailPresentation.class.getResource("NailPresentation.fxml"));
+        JavaFXToolkit.assertNodesAreBuilt(presentation.getController());
+    }
+}